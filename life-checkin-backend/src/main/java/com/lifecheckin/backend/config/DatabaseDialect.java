@@ -0,0 +1,40 @@
+package com.lifecheckin.backend.config;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * 資料庫類型
+ * 啟動時查詢一次連線的資料庫產品名稱，需要依資料庫選擇 SQL 的地方注入此元件判斷，
+ * 不再各自查詢連線中繼資料。正式環境為 PostgreSQL，開發與測試為 H2。
+ */
+@Component
+public class DatabaseDialect {
+
+    private static final Logger logger = LoggerFactory.getLogger(DatabaseDialect.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private boolean postgres;
+
+    @PostConstruct
+    public void init() {
+        String product = jdbcTemplate.execute(
+                (ConnectionCallback<String>) con -> con.getMetaData().getDatabaseProductName());
+        postgres = "PostgreSQL".equalsIgnoreCase(product);
+        logger.info("資料庫類型: {}", product);
+    }
+
+    /**
+     * @return 是否為 PostgreSQL
+     */
+    public boolean isPostgres() {
+        return postgres;
+    }
+}
@@ -0,0 +1,55 @@
+package com.lifecheckin.backend.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * 主鍵序列初始化
+ * 主鍵由 IDENTITY 改為序列後，既有資料庫中新建立的序列會從 1 開始，
+ * 啟動時將序列推進到現有最大主鍵之後，避免與既有資料衝突（僅 PostgreSQL）
+ */
+@Component
+public class IdSequenceInitializer {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdSequenceInitializer.class);
+
+    // 序列名稱 -> 資料表名稱
+    private static final Map<String, String> SEQUENCES = Map.of(
+            "users_seq", "users",
+            "checkin_records_seq", "checkin_records"
+    );
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DatabaseDialect databaseDialect;
+
+    // 確保 Hibernate 已完成結構更新（建立序列）後才執行
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @PostConstruct
+    public void alignSequences() {
+        if (!databaseDialect.isPostgres()) {
+            return;
+        }
+
+        SEQUENCES.forEach((sequence, table) -> {
+            Long aligned = jdbcTemplate.query(
+                    "SELECT setval('" + sequence + "', m) FROM (SELECT MAX(id) AS m FROM " + table + ") t "
+                            + "WHERE m IS NOT NULL AND m >= (SELECT last_value FROM " + sequence + ")",
+                    rs -> rs.next() ? rs.getLong(1) : null);
+            if (aligned != null) {
+                logger.info("主鍵序列 {} 已推進至 {}", sequence, aligned);
+            }
+        });
+    }
+}
@@ -0,0 +1,13 @@
+package com.lifecheckin.backend.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * 排程配置類
+ * 啟用 @Scheduled 定期任務
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
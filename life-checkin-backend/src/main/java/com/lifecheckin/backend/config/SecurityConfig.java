@@ -1,19 +1,23 @@
 package com.lifecheckin.backend.config;
 
+import com.lifecheckin.backend.controller.CheckInController;
 import com.lifecheckin.backend.security.JwtAuthenticationFilter;
 import com.lifecheckin.backend.security.JwtUtil;
 import com.lifecheckin.backend.service.CustomUserDetailsService;
+import com.lifecheckin.backend.service.PasswordHashingService;
+import com.lifecheckin.backend.service.TokenVersionService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
@@ -36,16 +40,21 @@ public class SecurityConfig {
     private JwtUtil jwtUtil;
 
     @Autowired
-    private BCryptPasswordEncoder bCryptPasswordEncoder;
+    private TokenVersionService tokenVersionService;
+
+    @Autowired
+    private PasswordHashingService passwordHashingService;
 
     /**
      * 配置認證提供者
+     * 密碼驗證在密碼雜湊執行緒池中計算；儲存的雜湊成本與設定不同時，登入成功後重新雜湊
      */
     @Bean
     public DaoAuthenticationProvider authenticationProvider() {
         DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
         provider.setUserDetailsService(userDetailsService);
-        provider.setPasswordEncoder(bCryptPasswordEncoder);
+        provider.setPasswordEncoder(passwordHashingService.passwordEncoder());
+        provider.setUserDetailsPasswordService(userDetailsService);
         return provider;
     }
 
@@ -58,7 +67,7 @@ public class SecurityConfig {
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         // 創建 JWT Filter
-        JwtAuthenticationFilter jwtFilter = new JwtAuthenticationFilter(jwtUtil, userDetailsService);
+        JwtAuthenticationFilter jwtFilter = new JwtAuthenticationFilter(jwtUtil, tokenVersionService);
 
         return http
                 .csrf(csrf -> csrf
@@ -70,11 +79,19 @@ public class SecurityConfig {
                         .frameOptions(frameOptions -> frameOptions.disable())
                 )
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS)) // 無狀態session
+                // 未帶令牌或令牌無效（過期、簽名錯誤、版本過舊）時回 401，前端據此以刷新令牌換發
+                .exceptionHandling(exceptions -> exceptions
+                        .authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED))
+                )
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/api/auth/**").permitAll() // 開放認證API
                         .requestMatchers("/v3/api-docs/**", "/swagger-ui/**", "/swagger-ui.html").permitAll() // 開放Swagger文檔
                         .requestMatchers("/h2-console/**").permitAll() // 開放H2控制台訪問
                         .requestMatchers("/api/test/create-test-user").permitAll() // 允許創建測試用戶
+                        .requestMatchers("/api/admin/**").hasRole("ADMIN") // 管理API僅限管理員
+                        .requestMatchers("/api/stats/**").hasRole("ADMIN") // 維運統計僅限管理員
+                        .requestMatchers("/actuator/health").permitAll() // 健康檢查
+                        .requestMatchers("/actuator/**").hasRole("ADMIN") // 維運指標僅限管理員
                         .anyRequest().authenticated() // 其他路徑需要認證
                 )
                 .authenticationProvider(authenticationProvider()) // 使用配置的認證提供者
@@ -99,6 +116,7 @@ public class SecurityConfig {
         configuration.setAllowedOrigins(Arrays.asList("http://localhost:3000"));
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
         configuration.setAllowedHeaders(Arrays.asList("*"));
+        configuration.setExposedHeaders(Arrays.asList(CheckInController.NEXT_CURSOR_HEADER));
         configuration.setAllowCredentials(true);
         configuration.setMaxAge(3600L);
 
@@ -0,0 +1,73 @@
+package com.lifecheckin.backend.config;
+
+import com.lifecheckin.backend.model.User;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * users 唯一約束名稱遷移
+ * 唯一約束改為固定名稱（uk_users_username、uk_users_email）後，既有資料庫中仍留有 Hibernate 自動命名的舊約束，
+ * 結構更新又會以新名稱再建一次，同一欄位就有兩個唯一索引。
+ * 啟動時把舊約束改為新名稱；新名稱已存在時刪除舊約束（僅 PostgreSQL）
+ */
+@Component
+public class UserConstraintInitializer {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserConstraintInitializer.class);
+
+    // 欄位名稱 -> 約束名稱
+    private static final Map<String, String> CONSTRAINTS = Map.of(
+            "username", User.USERNAME_CONSTRAINT,
+            "email", User.EMAIL_CONSTRAINT
+    );
+
+    // users 上只涵蓋單一欄位的唯一約束
+    private static final String SELECT_SINGLE_COLUMN_UNIQUE =
+            "SELECT con.conname FROM pg_constraint con "
+                    + "JOIN pg_attribute a ON a.attrelid = con.conrelid AND a.attnum = con.conkey[1] "
+                    + "WHERE con.conrelid = CAST('users' AS regclass) AND con.contype = 'u' "
+                    + "AND cardinality(con.conkey) = 1 AND a.attname = ? ORDER BY con.conname";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DatabaseDialect databaseDialect;
+
+    // 確保 Hibernate 已完成結構更新（建立 users 與新約束）後才執行
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @PostConstruct
+    public void migrateConstraints() {
+        if (!databaseDialect.isPostgres()) {
+            return;
+        }
+
+        CONSTRAINTS.forEach((column, name) -> {
+            List<String> existing = jdbcTemplate.queryForList(SELECT_SINGLE_COLUMN_UNIQUE, String.class, column);
+            boolean named = existing.contains(name);
+            for (String old : existing) {
+                if (old.equals(name)) {
+                    continue;
+                }
+                if (named) {
+                    jdbcTemplate.execute("ALTER TABLE users DROP CONSTRAINT \"" + old + "\"");
+                    logger.info("已刪除 users.{} 的重複唯一約束 {}", column, old);
+                } else {
+                    jdbcTemplate.execute("ALTER TABLE users RENAME CONSTRAINT \"" + old + "\" TO " + name);
+                    logger.info("users.{} 的唯一約束 {} 已改名為 {}", column, old, name);
+                    named = true;
+                }
+            }
+        });
+    }
+}
@@ -1,5 +1,6 @@
 package com.lifecheckin.backend.config;
 
+import com.lifecheckin.backend.controller.CheckInController;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
@@ -21,6 +22,7 @@ public class WebConfig implements WebMvcConfigurer {
                 .allowedOrigins("http://localhost:3000") // 前端開發伺服器
                 .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
                 .allowedHeaders("*")
+                .exposedHeaders(CheckInController.NEXT_CURSOR_HEADER) // 讓前端讀取分頁游標
                 .allowCredentials(true)
                 .maxAge(3600); // 1小時
     }
@@ -1,10 +1,16 @@
 package com.lifecheckin.backend.controller;
 
+import com.lifecheckin.backend.dto.AvailabilityResponse;
 import com.lifecheckin.backend.dto.LoginRequest;
 import com.lifecheckin.backend.dto.LoginResponse;
+import com.lifecheckin.backend.dto.RefreshRequest;
 import com.lifecheckin.backend.dto.RegisterRequest;
+import com.lifecheckin.backend.exception.InvalidInputException;
+import com.lifecheckin.backend.exception.PasswordHashingBusyException;
+import com.lifecheckin.backend.exception.UserAlreadyExistsException;
 import com.lifecheckin.backend.model.User;
 import com.lifecheckin.backend.security.JwtUtil;
+import com.lifecheckin.backend.service.RefreshTokenService;
 import com.lifecheckin.backend.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -41,6 +47,9 @@ public class AuthController {
     @Autowired
     private AuthenticationManager authenticationManager;
 
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
     /**
      * 用戶註冊
      * @param registerRequest 註冊請求
@@ -51,6 +60,7 @@ public class AuthController {
     @ApiResponse(responseCode = "201", description = "User registered successfully")
     @ApiResponse(responseCode = "400", description = "Invalid input")
     @ApiResponse(responseCode = "409", description = "Username or email already exists")
+    @ApiResponse(responseCode = "503", description = "Password hashing is saturated, retry later")
     public ResponseEntity<?> register(@RequestBody RegisterRequest registerRequest) {
         logger.info("開始註冊新用戶：{}", registerRequest.getUsername());
 
@@ -79,6 +89,13 @@ public class AuthController {
 
             logger.info("用戶註冊成功：{}, 用戶ID: {}", user.getUsername(), user.getId());
             return ResponseEntity.status(201).body("註冊成功");
+        } catch (UserAlreadyExistsException e) {
+            // 由全局異常處理器回應 409
+            throw e;
+        } catch (PasswordHashingBusyException e) {
+            // 由全局異常處理器回應 503
+            logger.warn("註冊失敗：密碼雜湊忙碌，用戶名：{}", registerRequest.getUsername());
+            throw e;
         } catch (Exception e) {
             logger.error("註冊過程中發生錯誤", e);
             return ResponseEntity.status(500).body("註冊失敗：" + e.getMessage());
@@ -91,9 +108,10 @@ public class AuthController {
      * @return 登入結果（含JWT令牌）
      */
     @PostMapping("/login")
-    @Operation(summary = "User login", description = "Authenticate user and return JWT token")
+    @Operation(summary = "User login", description = "Authenticate user and return a JWT access token and a refresh token")
     @ApiResponse(responseCode = "200", description = "Login successful")
     @ApiResponse(responseCode = "401", description = "Invalid username or password")
+    @ApiResponse(responseCode = "503", description = "Password hashing is saturated, retry later")
     public ResponseEntity<?> login(@RequestBody LoginRequest loginRequest) {
         logger.info("開始嘗試用戶登入：{}", loginRequest.getUsername());
 
@@ -134,14 +152,66 @@ public class AuthController {
 
             // 生成JWT令牌
             logger.debug("開始生成JWT令牌，用戶名：{}", loginRequest.getUsername());
-            String token = jwtUtil.generateToken(loginRequest.getUsername());
+            // 令牌帶有用戶ID、角色與時區，之後的請求不需要再查詢用戶
+            User user = userService.findByUsername(loginRequest.getUsername())
+                    .orElseThrow(() -> new BadCredentialsException("User not found"));
+            String token = jwtUtil.generateToken(user);
             logger.info("JWT令牌生成成功，長度：{}", token.length());
 
+            // 存取令牌過期後以刷新令牌換發，不必再驗證密碼
+            String refreshToken = refreshTokenService.issue(user);
+
             // 返回令牌
-            return ResponseEntity.ok(new LoginResponse(token));
+            return ResponseEntity.ok(new LoginResponse(token, refreshToken));
+        } catch (PasswordHashingBusyException e) {
+            // 由全局異常處理器回應 503
+            logger.warn("登入失敗：密碼雜湊忙碌，用戶名：{}", loginRequest.getUsername());
+            throw e;
         } catch (Exception e) {
             logger.error("登入過程中發生未預期錯誤", e);
             return ResponseEntity.status(500).body("登入失敗：" + e.getMessage());
         }
     }
+
+    /**
+     * 刷新令牌
+     * 以刷新令牌換發新的存取令牌與刷新令牌，舊的刷新令牌隨即失效；不驗證密碼
+     * @param refreshRequest 刷新請求
+     * @return 新的令牌
+     */
+    @PostMapping("/refresh")
+    @Operation(summary = "Refresh tokens", description = "Exchange a refresh token for a new access token and refresh token")
+    @ApiResponse(responseCode = "200", description = "Tokens refreshed")
+    @ApiResponse(responseCode = "401", description = "Refresh token is invalid, expired, revoked or reused")
+    public ResponseEntity<LoginResponse> refresh(@RequestBody RefreshRequest refreshRequest) {
+        return ResponseEntity.ok(refreshTokenService.refresh(refreshRequest.getRefreshToken()));
+    }
+
+    /**
+     * 檢查用戶名與郵箱是否可用（註冊表單輸入時呼叫）
+     * 大多數可用的值由記憶體中的 Bloom filter 直接回答，不查詢資料庫
+     * @param username 用戶名（可選）
+     * @param email 郵箱（可選）
+     * @return 可用性，未提供的欄位為 null
+     */
+    @GetMapping("/available")
+    @Operation(summary = "Check availability", description = "Check whether a username and/or email is still available for registration")
+    @ApiResponse(responseCode = "200", description = "Availability of the given values")
+    @ApiResponse(responseCode = "400", description = "Neither username nor email was given")
+    public ResponseEntity<AvailabilityResponse> available(@RequestParam(required = false) String username,
+                                                          @RequestParam(required = false) String email) {
+        boolean hasUsername = username != null && !username.trim().isEmpty();
+        boolean hasEmail = email != null && !email.trim().isEmpty();
+        if (!hasUsername && !hasEmail) {
+            throw new InvalidInputException("username or email is required");
+        }
+        AvailabilityResponse response = new AvailabilityResponse();
+        if (hasUsername) {
+            response.setUsernameAvailable(!userService.existsByUsername(username));
+        }
+        if (hasEmail) {
+            response.setEmailAvailable(!userService.existsByEmail(email));
+        }
+        return ResponseEntity.ok(response);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,209 @@
+package com.lifecheckin.backend.controller;
+
+import com.lifecheckin.backend.dto.CheckInArchiveResult;
+import com.lifecheckin.backend.dto.CheckInImportResult;
+import com.lifecheckin.backend.dto.PartitionMaintenanceResult;
+import com.lifecheckin.backend.dto.StreakExpiryResult;
+import com.lifecheckin.backend.dto.StreakRecomputeResult;
+import com.lifecheckin.backend.model.DailyCheckInStats;
+import com.lifecheckin.backend.service.CheckInArchiveService;
+import com.lifecheckin.backend.service.CheckInExportService;
+import com.lifecheckin.backend.service.CheckInImportService;
+import com.lifecheckin.backend.service.CheckInPartitionService;
+import com.lifecheckin.backend.service.DailyCheckInStatsService;
+import com.lifecheckin.backend.service.StreakExpiryJob;
+import com.lifecheckin.backend.service.StreakRecomputeService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 打卡管理控制器
+ * 提供僅限管理員使用的打卡維運操作
+ */
+@RestController
+@RequestMapping("/api/admin/checkins")
+@Tag(name = "CheckIn Admin API", description = "Administrative operations on check-in records")
+public class CheckInAdminController {
+
+    private static final String TEXT_CSV_VALUE = "text/csv";
+
+    @Autowired
+    private CheckInImportService checkInImportService;
+
+    @Autowired
+    private DailyCheckInStatsService dailyCheckInStatsService;
+
+    @Autowired
+    private StreakExpiryJob streakExpiryJob;
+
+    @Autowired
+    private StreakRecomputeService streakRecomputeService;
+
+    @Autowired
+    private CheckInPartitionService checkInPartitionService;
+
+    @Autowired
+    private CheckInArchiveService checkInArchiveService;
+
+    @Autowired
+    private CheckInExportService checkInExportService;
+
+    /**
+     * 匯入歷史打卡記錄
+     * 直接讀取請求內容串流，不先緩衝整個請求
+     * @param contentType 請求內容類型（application/x-ndjson 或 text/csv）
+     * @param request HTTP請求
+     * @return 匯入結果
+     */
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_NDJSON_VALUE, TEXT_CSV_VALUE})
+    @Operation(summary = "Import historical check-ins",
+            description = "Stream NDJSON or CSV rows of (username, checkinTime, note, location, status) into check-in records")
+    @ApiResponse(responseCode = "200", description = "Import finished",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = CheckInImportResult.class)))
+    @ApiResponse(responseCode = "400", description = "Malformed CSV header", content = @Content)
+    @ApiResponse(responseCode = "403", description = "Caller is not an administrator", content = @Content)
+    public ResponseEntity<CheckInImportResult> importCheckIns(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            HttpServletRequest request) throws IOException {
+        MediaType mediaType = MediaType.parseMediaType(contentType);
+        Charset charset = mediaType.getCharset() != null ? mediaType.getCharset() : StandardCharsets.UTF_8;
+        CheckInImportService.Format format = mediaType.isCompatibleWith(MediaType.parseMediaType(TEXT_CSV_VALUE))
+                ? CheckInImportService.Format.CSV
+                : CheckInImportService.Format.NDJSON;
+
+        CheckInImportResult result = checkInImportService.importCheckIns(
+                new InputStreamReader(request.getInputStream(), charset), format);
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * 依原始打卡記錄重建日期範圍內的每日打卡統計
+     * @param from 開始日期（含）
+     * @param to 結束日期（含）
+     * @return 重建後的每日統計
+     */
+    @PostMapping("/stats/reconcile")
+    @Operation(summary = "Rebuild daily check-in statistics",
+            description = "Recompute the daily_checkin_stats rollup for a date range from raw check-in records")
+    @ApiResponse(responseCode = "200", description = "Rollup rebuilt",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = DailyCheckInStats.class)))
+    @ApiResponse(responseCode = "400", description = "Invalid date range", content = @Content)
+    @ApiResponse(responseCode = "403", description = "Caller is not an administrator", content = @Content)
+    public ResponseEntity<List<DailyCheckInStats>> reconcileDailyStats(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(dailyCheckInStatsService.reconcile(from, to));
+    }
+
+    /**
+     * 立即執行連續打卡歸零工作（今天這一輪已中斷時從上次的位置繼續）
+     * @return 執行結果
+     */
+    @PostMapping("/streaks/expire")
+    @Operation(summary = "Expire broken streaks",
+            description = "Zero the streak of users whose last check-in is before yesterday, resuming an interrupted run")
+    @ApiResponse(responseCode = "200", description = "Job finished or skipped",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = StreakExpiryResult.class)))
+    @ApiResponse(responseCode = "403", description = "Caller is not an administrator", content = @Content)
+    public ResponseEntity<StreakExpiryResult> expireStreaks() {
+        return ResponseEntity.ok(streakExpiryJob.run());
+    }
+
+    /**
+     * 依打卡記錄重新計算所有用戶的連續打卡天數與歷史最長天數
+     * @param dryRun true（預設）時只列出差異，不寫入
+     * @return 計算結果
+     */
+    @PostMapping("/streaks/recompute")
+    @Operation(summary = "Recompute streaks from check-in history",
+            description = "Derive current and longest streaks for all users from raw check-ins; dryRun=true only reports the differences")
+    @ApiResponse(responseCode = "200", description = "Recompute finished",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = StreakRecomputeResult.class)))
+    @ApiResponse(responseCode = "403", description = "Caller is not an administrator", content = @Content)
+    public ResponseEntity<StreakRecomputeResult> recomputeStreaks(
+            @RequestParam(defaultValue = "true") boolean dryRun) {
+        return ResponseEntity.ok(streakRecomputeService.recompute(dryRun));
+    }
+
+    /**
+     * 立即執行打卡記錄分區維護（建立之後的分區、套用保留期限）
+     * @return 維護結果；未啟用分區時 enabled 為 false
+     */
+    @PostMapping("/partitions/maintain")
+    @Operation(summary = "Maintain check-in partitions",
+            description = "Create upcoming monthly partitions of checkin_records and detach or drop partitions past retention (PostgreSQL only)")
+    @ApiResponse(responseCode = "200", description = "Maintenance finished",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = PartitionMaintenanceResult.class)))
+    @ApiResponse(responseCode = "403", description = "Caller is not an administrator", content = @Content)
+    public ResponseEntity<PartitionMaintenanceResult> maintainPartitions() {
+        return ResponseEntity.ok(checkInPartitionService.maintain(LocalDate.now()));
+    }
+
+    /**
+     * 立即把超過保留期限的打卡記錄移入封存檔
+     * @return 封存結果；未啟用封存時 enabled 為 false
+     */
+    @PostMapping("/archive")
+    @Operation(summary = "Archive old check-ins",
+            description = "Move check-ins older than the retention period out of checkin_records into compressed monthly archive files")
+    @ApiResponse(responseCode = "200", description = "Archiving finished",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = CheckInArchiveResult.class)))
+    @ApiResponse(responseCode = "403", description = "Caller is not an administrator", content = @Content)
+    public ResponseEntity<CheckInArchiveResult> archiveCheckIns() {
+        return ResponseEntity.ok(checkInArchiveService.archive(LocalDate.now()));
+    }
+
+    /**
+     * 以 gzip 壓縮串流匯出指定用戶的所有打卡記錄（含已封存的記錄），供個資查閱請求使用
+     * @param userId 用戶ID
+     * @param format 匯出格式：csv 或 ndjson
+     * @return 串流回應
+     */
+    @GetMapping("/users/{userId}/export")
+    @Operation(summary = "Export a user's check-ins",
+            description = "Stream one user's full check-in history as gzip-compressed CSV or NDJSON")
+    @ApiResponse(responseCode = "200", description = "Streaming export", content = @Content(mediaType = "text/csv"))
+    @ApiResponse(responseCode = "400", description = "Unsupported format", content = @Content)
+    @ApiResponse(responseCode = "403", description = "Caller is not an administrator", content = @Content)
+    @ApiResponse(responseCode = "404", description = "User not found", content = @Content)
+    public ResponseEntity<StreamingResponseBody> exportUserCheckIns(
+            @PathVariable Long userId,
+            @RequestParam(defaultValue = "csv") String format) {
+        CheckInExportService.Format exportFormat = CheckInExportService.Format.parse(format);
+        // 開始串流後無法再回傳 404，先確認用戶存在
+        checkInExportService.requireUser(userId);
+
+        StreamingResponseBody body = out -> checkInExportService.exportUserCheckIns(userId, exportFormat, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getMediaType()))
+                .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("checkins-user-" + userId + "." + exportFormat.getExtension()).build().toString())
+                .body(body);
+    }
+}
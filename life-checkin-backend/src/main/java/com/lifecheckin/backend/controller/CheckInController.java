@@ -1,22 +1,35 @@
 package com.lifecheckin.backend.controller;
 
+import com.lifecheckin.backend.dto.CheckInCalendarView;
+import com.lifecheckin.backend.dto.CheckInCursor;
+import com.lifecheckin.backend.dto.CheckInPage;
+import com.lifecheckin.backend.dto.CheckInView;
 import com.lifecheckin.backend.exception.ResourceNotFoundException;
 import com.lifecheckin.backend.model.CheckIn;
 import com.lifecheckin.backend.model.User;
+import com.lifecheckin.backend.security.JwtPrincipal;
+import com.lifecheckin.backend.service.CheckInCalendarService;
+import com.lifecheckin.backend.service.CheckInExportService;
+import com.lifecheckin.backend.service.CheckInGroupCommitter;
 import com.lifecheckin.backend.service.CheckInService;
-import com.lifecheckin.backend.service.UserService;
+import com.lifecheckin.backend.service.IdempotencyService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.Year;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * 打卡控制器
@@ -27,11 +40,22 @@ import java.util.List;
 @Tag(name = "CheckIn API", description = "API for managing check-in records")
 public class CheckInController {
 
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     @Autowired
     private CheckInService checkInService;
 
     @Autowired
-    private UserService userService;
+    private CheckInGroupCommitter checkInGroupCommitter;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private CheckInCalendarService checkInCalendarService;
+
+    @Autowired
+    private CheckInExportService checkInExportService;
 
     /**
      * 獲取所有打卡記錄
@@ -40,11 +64,27 @@ public class CheckInController {
     @GetMapping
     @Operation(summary = "Get all check-ins", description = "Retrieve a list of all check-in records")
     @ApiResponse(responseCode = "200", description = "Successfully retrieved list",
-            content = @Content(mediaType = "application/json", schema = @Schema(implementation = CheckIn.class)))
-    public ResponseEntity<List<CheckIn>> getAllCheckIns() {
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = CheckInView.class)))
+    public ResponseEntity<List<CheckInView>> getAllCheckIns() {
         return ResponseEntity.ok(checkInService.getAllCheckIns());
     }
 
+    /**
+     * 以 NDJSON 串流輸出所有打卡記錄（Accept: application/x-ndjson）
+     * 每讀到一筆就寫入回應，不會先把全部記錄載入記憶體
+     * @return 串流回應
+     */
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Stream all check-ins", description = "Stream every check-in record as newline-delimited JSON")
+    @ApiResponse(responseCode = "200", description = "Streaming check-ins",
+            content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE, schema = @Schema(implementation = CheckInView.class)))
+    public ResponseEntity<StreamingResponseBody> streamAllCheckIns() {
+        StreamingResponseBody body = checkInService::streamAllCheckIns;
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
     /**
      * 根據ID獲取打卡記錄
      * @param id 打卡記錄ID
@@ -53,37 +93,55 @@ public class CheckInController {
     @GetMapping("/{id}")
     @Operation(summary = "Get a check-in by ID", description = "Retrieve a single check-in record by its ID")
     @ApiResponse(responseCode = "200", description = "Successfully retrieved check-in",
-            content = @Content(mediaType = "application/json", schema = @Schema(implementation = CheckIn.class)))
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = CheckInView.class)))
     @ApiResponse(responseCode = "404", description = "CheckIn not found", content = @Content)
-    public ResponseEntity<CheckIn> getCheckInById(@PathVariable Long id) {
-        CheckIn checkIn = checkInService.getCheckInById(id)
+    public ResponseEntity<CheckInView> getCheckInById(@PathVariable Long id) {
+        CheckInView checkIn = checkInService.getCheckInById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("CheckIn not found with id: " + id));
         return ResponseEntity.ok(checkIn);
     }
 
     /**
      * 創建打卡記錄
+     * 帶有 Idempotency-Key 時，同一個鍵的重送直接回傳第一次的回應
+     * @param idempotencyKey 用戶端產生的冪等鍵（可選）
      * @return 創建的打卡記錄
      */
     @PostMapping
     @Operation(summary = "Create a new check-in", description = "Create a new check-in record for the authenticated user")
     @ApiResponse(responseCode = "201", description = "CheckIn created successfully",
-            content = @Content(mediaType = "application/json", schema = @Schema(implementation = CheckIn.class)))
-    public ResponseEntity<CheckIn> createCheckIn() {
-        // 獲取當前認證用戶
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String username = authentication.getName();
-
-        // 獲取用戶
-        User user = userService.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found with username: " + username));
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = CheckInView.class)))
+    @ApiResponse(responseCode = "409", description = "Already checked in today", content = @Content)
+    public ResponseEntity<CheckInView> createCheckIn(
+            @AuthenticationPrincipal JwtPrincipal principal,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        // 重送的請求由快取直接回應，不寫入
+        CheckInView savedCheckIn = idempotencyKey == null || idempotencyKey.isBlank()
+                ? createCheckInFor(principal, null)
+                : idempotencyService.execute(principal.getName(), idempotencyKey,
+                        storeResponse -> createCheckInFor(principal, storeResponse));
+        return ResponseEntity.status(201).body(savedCheckIn);
+    }
 
-        // 創建打卡記錄
+    /**
+     * 為當前用戶創建打卡記錄
+     * @param principal 當前認證用戶
+     * @param onCreated 在寫入打卡的交易中執行（保存 Idempotency-Key 的回應），null 表示不需要
+     * @return 創建的打卡記錄
+     */
+    private CheckInView createCheckInFor(JwtPrincipal principal, Consumer<CheckIn> onCreated) {
+        // 創建打卡記錄，只帶用戶ID與計算打卡日期用的時區（都來自令牌，不查詢用戶）
+        User owner = new User();
+        owner.setId(principal.getUserId());
+        owner.setTimeZone(principal.getTimeZone());
         CheckIn checkIn = new CheckIn();
-        checkIn.setUser(user);
+        checkIn.setUser(owner);
 
-        CheckIn savedCheckIn = checkInService.createCheckIn(checkIn);
-        return ResponseEntity.status(201).body(savedCheckIn);
+        // 啟用群組提交時與同一時段的其他打卡合併寫入
+        CheckIn savedCheckIn = checkInGroupCommitter.isEnabled()
+                ? checkInGroupCommitter.submitAndWait(checkIn, onCreated)
+                : checkInService.createCheckIn(checkIn, onCreated);
+        return CheckInView.from(savedCheckIn);
     }
 
     /**
@@ -93,40 +151,82 @@ public class CheckInController {
     @GetMapping("/today")
     @Operation(summary = "Check if user has checked in today", description = "Check if the authenticated user has already checked in today")
     @ApiResponse(responseCode = "200", description = "Successfully checked")
-    public ResponseEntity<Boolean> hasCheckedInToday() {
-        // 獲取當前認證用戶
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String username = authentication.getName();
-
-        // 獲取用戶
-        User user = userService.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found with username: " + username));
-
-        // 檢查今日是否已打卡
-        boolean hasCheckedIn = checkInService.hasCheckedInToday(user.getId());
+    public ResponseEntity<Boolean> hasCheckedInToday(@AuthenticationPrincipal JwtPrincipal principal) {
+        // 檢查今日（依用戶時區）是否已打卡
+        boolean hasCheckedIn = checkInService.hasCheckedInToday(principal.getUserId(), principal.getTimeZone());
         return ResponseEntity.ok(hasCheckedIn);
     }
 
     /**
-     * 獲取用戶的打卡記錄
+     * 獲取當前用戶一年的打卡日曆（熱力圖資料）
+     * @param year 年份，未指定時為今年
+     * @return 打卡日曆
+     */
+    @GetMapping("/calendar")
+    @Operation(summary = "Get the current user's check-in calendar",
+            description = "Return one year of check-in days as a bitmap and as runs of consecutive days")
+    @ApiResponse(responseCode = "200", description = "Successfully retrieved calendar",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = CheckInCalendarView.class)))
+    @ApiResponse(responseCode = "400", description = "Invalid year", content = @Content)
+    public ResponseEntity<CheckInCalendarView> getMyCalendar(
+            @AuthenticationPrincipal JwtPrincipal principal,
+            @RequestParam(required = false) Integer year) {
+        int calendarYear = year != null ? year : Year.now().getValue();
+        return ResponseEntity.ok(checkInCalendarService.getCalendar(principal.getUserId(), calendarYear));
+    }
+
+    /**
+     * 以游標分頁獲取用戶的打卡記錄
+     * 下一頁的游標放在 X-Next-Cursor 回應標頭，沒有更早的記錄時不回傳
+     * @param before 上一頁的游標（checkinTime,id），不帶則從最新的記錄開始
+     * @param limit 每頁筆數
      * @return 打卡記錄列表
      */
     @GetMapping("/my")
-    @Operation(summary = "Get user's check-ins", description = "Retrieve the authenticated user's check-in records")
+    @Operation(summary = "Get user's check-ins",
+            description = "Retrieve the authenticated user's check-in records, newest first, one page at a time")
     @ApiResponse(responseCode = "200", description = "Successfully retrieved list",
-            content = @Content(mediaType = "application/json", schema = @Schema(implementation = CheckIn.class)))
-    public ResponseEntity<List<CheckIn>> getMyCheckIns() {
-        // 獲取當前認證用戶
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String username = authentication.getName();
-
-        // 獲取用戶
-        User user = userService.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found with username: " + username));
-
-        // 獲取用戶的打卡記錄
-        List<CheckIn> checkIns = checkInService.getUserCheckIns(user.getId());
-        return ResponseEntity.ok(checkIns);
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = CheckInView.class)))
+    @ApiResponse(responseCode = "400", description = "Invalid cursor or limit", content = @Content)
+    public ResponseEntity<List<CheckInView>> getMyCheckIns(
+            @AuthenticationPrincipal JwtPrincipal principal,
+            @RequestParam(required = false) String before,
+            @RequestParam(required = false) Integer limit) {
+        // 獲取用戶的一頁打卡記錄
+        CheckInPage page = checkInService.getUserCheckInPage(
+                principal.getUserId(), before != null ? CheckInCursor.parse(before) : null, limit);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor().toString());
+        }
+        return response.body(page.getItems());
+    }
+
+    /**
+     * 以 gzip 壓縮串流匯出當前用戶的所有打卡記錄（含已封存的記錄），按時間排序
+     * 回應帶 Content-Encoding: gzip，瀏覽器會自動解壓縮並以附件下載
+     * @param format 匯出格式：csv 或 ndjson
+     * @return 串流回應
+     */
+    @GetMapping("/my/export")
+    @Operation(summary = "Export the current user's check-ins",
+            description = "Stream the authenticated user's full check-in history as gzip-compressed CSV or NDJSON")
+    @ApiResponse(responseCode = "200", description = "Streaming export", content = @Content(mediaType = "text/csv"))
+    @ApiResponse(responseCode = "400", description = "Unsupported format", content = @Content)
+    public ResponseEntity<StreamingResponseBody> exportMyCheckIns(
+            @AuthenticationPrincipal JwtPrincipal principal,
+            @RequestParam(defaultValue = "csv") String format) {
+        CheckInExportService.Format exportFormat = CheckInExportService.Format.parse(format);
+
+        Long userId = principal.getUserId();
+        StreamingResponseBody body = out -> checkInExportService.exportUserCheckIns(userId, exportFormat, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getMediaType()))
+                .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(CheckInExportService.fileName(principal.getName(), exportFormat)).build().toString())
+                .body(body);
     }
 
     /**
@@ -0,0 +1,60 @@
+package com.lifecheckin.backend.controller;
+
+import com.lifecheckin.backend.dto.LeaderboardEntry;
+import com.lifecheckin.backend.service.StreakLeaderboard;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * 排行榜控制器
+ * 連續打卡排行榜由記憶體回答，不查詢資料庫
+ */
+@RestController
+@RequestMapping("/api/leaderboard")
+@Tag(name = "Leaderboard API", description = "Check-in streak leaderboard")
+public class LeaderboardController {
+
+    @Autowired
+    private StreakLeaderboard streakLeaderboard;
+
+    /**
+     * 獲取連續打卡天數最多的用戶
+     * @param limit 筆數，預設 10
+     * @return 排行榜
+     */
+    @GetMapping
+    @Operation(summary = "Get the streak leaderboard", description = "Users with the longest active check-in streaks")
+    @ApiResponse(responseCode = "200", description = "Successfully retrieved leaderboard",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = LeaderboardEntry.class)))
+    @ApiResponse(responseCode = "400", description = "Invalid limit", content = @Content)
+    public ResponseEntity<List<LeaderboardEntry>> getLeaderboard(@RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(streakLeaderboard.top(limit));
+    }
+
+    /**
+     * 獲取當前用戶在排行榜上的名次
+     * @return 名次與連續天數
+     */
+    @GetMapping("/me")
+    @Operation(summary = "Get my leaderboard rank", description = "Rank and active streak of the authenticated user")
+    @ApiResponse(responseCode = "200", description = "Successfully retrieved rank",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = LeaderboardEntry.class)))
+    public ResponseEntity<LeaderboardEntry> getMyRank() {
+        // 獲取當前認證用戶
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return ResponseEntity.ok(streakLeaderboard.rankOf(authentication.getName()));
+    }
+}
@@ -0,0 +1,46 @@
+package com.lifecheckin.backend.controller;
+
+import com.lifecheckin.backend.model.DailyCheckInStats;
+import com.lifecheckin.backend.service.DailyCheckInStatsService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * 統計控制器
+ * 提供維運儀表板使用的打卡統計，只讀取彙總表
+ */
+@RestController
+@RequestMapping("/api/stats")
+@Tag(name = "Stats API", description = "Operational check-in statistics")
+public class StatsController {
+
+    @Autowired
+    private DailyCheckInStatsService dailyCheckInStatsService;
+
+    /**
+     * 獲取最近幾天的每日打卡數與狀態分布
+     * @param days 天數（含今天），預設 90
+     * @return 每日統計，按日期排序
+     */
+    @GetMapping("/daily")
+    @Operation(summary = "Get daily check-in statistics",
+            description = "Daily check-in counts and NORMAL/LATE/EARLY mix for the most recent days, read from the rollup table")
+    @ApiResponse(responseCode = "200", description = "Successfully retrieved statistics",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = DailyCheckInStats.class)))
+    @ApiResponse(responseCode = "400", description = "Invalid number of days", content = @Content)
+    @ApiResponse(responseCode = "403", description = "Caller is not an administrator", content = @Content)
+    public ResponseEntity<List<DailyCheckInStats>> getDailyStats(@RequestParam(required = false) Integer days) {
+        return ResponseEntity.ok(dailyCheckInStatsService.getDailyStats(days));
+    }
+}
@@ -1,10 +1,10 @@
 package com.lifecheckin.backend.controller;
 
 import com.lifecheckin.backend.model.User;
+import com.lifecheckin.backend.service.PasswordHashingService;
 import com.lifecheckin.backend.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
@@ -17,7 +17,7 @@ public class TestController {
     private UserService userService;
 
     @Autowired
-    private BCryptPasswordEncoder encoder;
+    private PasswordHashingService encoder;
 
     @GetMapping("/auth")
     public ResponseEntity<?> testAuth() {
@@ -0,0 +1,12 @@
+package com.lifecheckin.backend.dto;
+
+import lombok.Data;
+
+/**
+ * 用戶名與郵箱可用性檢查結果，未查詢的欄位為 null
+ */
+@Data
+public class AvailabilityResponse {
+    private Boolean usernameAvailable;
+    private Boolean emailAvailable;
+}
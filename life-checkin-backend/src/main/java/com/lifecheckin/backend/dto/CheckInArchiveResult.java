@@ -0,0 +1,20 @@
+package com.lifecheckin.backend.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 打卡記錄封存結果DTO
+ */
+@Data
+public class CheckInArchiveResult {
+    // 是否啟用封存
+    private boolean enabled;
+    // 這次寫入封存檔的月份
+    private List<String> archivedMonths = new ArrayList<>();
+    // 這次移出 checkin_records 的記錄數
+    private long archivedRows;
+    private long elapsedMillis;
+}
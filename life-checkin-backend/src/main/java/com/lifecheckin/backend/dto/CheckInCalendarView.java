@@ -0,0 +1,34 @@
+package com.lifecheckin.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 用戶一年的打卡日曆
+ * bitmap 為 46 個位元組的 Base64：一年中的第 n 天對應第 (n - 1) / 8 個位元組的第 (n - 1) % 8 個位元（最低位元起算）。
+ * runs 為同一份資料的連續區段表示，依日期排序。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CheckInCalendarView {
+    private int year;
+    private int checkInDays;
+    private String bitmap;
+    private List<Run> runs;
+
+    /**
+     * 連續打卡的一段日子
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Run {
+        private LocalDate start;
+        private int days;
+    }
+}
@@ -0,0 +1,43 @@
+package com.lifecheckin.backend.dto;
+
+import com.lifecheckin.backend.exception.InvalidInputException;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * 打卡記錄分頁游標
+ * 以最後一筆記錄的 (打卡時間, ID) 表示，格式為 "checkinTime,id"，例如 "2024-05-01T08:00:00,123"
+ */
+@Data
+@AllArgsConstructor
+public class CheckInCursor {
+    private LocalDateTime checkinTime;
+    private Long id;
+
+    /**
+     * 解析游標字串
+     * @param value 游標字串
+     * @return 游標
+     */
+    public static CheckInCursor parse(String value) {
+        int comma = value.lastIndexOf(',');
+        if (comma < 0) {
+            throw new InvalidInputException("Cursor must be in the form <checkinTime,id>");
+        }
+        try {
+            return new CheckInCursor(
+                    LocalDateTime.parse(value.substring(0, comma).trim()),
+                    Long.parseLong(value.substring(comma + 1).trim()));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new InvalidInputException("Invalid cursor: " + value);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return checkinTime + "," + id;
+    }
+}
@@ -0,0 +1,35 @@
+package com.lifecheckin.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 歷史打卡匯入結果DTO
+ * 回報處理筆數、吞吐量與被拒絕的資料列
+ */
+@Data
+public class CheckInImportResult {
+    private long totalRows;
+    private long importedRows;
+    private long rejectedRows;
+    private int affectedUsers;
+    private long elapsedMillis;
+    private double rowsPerSecond;
+    // 只保留前幾筆拒絕原因，其餘只計入 rejectedRows
+    private List<RowReject> rejects = new ArrayList<>();
+    private boolean rejectsTruncated;
+
+    /**
+     * 被拒絕的資料列
+     */
+    @Data
+    @AllArgsConstructor
+    public static class RowReject {
+        // 資料列在輸入中的行號（從 1 開始，CSV 含標題列）
+        private long line;
+        private String reason;
+    }
+}
@@ -0,0 +1,17 @@
+package com.lifecheckin.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 打卡記錄分頁結果
+ * nextCursor 為 null 表示已經沒有更早的記錄
+ */
+@Data
+@AllArgsConstructor
+public class CheckInPage {
+    private List<CheckInView> items;
+    private CheckInCursor nextCursor;
+}
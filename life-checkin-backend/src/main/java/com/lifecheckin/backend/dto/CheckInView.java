@@ -0,0 +1,42 @@
+package com.lifecheckin.backend.dto;
+
+import com.lifecheckin.backend.model.CheckIn;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 打卡記錄的唯讀投影DTO
+ * 只包含打卡記錄本身的欄位與用戶ID，查詢時直接由 JPQL 建構，不載入實體與關聯的用戶
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CheckInView {
+    private Long id;
+    private Long userId;
+    private LocalDateTime checkinTime;
+    private LocalDate checkinDate;
+    private String note;
+    private String location;
+    private CheckIn.CheckInStatus status;
+
+    /**
+     * 由已載入的打卡記錄建立投影（用於寫入後的回應）
+     * @param checkIn 打卡記錄
+     * @return 投影
+     */
+    public static CheckInView from(CheckIn checkIn) {
+        return new CheckInView(
+                checkIn.getId(),
+                checkIn.getUser() != null ? checkIn.getUser().getId() : null,
+                checkIn.getCheckinTime(),
+                checkIn.getCheckinDate(),
+                checkIn.getNote(),
+                checkIn.getLocation(),
+                checkIn.getStatus());
+    }
+}
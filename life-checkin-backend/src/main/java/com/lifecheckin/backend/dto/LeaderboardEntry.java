@@ -0,0 +1,18 @@
+package com.lifecheckin.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 連續打卡排行榜的一列
+ * 連續天數相同的用戶名次相同；沒有進行中的連續打卡時 rank 為 null
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeaderboardEntry {
+    private Integer rank;
+    private String username;
+    private int streakDays;
+}
@@ -6,8 +6,12 @@ import lombok.Data;
 public class LoginResponse {
     private String token;
 
-    public LoginResponse(String token) {
+    // 存取令牌過期後以 POST /api/auth/refresh 換發新令牌
+    private String refreshToken;
+
+    public LoginResponse(String token, String refreshToken) {
         this.token = token;
+        this.refreshToken = refreshToken;
     }
 
     public String getToken() {
@@ -0,0 +1,28 @@
+package com.lifecheckin.backend.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 打卡記錄分區維護結果DTO
+ */
+@Data
+public class PartitionMaintenanceResult {
+    // 是否啟用分區（僅 PostgreSQL）
+    private boolean enabled;
+    // 這次是否把原本的一般資料表轉換為分區表
+    private boolean converted;
+    private List<String> createdPartitions = new ArrayList<>();
+    // 超過保留期限、已卸離但保留資料表的分區
+    private List<String> detachedPartitions = new ArrayList<>();
+    // 超過保留期限、已刪除的分區
+    private List<String> droppedPartitions = new ArrayList<>();
+    // 目前掛在 checkin_records 下的按月分區
+    private List<String> partitions = new ArrayList<>();
+    // 建立分區時從預設分區搬入的記錄數
+    private long movedFromDefault;
+    // 維護後預設分區剩餘的記錄數，正常應為 0
+    private long defaultPartitionRows;
+}
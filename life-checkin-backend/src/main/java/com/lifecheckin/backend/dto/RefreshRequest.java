@@ -0,0 +1,8 @@
+package com.lifecheckin.backend.dto;
+
+import lombok.Data;
+
+@Data
+public class RefreshRequest {
+    private String refreshToken;
+}
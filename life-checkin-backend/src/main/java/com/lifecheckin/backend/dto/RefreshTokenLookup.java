@@ -0,0 +1,40 @@
+package com.lifecheckin.backend.dto;
+
+import com.lifecheckin.backend.model.User;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 刷新令牌與其用戶的唯讀投影DTO
+ * 以令牌雜湊一次查出刷新需要的欄位與簽發存取令牌所需的用戶聲明，查詢時直接由 JPQL 建構
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RefreshTokenLookup {
+    private Long id;
+    private String familyId;
+    private Integer tokenVersion;
+    private LocalDateTime expiresAt;
+    private Long userId;
+    private String username;
+    private String roles;
+    private String timeZone;
+    private Integer userTokenVersion;
+
+    /**
+     * 簽發存取令牌用的用戶（只含令牌聲明需要的欄位，不可儲存）
+     */
+    public User toUser() {
+        User user = new User();
+        user.setId(userId);
+        user.setUsername(username);
+        user.setRoles(roles);
+        user.setTimeZone(timeZone);
+        user.setTokenVersion(userTokenVersion);
+        return user;
+    }
+}
@@ -0,0 +1,24 @@
+package com.lifecheckin.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 用戶目前保存的連續打卡狀態與依打卡記錄重新計算結果的差異
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StreakDiff {
+    private Long userId;
+    private String username;
+    private int storedStreakDays;
+    private int recomputedStreakDays;
+    private int storedLongestStreakDays;
+    private int recomputedLongestStreakDays;
+    private LocalDateTime storedLastCheckInDate;
+    private LocalDateTime recomputedLastCheckInDate;
+}
@@ -0,0 +1,21 @@
+package com.lifecheckin.backend.dto;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * 連續打卡歸零工作的執行結果DTO
+ */
+@Data
+public class StreakExpiryResult {
+    // 這一輪對應的日期，最後打卡早於前一天的用戶會被歸零
+    private LocalDate runDate;
+    // 從哪個用戶ID之後繼續（0 表示從頭開始）
+    private long resumedAfterId;
+    private long expiredUsers;
+    private int chunks;
+    private long elapsedMillis;
+    // 已有另一次執行在進行中，這次沒有執行
+    private boolean skipped;
+}
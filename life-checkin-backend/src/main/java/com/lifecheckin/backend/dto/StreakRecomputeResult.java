@@ -0,0 +1,23 @@
+package com.lifecheckin.backend.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 連續打卡重新計算結果DTO
+ */
+@Data
+public class StreakRecomputeResult {
+    // 只比較差異、不寫入
+    private boolean dryRun;
+    // 使用的計算方式：sql-window（PostgreSQL 視窗函數）或 fork-join（Java 平行計算）
+    private String engine;
+    private int changedUsers;
+    private int appliedUsers;
+    private long elapsedMillis;
+    // 只保留前幾筆差異，其餘只計入 changedUsers
+    private List<StreakDiff> diffs = new ArrayList<>();
+    private boolean diffsTruncated;
+}
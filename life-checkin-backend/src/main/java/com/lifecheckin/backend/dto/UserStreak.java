@@ -0,0 +1,21 @@
+package com.lifecheckin.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 用戶連續打卡狀態的唯讀投影DTO
+ * 只包含排行榜需要的欄位，查詢時直接由 JPQL 建構
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserStreak {
+    private Long userId;
+    private String username;
+    private Integer streakDays;
+    private LocalDateTime lastCheckInDate;
+}
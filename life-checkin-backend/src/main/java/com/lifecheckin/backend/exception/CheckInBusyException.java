@@ -0,0 +1,11 @@
+package com.lifecheckin.backend.exception;
+
+/**
+ * 打卡忙碌異常
+ * 群組提交的打卡請求等待超時、結果未知時拋出此異常，回應 503 請客戶端稍後重試
+ */
+public class CheckInBusyException extends RuntimeException {
+    public CheckInBusyException(String message) {
+        super(message);
+    }
+}
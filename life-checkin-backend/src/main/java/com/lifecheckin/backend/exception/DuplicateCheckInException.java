@@ -0,0 +1,11 @@
+package com.lifecheckin.backend.exception;
+
+/**
+ * 重複打卡異常
+ * 當用戶在同一天內再次打卡時拋出此異常
+ */
+public class DuplicateCheckInException extends RuntimeException {
+    public DuplicateCheckInException(String message) {
+        super(message);
+    }
+}
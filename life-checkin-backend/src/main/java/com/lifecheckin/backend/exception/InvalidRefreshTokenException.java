@@ -0,0 +1,11 @@
+package com.lifecheckin.backend.exception;
+
+/**
+ * 無效刷新令牌異常
+ * 刷新令牌不存在、已過期、已撤銷或被重複使用時拋出此異常，用戶需要重新登入
+ */
+public class InvalidRefreshTokenException extends RuntimeException {
+    public InvalidRefreshTokenException(String message) {
+        super(message);
+    }
+}
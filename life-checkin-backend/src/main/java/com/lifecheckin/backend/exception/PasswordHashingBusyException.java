@@ -0,0 +1,11 @@
+package com.lifecheckin.backend.exception;
+
+/**
+ * 密碼雜湊忙碌異常
+ * 密碼雜湊執行緒與等待佇列都已滿、或等待超時時拋出此異常，回應 503 請客戶端稍後重試
+ */
+public class PasswordHashingBusyException extends RuntimeException {
+    public PasswordHashingBusyException(String message) {
+        super(message);
+    }
+}
@@ -3,6 +3,7 @@ package com.lifecheckin.backend.model;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 /**
@@ -14,11 +15,17 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @Table(name = "checkin_records", indexes = {
         // 為使用者ID和打卡時間創建索引，優化查詢效能
-        @Index(name = "idx_user_checkin_time", columnList = "user_id, checkin_time")
+        @Index(name = "idx_user_checkin_time", columnList = "user_id, checkin_time"),
+        // 每位使用者每天只能有一筆打卡，由資料庫唯一索引保證
+        @Index(name = "uk_user_checkin_date", columnList = "user_id, checkin_date", unique = true),
+        // 依日期載入當天打卡的用戶
+        @Index(name = "idx_checkin_date", columnList = "checkin_date")
 })
 public class CheckIn {
+    // 使用 pooled 序列產生主鍵，讓 Hibernate 能以 JDBC 批次插入
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "checkin_records_seq")
+    @SequenceGenerator(name = "checkin_records_seq", sequenceName = "checkin_records_seq", allocationSize = 50)
     private Long id;
 
     /**
@@ -34,6 +41,12 @@ public class CheckIn {
     @Column(name = "checkin_time", nullable = false)
     private LocalDateTime checkinTime = LocalDateTime.now();
 
+    /**
+     * 打卡所屬的日期，與使用者ID組成唯一索引
+     */
+    @Column(name = "checkin_date")
+    private LocalDate checkinDate;
+
     /**
      * 打卡的備註信息
      */
@@ -61,6 +74,9 @@ public class CheckIn {
         if (checkinTime == null) {
             checkinTime = LocalDateTime.now();
         }
+        if (checkinDate == null) {
+            checkinDate = checkinTime.toLocalDate();
+        }
     }
 
     /**
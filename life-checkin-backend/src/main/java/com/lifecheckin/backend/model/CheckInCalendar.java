@@ -0,0 +1,84 @@
+package com.lifecheckin.backend.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * CheckInCalendar 以點陣圖記錄用戶一年中哪幾天有打卡
+ * 第 n 天（一年中的第幾天，從 1 開始）對應第 n - 1 個位元，存放在六個 64 位元欄位中（共 384 位元，使用前 366 位元）。
+ * 讀取一整年的打卡日曆只需讀取一列，不必掃描該年所有打卡記錄。
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@IdClass(CheckInCalendar.Key.class)
+@Table(name = "checkin_calendars")
+public class CheckInCalendar {
+
+    /**
+     * 每一列的 64 位元欄位數
+     */
+    public static final int WORDS = 6;
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Id
+    @Column(name = "calendar_year")
+    private Integer year;
+
+    @Column(name = "days_0", nullable = false)
+    private long days0;
+
+    @Column(name = "days_1", nullable = false)
+    private long days1;
+
+    @Column(name = "days_2", nullable = false)
+    private long days2;
+
+    @Column(name = "days_3", nullable = false)
+    private long days3;
+
+    @Column(name = "days_4", nullable = false)
+    private long days4;
+
+    @Column(name = "days_5", nullable = false)
+    private long days5;
+
+    /**
+     * 取得整年的點陣圖
+     * @return 長度為 WORDS 的位元陣列
+     */
+    public long[] getWords() {
+        return new long[]{days0, days1, days2, days3, days4, days5};
+    }
+
+    /**
+     * 只設定某一天的位元
+     * @param date 日期
+     * @return 長度為 WORDS 的位元陣列
+     */
+    public static long[] wordsOf(LocalDate date) {
+        long[] words = new long[WORDS];
+        int bit = date.getDayOfYear() - 1;
+        words[bit >>> 6] = 1L << bit;
+        return words;
+    }
+
+    /**
+     * CheckInCalendar 的複合主鍵
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long userId;
+        private Integer year;
+    }
+}
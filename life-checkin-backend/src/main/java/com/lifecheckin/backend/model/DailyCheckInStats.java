@@ -0,0 +1,39 @@
+package com.lifecheckin.backend.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * DailyCheckInStats 是每天打卡數與狀態分布的彙總表
+ * 由打卡寫入時累積的增量定期合併，並由校正工作依原始打卡記錄重建，查詢統計時不需掃描 checkin_records。
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "daily_checkin_stats")
+public class DailyCheckInStats {
+
+    @Id
+    @Column(name = "stat_date")
+    private LocalDate statDate;
+
+    /**
+     * 當天打卡總數
+     */
+    @Column(name = "total_count", nullable = false)
+    private long totalCount;
+
+    @Column(name = "normal_count", nullable = false)
+    private long normalCount;
+
+    @Column(name = "late_count", nullable = false)
+    private long lateCount;
+
+    @Column(name = "early_count", nullable = false)
+    private long earlyCount;
+}
@@ -0,0 +1,51 @@
+package com.lifecheckin.backend.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * IdempotencyRecord 保存帶有 Idempotency-Key 的請求第一次成功時的回應，
+ * 在記憶體快取失效（重新啟動或其他節點收到重送）時作為後備。
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@Table(name = "idempotency_keys", indexes = {
+        // 同一用戶的同一個 Idempotency-Key 只保存一份回應
+        @Index(name = "uk_idempotency_user_key", columnList = "username, idempotency_key", unique = true),
+        // 定期清除過期記錄
+        @Index(name = "idx_idempotency_expires_at", columnList = "expires_at")
+})
+public class IdempotencyRecord {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "idempotency_keys_seq")
+    @SequenceGenerator(name = "idempotency_keys_seq", sequenceName = "idempotency_keys_seq", allocationSize = 50)
+    private Long id;
+
+    /**
+     * 送出請求的用戶名
+     */
+    @Column(name = "username", nullable = false)
+    private String username;
+
+    /**
+     * 用戶端提供的 Idempotency-Key
+     */
+    @Column(name = "idempotency_key", nullable = false)
+    private String idempotencyKey;
+
+    /**
+     * 第一次成功時的回應內容（JSON）
+     */
+    @Column(name = "response_body", nullable = false, length = 4000)
+    private String responseBody;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,47 @@
+package com.lifecheckin.backend.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * JobCheckpoint 記錄分批執行的排程工作做到哪裡，
+ * 工作中斷（重新啟動、部署）後可以從上次提交的位置繼續，不必從頭掃描。
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@Table(name = "job_checkpoints")
+public class JobCheckpoint {
+
+    /**
+     * 工作名稱
+     */
+    @Id
+    @Column(name = "job_name", length = 100)
+    private String jobName;
+
+    /**
+     * 這一輪工作對應的日期
+     */
+    @Column(name = "run_date", nullable = false)
+    private LocalDate runDate;
+
+    /**
+     * 最後一個已處理並提交的主鍵
+     */
+    @Column(name = "last_id", nullable = false)
+    private Long lastId;
+
+    /**
+     * 這一輪是否已經完成
+     */
+    @Column(name = "finished", nullable = false)
+    private boolean finished;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
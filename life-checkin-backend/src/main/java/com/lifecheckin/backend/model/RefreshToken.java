@@ -0,0 +1,67 @@
+package com.lifecheckin.backend.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * RefreshToken 保存刷新令牌的雜湊（不保存令牌本身）。
+ * 每次刷新都以新令牌取代舊令牌（輪替），同一次登入輪替出的令牌屬於同一個 family；
+ * 已使用過的令牌再次出現時視為令牌外洩，整個 family 一起撤銷。
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@Table(name = "refresh_tokens", indexes = {
+        // 刷新時以令牌雜湊查詢，查詢需要的欄位都在索引中，不必讀取資料表
+        @Index(name = "uk_refresh_token_lookup",
+                columnList = "token_hash, user_id, family_id, token_version, expires_at", unique = true),
+        // 偵測到重複使用時撤銷整個 family
+        @Index(name = "idx_refresh_token_family", columnList = "family_id"),
+        // 刪除用戶時一併刪除
+        @Index(name = "idx_refresh_token_user", columnList = "user_id")
+})
+public class RefreshToken {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "refresh_tokens_seq")
+    @SequenceGenerator(name = "refresh_tokens_seq", sequenceName = "refresh_tokens_seq", allocationSize = 50)
+    private Long id;
+
+    /**
+     * 令牌的 HMAC-SHA256（Base64）
+     */
+    @Column(name = "token_hash", nullable = false, length = 64)
+    private String tokenHash;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    /**
+     * 同一次登入輪替出的令牌共用的 family ID
+     */
+    @Column(name = "family_id", nullable = false, length = 36)
+    private String familyId;
+
+    /**
+     * 簽發時用戶的令牌版本，用戶名、密碼、角色或時區變更後不能再刷新
+     */
+    @Column(name = "token_version", nullable = false)
+    private Integer tokenVersion;
+
+    @Column(name = "issued_at", nullable = false)
+    private LocalDateTime issuedAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    /**
+     * 輪替（已換發新令牌）的時間，未使用時為 null
+     */
+    @Column(name = "used_at")
+    private LocalDateTime usedAt;
+
+    @Column(name = "revoked", nullable = false)
+    private boolean revoked;
+}
@@ -15,13 +15,22 @@ import java.util.Set;
 @Entity
 @Data
 @NoArgsConstructor
-@Table(name = "users")
+@Table(name = "users", uniqueConstraints = {
+        // 註冊與修改時不事先查詢，重複的用戶名或郵箱由唯一約束擋下，並依約束名稱回報是哪個欄位
+        @UniqueConstraint(name = User.USERNAME_CONSTRAINT, columnNames = "username"),
+        @UniqueConstraint(name = User.EMAIL_CONSTRAINT, columnNames = "email")
+})
 public class User {
+    public static final String USERNAME_CONSTRAINT = "uk_users_username";
+    public static final String EMAIL_CONSTRAINT = "uk_users_email";
+
+    // 使用 pooled 序列產生主鍵，讓 Hibernate 能以 JDBC 批次插入
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     private Long id;
 
-    @Column(nullable = false, unique = true)
+    @Column(nullable = false)
     private String username;
 
     @Column(nullable = false)
@@ -32,7 +41,7 @@ public class User {
     private String roles = "ROLE_USER";  // 設定默認值為普通用戶
 
     // 使用者電子郵件
-    @Column(nullable = false, unique = true)
+    @Column(nullable = false)
     private String email;
 
     // 打卡記錄，與CheckIn實體形成一對多關係
@@ -56,4 +65,16 @@ public class User {
     // 最後打卡日期（可選）
     @Column(name = "last_check_in_date")
     private LocalDateTime lastCheckInDate;
-}
\ No newline at end of file
+
+    // 歷史最長連續打卡天數
+    @Column(name = "longest_streak_days")
+    private Integer longestStreakDays = 0;
+
+    // 計算打卡日期使用的時區（IANA 時區ID），未設定時使用伺服器時區
+    @Column(name = "time_zone", length = 64)
+    private String timeZone;
+
+    // 令牌版本：用戶名、密碼、角色或時區變更時加一，令牌中的版本較舊即失效
+    @Column(name = "token_version")
+    private Integer tokenVersion = 0;
+}
@@ -0,0 +1,19 @@
+package com.lifecheckin.backend.repository;
+
+import java.util.List;
+
+/**
+ * 批次保存擴充，供需要大量寫入的 Repository 使用。
+ * @param <T> 實體類型
+ */
+public interface BatchSaveRepository<T> {
+
+    /**
+     * 以 JDBC 批次保存大量實體
+     * 每累積一個批次就 flush 並清空持久化上下文，避免大量實體常駐記憶體；
+     * 呼叫前已載入的其他實體也會因此脫離管理。
+     * @param entities 要保存的實體
+     * @return 保存後的實體（已脫離持久化上下文）
+     */
+    <S extends T> List<S> saveAllBatched(Iterable<S> entities);
+}
@@ -0,0 +1,46 @@
+package com.lifecheckin.backend.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * BatchSaveRepository 的實作
+ * 新實體使用 persist、已有主鍵的實體使用 merge，按 hibernate.jdbc.batch_size 分段 flush。
+ */
+public class BatchSaveRepositoryImpl<T> implements BatchSaveRepository<T> {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+
+    @Override
+    @Transactional
+    public <S extends T> List<S> saveAllBatched(Iterable<S> entities) {
+        List<S> saved = new ArrayList<>();
+        int pending = 0;
+        for (S entity : entities) {
+            if (entityManager.getEntityManagerFactory().getPersistenceUnitUtil().getIdentifier(entity) == null) {
+                entityManager.persist(entity);
+                saved.add(entity);
+            } else {
+                saved.add(entityManager.merge(entity));
+            }
+
+            if (++pending == batchSize) {
+                entityManager.flush();
+                entityManager.clear();
+                pending = 0;
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return saved;
+    }
+}
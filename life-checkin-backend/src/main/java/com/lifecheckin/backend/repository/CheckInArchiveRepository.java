@@ -0,0 +1,279 @@
+package com.lifecheckin.backend.repository;
+
+import com.lifecheckin.backend.dto.CheckInView;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 封存的打卡記錄（冷資料）
+ * 超過保留期限的打卡記錄由 CheckInArchiveService 移出 checkin_records，按月寫入壓縮的封存檔（格式見 CheckInArchiveSegment），
+ * 啟動時以記憶體映射開啟目錄下所有封存檔。封存檔只會整檔替換，讀取不需要加鎖。
+ */
+@Repository
+public class CheckInArchiveRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(CheckInArchiveRepository.class);
+
+    private static final Pattern SEGMENT_NAME = Pattern.compile("checkins-(\\d{4})-(\\d{2})\\.seg");
+
+    // 封存檔目錄
+    @Value("${checkin.archive.dir:data/archive}")
+    private String directory;
+
+    private final ConcurrentSkipListMap<YearMonth, CheckInArchiveSegment.Reader> segments =
+            new ConcurrentSkipListMap<>();
+
+    /**
+     * 開啟目錄下所有封存檔，並清除上次中斷留下的暫存檔
+     */
+    @PostConstruct
+    public synchronized void load() {
+        segments.clear();
+        Path dir = Path.of(directory);
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                Matcher matcher = SEGMENT_NAME.matcher(name);
+                if (matcher.matches()) {
+                    CheckInArchiveSegment.Reader reader = CheckInArchiveSegment.Reader.open(file);
+                    segments.put(reader.month(), reader);
+                } else if (name.endsWith(".tmp")) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("無法讀取封存目錄: " + dir, e);
+        }
+        if (!segments.isEmpty()) {
+            logger.info("已載入 {} 個打卡記錄封存檔，{} 至 {}", segments.size(), segments.firstKey(), segments.lastKey());
+        }
+    }
+
+    /**
+     * 是否有任何封存記錄
+     */
+    public boolean isEmpty() {
+        return segments.isEmpty();
+    }
+
+    /**
+     * 指定月份是否已有封存檔
+     */
+    public boolean isArchived(YearMonth month) {
+        return segments.containsKey(month);
+    }
+
+    /**
+     * 已封存的月份
+     */
+    public NavigableSet<YearMonth> archivedMonths() {
+        return segments.keySet();
+    }
+
+    /**
+     * 查詢用戶所有封存的打卡記錄
+     * @param userId 用戶ID
+     * @return 打卡記錄投影列表，按時間倒序排列
+     */
+    public List<CheckInView> findByUserId(Long userId) {
+        List<CheckInView> result = new ArrayList<>();
+        for (CheckInArchiveSegment.Reader reader : segments.descendingMap().values()) {
+            List<CheckInView> rows = reader.find(userId);
+            for (int i = rows.size() - 1; i >= 0; i--) {
+                result.add(rows.get(i));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 查詢用戶在一個月份封存的打卡記錄，只解壓縮該用戶在這個月份的區塊
+     * @param userId 用戶ID
+     * @param month 月份
+     * @return 打卡記錄投影列表，按時間排序；該月未封存時為空列表
+     */
+    public List<CheckInView> findByUserIdInMonth(Long userId, YearMonth month) {
+        CheckInArchiveSegment.Reader reader = segments.get(month);
+        return reader != null ? reader.find(userId) : List.of();
+    }
+
+    /**
+     * 查詢用戶在日期範圍內封存的打卡日期，只讀取涵蓋的月份
+     * @param userId 用戶ID
+     * @param start 開始日期（含）
+     * @param end 結束日期（含）
+     * @return 打卡日期列表
+     */
+    public List<LocalDate> findCheckinDatesBetween(Long userId, LocalDate start, LocalDate end) {
+        List<LocalDate> dates = new ArrayList<>();
+        // 打卡日期依用戶時區計算，可能與打卡時間所在月份不同，前後各多讀一個月
+        for (CheckInArchiveSegment.Reader reader : segments.subMap(
+                YearMonth.from(start).minusMonths(1), true, YearMonth.from(end).plusMonths(1), true).values()) {
+            for (CheckInView row : reader.find(userId)) {
+                if (!row.getCheckinDate().isBefore(start) && !row.getCheckinDate().isAfter(end)) {
+                    dates.add(row.getCheckinDate());
+                }
+            }
+        }
+        return dates;
+    }
+
+    /**
+     * 依區塊讀取一個月份封存檔中的記錄ID，每收集 chunkSize 筆交給 action 一次（最後一批可能較少）
+     * 一次只解壓縮一個用戶區塊，記憶體用量與月份大小無關
+     * @param month 月份
+     * @param chunkSize 每批的ID數
+     * @param action 處理一批ID
+     */
+    public void forEachIdChunk(YearMonth month, int chunkSize, Consumer<List<Long>> action) {
+        CheckInArchiveSegment.Reader reader = segments.get(month);
+        if (reader == null) {
+            return;
+        }
+        List<Long> chunk = new ArrayList<>(chunkSize);
+        for (int i = 0; i < reader.userCount(); i++) {
+            for (CheckInView row : reader.blockAt(i)) {
+                chunk.add(row.getId());
+                if (chunk.size() == chunkSize) {
+                    action.accept(chunk);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            action.accept(chunk);
+        }
+    }
+
+    /**
+     * 開始寫入一個月份的封存檔；若該月已有封存檔，寫入時與原有內容合併
+     * @param month 月份
+     * @return 寫入器，commit 後才替換封存檔，未 commit 即關閉時捨棄暫存檔
+     */
+    public MonthWriter openMonth(YearMonth month) throws IOException {
+        Path dir = Path.of(directory);
+        Files.createDirectories(dir);
+        return new MonthWriter(month, dir.resolve(segmentName(month)));
+    }
+
+    private static String segmentName(YearMonth month) {
+        return String.format("checkins-%04d-%02d.seg", month.getYear(), month.getMonthValue());
+    }
+
+    /**
+     * 一個月份封存檔的寫入器
+     * 記錄須依用戶ID、打卡時間排序加入；同一用戶的記錄收集完後寫成一個區塊，
+     * 原封存檔中ID較小的用戶區塊依序搬入，同一用戶則以ID去除重複後合併，重複執行封存不會產生重複記錄
+     */
+    public final class MonthWriter implements Closeable {
+        private final YearMonth month;
+        private final Path target;
+        private final Path temp;
+        private final CheckInArchiveSegment.Reader existing;
+        private final CheckInArchiveSegment.Writer writer;
+        private int existingIndex;
+        private Long currentUserId;
+        private final List<CheckInView> currentRows = new ArrayList<>();
+        private boolean committed;
+
+        private MonthWriter(YearMonth month, Path target) throws IOException {
+            this.month = month;
+            this.target = target;
+            this.temp = target.resolveSibling(target.getFileName() + ".tmp");
+            this.existing = segments.get(month);
+            this.writer = new CheckInArchiveSegment.Writer(temp, month);
+        }
+
+        /**
+         * 加入一筆記錄
+         * @param row 打卡記錄投影，須依用戶ID、打卡時間排序
+         */
+        public void add(CheckInView row) throws IOException {
+            if (currentUserId != null && !currentUserId.equals(row.getUserId())) {
+                flushCurrent();
+            }
+            currentUserId = row.getUserId();
+            currentRows.add(row);
+        }
+
+        /**
+         * 完成寫入並以新的封存檔替換原檔
+         * @return 封存檔中的記錄總數
+         */
+        public long commit() throws IOException {
+            if (currentUserId != null) {
+                flushCurrent();
+            }
+            copyExistingBefore(Long.MAX_VALUE);
+            writer.finish();
+            writer.close();
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            segments.put(month, CheckInArchiveSegment.Reader.open(target));
+            committed = true;
+            return writer.rowCount();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!committed) {
+                writer.close();
+                Files.deleteIfExists(temp);
+            }
+        }
+
+        private void flushCurrent() throws IOException {
+            copyExistingBefore(currentUserId);
+            List<CheckInView> rows = currentRows;
+            if (existing != null && existingIndex < existing.userCount()
+                    && existing.userIdAt(existingIndex) == currentUserId) {
+                Map<Long, CheckInView> merged = new LinkedHashMap<>();
+                for (CheckInView row : existing.blockAt(existingIndex++)) {
+                    merged.put(row.getId(), row);
+                }
+                for (CheckInView row : currentRows) {
+                    merged.put(row.getId(), row);
+                }
+                rows = new ArrayList<>(merged.values());
+                rows.sort(Comparator.comparing(CheckInView::getCheckinTime).thenComparing(CheckInView::getId));
+            }
+            writer.writeBlock(currentUserId, rows);
+            currentRows.clear();
+        }
+
+        private void copyExistingBefore(long userId) throws IOException {
+            if (existing == null) {
+                return;
+            }
+            while (existingIndex < existing.userCount() && existing.userIdAt(existingIndex) < userId) {
+                writer.writeBlock(existing.userIdAt(existingIndex), existing.blockAt(existingIndex));
+                existingIndex++;
+            }
+        }
+    }
+}
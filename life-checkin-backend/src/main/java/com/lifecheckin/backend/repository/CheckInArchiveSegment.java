@@ -0,0 +1,358 @@
+package com.lifecheckin.backend.repository;
+
+import com.lifecheckin.backend.dto.CheckInView;
+import com.lifecheckin.backend.model.CheckIn;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 打卡記錄封存檔的格式，一個月一個檔案
+ * 檔頭（32 bytes）：magic、版本、年月、用戶數、記錄數、索引位置。
+ * 資料區塊：每位用戶一個區塊，依用戶ID排序；區塊內的記錄依打卡時間排序，各欄位分開連續存放
+ * （ID、時間、日期、狀態、備註、地點），ID 與時間以與前一筆的差值做 zigzag varint 編碼，
+ * 日期以與打卡時間日期的差值編碼（通常為 0），整個區塊再以 Deflate 壓縮。
+ * 索引：每位用戶 24 bytes（用戶ID、區塊位置、區塊長度、記錄數），依用戶ID排序。
+ * 讀取時以記憶體映射開啟整個檔案，二分搜尋索引後只解壓縮查詢用戶的區塊。
+ */
+final class CheckInArchiveSegment {
+
+    private static final int MAGIC = 0x4C435347; // "LCSG"
+    private static final short VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    private static final int INDEX_ENTRY_SIZE = 24;
+    // 狀態以序數保存，CheckInStatus 只能在最後新增值
+    private static final CheckIn.CheckInStatus[] STATUSES = CheckIn.CheckInStatus.values();
+
+    private CheckInArchiveSegment() {
+    }
+
+    /**
+     * 依用戶ID遞增的順序寫入區塊，最後寫入索引與檔頭
+     */
+    static final class Writer implements Closeable {
+        private final FileChannel channel;
+        private final YearMonth month;
+        private final ByteArrayOutputStream indexBytes = new ByteArrayOutputStream();
+        private final DataOutputStream index = new DataOutputStream(indexBytes);
+        private final Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        private long position = HEADER_SIZE;
+        private long previousUserId = Long.MIN_VALUE;
+        private int userCount;
+        private long rowCount;
+
+        Writer(Path file, YearMonth month) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE);
+            this.month = month;
+        }
+
+        void writeBlock(long userId, List<CheckInView> rows) throws IOException {
+            if (userId <= previousUserId) {
+                throw new IllegalStateException("Blocks must be written in ascending user id order");
+            }
+            previousUserId = userId;
+            byte[] block = deflate(encode(rows));
+            ByteBuffer buffer = ByteBuffer.wrap(block);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, position + buffer.position());
+            }
+            index.writeLong(userId);
+            index.writeLong(position);
+            index.writeInt(block.length);
+            index.writeInt(rows.size());
+            position += block.length;
+            userCount++;
+            rowCount += rows.size();
+        }
+
+        /**
+         * 寫入索引與檔頭並同步到磁碟
+         */
+        void finish() throws IOException {
+            long indexOffset = position;
+            ByteBuffer indexBuffer = ByteBuffer.wrap(indexBytes.toByteArray());
+            while (indexBuffer.hasRemaining()) {
+                channel.write(indexBuffer, indexOffset + indexBuffer.position());
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putShort(VERSION).putShort((short) 0)
+                    .putInt(month.getYear() * 12 + month.getMonthValue() - 1)
+                    .putInt(userCount).putLong(rowCount).putLong(indexOffset);
+            header.flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(true);
+        }
+
+        long rowCount() {
+            return rowCount;
+        }
+
+        @Override
+        public void close() throws IOException {
+            deflater.end();
+            channel.close();
+        }
+
+        private byte[] deflate(byte[] raw) {
+            deflater.reset();
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2 + 16);
+            byte[] chunk = new byte[4096];
+            while (!deflater.finished()) {
+                out.write(chunk, 0, deflater.deflate(chunk));
+            }
+            return out.toByteArray();
+        }
+    }
+
+    /**
+     * 以記憶體映射讀取的封存檔；只使用絕對位置讀取，可由多個執行緒同時使用
+     */
+    static final class Reader {
+        private final YearMonth month;
+        private final MappedByteBuffer buffer;
+        private final int userCount;
+        private final long rowCount;
+        private final int indexOffset;
+
+        private Reader(YearMonth month, MappedByteBuffer buffer, int userCount, long rowCount, int indexOffset) {
+            this.month = month;
+            this.buffer = buffer;
+            this.userCount = userCount;
+            this.rowCount = rowCount;
+            this.indexOffset = indexOffset;
+        }
+
+        static Reader open(Path file) throws IOException {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                long size = channel.size();
+                if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                    throw new IOException("Invalid archive segment size: " + file);
+                }
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                if (buffer.getInt(0) != MAGIC || buffer.getShort(4) != VERSION) {
+                    throw new IOException("Not an archive segment: " + file);
+                }
+                int epochMonth = buffer.getInt(8);
+                YearMonth month = YearMonth.of(epochMonth / 12, epochMonth % 12 + 1);
+                return new Reader(month, buffer, buffer.getInt(12), buffer.getLong(16),
+                        (int) buffer.getLong(24));
+            }
+        }
+
+        YearMonth month() {
+            return month;
+        }
+
+        long rowCount() {
+            return rowCount;
+        }
+
+        int userCount() {
+            return userCount;
+        }
+
+        long userIdAt(int i) {
+            return buffer.getLong(indexOffset + i * INDEX_ENTRY_SIZE);
+        }
+
+        /**
+         * 二分搜尋用戶的區塊
+         * @return 用戶的記錄，依打卡時間排序；沒有記錄時為空列表
+         */
+        List<CheckInView> find(long userId) {
+            int low = 0;
+            int high = userCount - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                long midUserId = userIdAt(mid);
+                if (midUserId < userId) {
+                    low = mid + 1;
+                } else if (midUserId > userId) {
+                    high = mid - 1;
+                } else {
+                    return blockAt(mid);
+                }
+            }
+            return List.of();
+        }
+
+        /**
+         * 第 i 個區塊（依用戶ID排序）的記錄
+         */
+        List<CheckInView> blockAt(int i) {
+            int entry = indexOffset + i * INDEX_ENTRY_SIZE;
+            long userId = buffer.getLong(entry);
+            int offset = (int) buffer.getLong(entry + 8);
+            int length = buffer.getInt(entry + 16);
+            int rows = buffer.getInt(entry + 20);
+            return decode(userId, inflate(buffer.slice(offset, length), rows), rows);
+        }
+    }
+
+    private static byte[] encode(List<CheckInView> rows) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(rows.size() * 16);
+        long previous = 0;
+        for (CheckInView row : rows) {
+            writeVarLong(out, zigzag(row.getId() - previous));
+            previous = row.getId();
+        }
+        previous = 0;
+        for (CheckInView row : rows) {
+            long micros = toMicros(row.getCheckinTime());
+            writeVarLong(out, zigzag(micros - previous));
+            previous = micros;
+        }
+        for (CheckInView row : rows) {
+            writeVarLong(out, zigzag(row.getCheckinDate().toEpochDay()
+                    - row.getCheckinTime().toLocalDate().toEpochDay()));
+        }
+        for (CheckInView row : rows) {
+            out.write(row.getStatus().ordinal());
+        }
+        for (CheckInView row : rows) {
+            writeString(out, row.getNote());
+        }
+        for (CheckInView row : rows) {
+            writeString(out, row.getLocation());
+        }
+        return out.toByteArray();
+    }
+
+    private static List<CheckInView> decode(long userId, byte[] raw, int rows) {
+        int[] position = {0};
+        long[] ids = new long[rows];
+        long previous = 0;
+        for (int i = 0; i < rows; i++) {
+            previous += unzigzag(readVarLong(raw, position));
+            ids[i] = previous;
+        }
+        LocalDateTime[] times = new LocalDateTime[rows];
+        previous = 0;
+        for (int i = 0; i < rows; i++) {
+            previous += unzigzag(readVarLong(raw, position));
+            times[i] = fromMicros(previous);
+        }
+        LocalDate[] dates = new LocalDate[rows];
+        for (int i = 0; i < rows; i++) {
+            dates[i] = LocalDate.ofEpochDay(times[i].toLocalDate().toEpochDay() + unzigzag(readVarLong(raw, position)));
+        }
+        CheckIn.CheckInStatus[] statuses = new CheckIn.CheckInStatus[rows];
+        for (int i = 0; i < rows; i++) {
+            statuses[i] = STATUSES[raw[position[0]++]];
+        }
+        String[] notes = new String[rows];
+        for (int i = 0; i < rows; i++) {
+            notes[i] = readString(raw, position);
+        }
+        List<CheckInView> result = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            result.add(new CheckInView(ids[i], userId, times[i], dates[i], notes[i], readString(raw, position),
+                    statuses[i]));
+        }
+        return result;
+    }
+
+    private static byte[] inflate(ByteBuffer compressed, int rows) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            byte[] raw = new byte[Math.max(64, rows * 32)];
+            int length = 0;
+            while (!inflater.finished()) {
+                if (length == raw.length) {
+                    raw = java.util.Arrays.copyOf(raw, raw.length * 2);
+                }
+                int n = inflater.inflate(raw, length, raw.length - length);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalStateException("Truncated archive block");
+                }
+                length += n;
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt archive block", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static long toMicros(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + time.getNano() / 1_000;
+    }
+
+    private static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000),
+                (int) Math.floorMod(micros, 1_000_000) * 1_000, ZoneOffset.UTC);
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(byte[] raw, int[] position) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = raw[position[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    // 長度加一保存，0 表示 null
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        if (value == null) {
+            writeVarLong(out, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length + 1L);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static String readString(byte[] raw, int[] position) {
+        int length = (int) readVarLong(raw, position) - 1;
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(raw, position[0], length, StandardCharsets.UTF_8);
+        position[0] += length;
+        return value;
+    }
+}
@@ -0,0 +1,26 @@
+package com.lifecheckin.backend.repository;
+
+import com.lifecheckin.backend.model.CheckInCalendar;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+
+/**
+ * 打卡日曆數據訪問接口
+ */
+@Repository
+public interface CheckInCalendarRepository extends JpaRepository<CheckInCalendar, CheckInCalendar.Key>,
+        CheckInCalendarRepositoryCustom {
+
+    /**
+     * 刪除用戶的所有打卡日曆，下次讀取時由打卡記錄重建
+     * @param userIds 用戶ID集合
+     * @return 刪除的列數
+     */
+    @Modifying
+    @Query("DELETE FROM CheckInCalendar c WHERE c.userId IN :userIds")
+    int deleteByUserIdIn(Collection<Long> userIds);
+}
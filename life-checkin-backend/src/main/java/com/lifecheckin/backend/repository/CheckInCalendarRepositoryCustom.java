@@ -0,0 +1,32 @@
+package com.lifecheckin.backend.repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+
+/**
+ * CheckInCalendarRepository 的自定義擴充，以單一語句設定或清除打卡日曆的位元。
+ */
+public interface CheckInCalendarRepositoryCustom {
+
+    /**
+     * 將位元併入用戶某一年的打卡日曆（OR），該年尚無日曆時建立
+     * @param userId 用戶ID
+     * @param year 年份
+     * @param words 要設定的位元，長度為 CheckInCalendar.WORDS
+     */
+    void mergeDays(Long userId, int year, long[] words);
+
+    /**
+     * 記錄多位用戶在同一天打卡（批次寫入）
+     * @param userIds 用戶ID集合
+     * @param date 打卡日期
+     */
+    void markDay(Collection<Long> userIds, LocalDate date);
+
+    /**
+     * 清除用戶某一天的打卡位元，該年沒有日曆時不做任何事
+     * @param userId 用戶ID
+     * @param date 日期
+     */
+    void clearDay(Long userId, LocalDate date);
+}
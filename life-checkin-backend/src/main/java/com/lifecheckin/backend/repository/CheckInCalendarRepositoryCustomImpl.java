@@ -0,0 +1,106 @@
+package com.lifecheckin.backend.repository;
+
+import com.lifecheckin.backend.config.DatabaseDialect;
+import com.lifecheckin.backend.model.CheckInCalendar;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * CheckInCalendarRepositoryCustom 的實作
+ * PostgreSQL 使用 INSERT ... ON CONFLICT DO UPDATE，其他資料庫（H2）使用標準 MERGE，
+ * 一條語句完成「沒有日曆就建立、有就把位元 OR 進去」，不需事先查詢。
+ */
+public class CheckInCalendarRepositoryCustomImpl implements CheckInCalendarRepositoryCustom {
+
+    private static final String POSTGRES_MERGE_DAYS =
+            "INSERT INTO checkin_calendars (user_id, calendar_year, days_0, days_1, days_2, days_3, days_4, days_5) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?, ?) "
+                    + "ON CONFLICT (user_id, calendar_year) DO UPDATE SET "
+                    + "days_0 = checkin_calendars.days_0 | EXCLUDED.days_0, "
+                    + "days_1 = checkin_calendars.days_1 | EXCLUDED.days_1, "
+                    + "days_2 = checkin_calendars.days_2 | EXCLUDED.days_2, "
+                    + "days_3 = checkin_calendars.days_3 | EXCLUDED.days_3, "
+                    + "days_4 = checkin_calendars.days_4 | EXCLUDED.days_4, "
+                    + "days_5 = checkin_calendars.days_5 | EXCLUDED.days_5";
+
+    private static final String MERGE_DAYS =
+            "MERGE INTO checkin_calendars t "
+                    + "USING (VALUES (CAST(? AS BIGINT), CAST(? AS INTEGER), CAST(? AS BIGINT), CAST(? AS BIGINT), "
+                    + "CAST(? AS BIGINT), CAST(? AS BIGINT), CAST(? AS BIGINT), CAST(? AS BIGINT))) "
+                    + "s (user_id, calendar_year, days_0, days_1, days_2, days_3, days_4, days_5) "
+                    + "ON t.user_id = s.user_id AND t.calendar_year = s.calendar_year "
+                    + "WHEN MATCHED THEN UPDATE SET "
+                    + "days_0 = BITOR(t.days_0, s.days_0), days_1 = BITOR(t.days_1, s.days_1), "
+                    + "days_2 = BITOR(t.days_2, s.days_2), days_3 = BITOR(t.days_3, s.days_3), "
+                    + "days_4 = BITOR(t.days_4, s.days_4), days_5 = BITOR(t.days_5, s.days_5) "
+                    + "WHEN NOT MATCHED THEN INSERT (user_id, calendar_year, days_0, days_1, days_2, days_3, days_4, days_5) "
+                    + "VALUES (s.user_id, s.calendar_year, s.days_0, s.days_1, s.days_2, s.days_3, s.days_4, s.days_5)";
+
+    private static final String POSTGRES_CLEAR_DAY =
+            "UPDATE checkin_calendars SET days_%1$d = days_%1$d & ? WHERE user_id = ? AND calendar_year = ?";
+
+    private static final String CLEAR_DAY =
+            "UPDATE checkin_calendars SET days_%1$d = BITAND(days_%1$d, CAST(? AS BIGINT)) "
+                    + "WHERE user_id = ? AND calendar_year = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DatabaseDialect databaseDialect;
+
+    @Override
+    public void mergeDays(Long userId, int year, long[] words) {
+        try {
+            jdbcTemplate.update(mergeDaysSql(), ps -> bind(ps, userId, year, words));
+        } catch (DuplicateKeyException e) {
+            // MERGE 在併發建立同一年的日曆時可能違反主鍵，此時日曆已存在，再合併一次即可
+            jdbcTemplate.update(mergeDaysSql(), ps -> bind(ps, userId, year, words));
+        }
+    }
+
+    @Override
+    public void markDay(Collection<Long> userIds, LocalDate date) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        long[] words = CheckInCalendar.wordsOf(date);
+        List<Long> ids = new ArrayList<>(userIds);
+        try {
+            jdbcTemplate.batchUpdate(mergeDaysSql(), ids, ids.size(),
+                    (ps, userId) -> bind(ps, userId, date.getYear(), words));
+        } catch (DuplicateKeyException e) {
+            // 同上，MERGE 的併發衝突改為逐筆重試；位元 OR 重複執行不影響結果
+            for (Long userId : ids) {
+                mergeDays(userId, date.getYear(), words);
+            }
+        }
+    }
+
+    @Override
+    public void clearDay(Long userId, LocalDate date) {
+        int bit = date.getDayOfYear() - 1;
+        String sql = String.format(databaseDialect.isPostgres() ? POSTGRES_CLEAR_DAY : CLEAR_DAY, bit >>> 6);
+        jdbcTemplate.update(sql, ~(1L << bit), userId, date.getYear());
+    }
+
+    private void bind(PreparedStatement ps, Long userId, int year, long[] words) throws SQLException {
+        ps.setLong(1, userId);
+        ps.setInt(2, year);
+        for (int i = 0; i < CheckInCalendar.WORDS; i++) {
+            ps.setLong(3 + i, words[i]);
+        }
+    }
+
+    private String mergeDaysSql() {
+        return databaseDialect.isPostgres() ? POSTGRES_MERGE_DAYS : MERGE_DAYS;
+    }
+}
@@ -1,30 +1,157 @@
 package com.lifecheckin.backend.repository;
 
+import com.lifecheckin.backend.dto.CheckInView;
 import com.lifecheckin.backend.model.CheckIn;
 import com.lifecheckin.backend.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * CheckInRepository 提供對 CheckIn 實體的資料庫操作。
  * 繼承 JpaRepository 以獲取標準 CRUD 功能。
  */
 @Repository
-public interface CheckInRepository extends JpaRepository<CheckIn, Long> {
+public interface CheckInRepository extends JpaRepository<CheckIn, Long>, CheckInRepositoryCustom,
+        BatchSaveRepository<CheckIn> {
 
     /**
-     * 查找用戶在指定時間範圍內的打卡記錄
-     * @param user 用戶
-     * @param start 開始時間
-     * @param end 結束時間
-     * @return 打卡記錄Optional
+     * checkin_date 依用戶時區計算，與 checkin_time 在伺服器時區的日期最多相差的天數（時區差最多 26 小時）。
+     * 以時間查詢時另加上打卡日期範圍，checkin_records 按月分區時 PostgreSQL 才能排除無關的分區
+     */
+    int DATE_SKEW_DAYS = 2;
+
+    /**
+     * 打卡記錄投影的查詢開頭，只選取 CheckInView 需要的欄位
+     */
+    String SELECT_VIEW = "SELECT new com.lifecheckin.backend.dto.CheckInView("
+            + "c.id, c.user.id, c.checkinTime, c.checkinDate, c.note, c.location, c.status) "
+            + "FROM CheckIn c ";
+
+    /**
+     * 查詢所有打卡記錄的投影
+     * @return 打卡記錄投影列表
+     */
+    @Query(SELECT_VIEW)
+    List<CheckInView> findAllViews();
+
+    /**
+     * 以串流逐筆讀取所有打卡記錄的投影，JDBC 每次只取回一批資料列
+     * 須在唯讀交易中呼叫，並在使用完畢後關閉串流
+     * @return 打卡記錄投影串流，按ID排序
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(SELECT_VIEW + "ORDER BY c.id")
+    Stream<CheckInView> streamAllViews();
+
+    /**
+     * 以串流逐筆讀取打卡日期在 [from, to) 內的打卡記錄投影（用於封存）
+     * 須在唯讀交易中呼叫，並在使用完畢後關閉串流
+     * @param from 開始日期（含）
+     * @param to 結束日期（不含）
+     * @return 打卡記錄投影串流，按用戶ID、打卡時間、ID排序
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(SELECT_VIEW + "WHERE c.checkinDate >= :from AND c.checkinDate < :to "
+            + "ORDER BY c.user.id, c.checkinTime, c.id")
+    Stream<CheckInView> streamViewsByCheckinDateRange(LocalDate from, LocalDate to);
+
+    /**
+     * 以串流逐筆讀取用戶的所有打卡記錄投影（走 user_id + checkin_time 索引）
+     * 須在唯讀交易中呼叫，並在使用完畢後關閉串流
+     * @param userId 用戶ID
+     * @return 打卡記錄投影串流，按時間排序
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(SELECT_VIEW + "WHERE c.user.id = :userId ORDER BY c.checkinTime, c.id")
+    Stream<CheckInView> streamViewsByUserId(Long userId);
+
+    /**
+     * 最早的打卡日期
+     * @return 打卡日期，沒有記錄時為 null
+     */
+    @Query("SELECT MIN(c.checkinDate) FROM CheckIn c")
+    LocalDate findOldestCheckinDate();
+
+    /**
+     * 刪除已寫入封存檔的打卡記錄；附帶打卡日期範圍，分區表只需處理涵蓋的分區
+     * @param ids 打卡記錄ID
+     * @param from 開始日期（含）
+     * @param to 結束日期（不含）
+     * @return 刪除的記錄數
+     */
+    @Modifying
+    @Query("DELETE FROM CheckIn c WHERE c.id IN :ids AND c.checkinDate >= :from AND c.checkinDate < :to")
+    int deleteArchived(List<Long> ids, LocalDate from, LocalDate to);
+
+    /**
+     * 根據ID查詢打卡記錄的投影
+     * @param id 打卡記錄ID
+     * @return 打卡記錄投影Optional
+     */
+    @Query(SELECT_VIEW + "WHERE c.id = :id")
+    Optional<CheckInView> findViewById(Long id);
+
+    /**
+     * 檢查用戶在指定日期是否已有打卡記錄（走 user_id + checkin_date 唯一索引）
+     * @param userId 用戶ID
+     * @param checkinDate 打卡日期
+     * @return 是否已打卡
      */
-    Optional<CheckIn> findByUserAndCheckinTimeBetween(User user, LocalDateTime start, LocalDateTime end);
+    boolean existsByUserIdAndCheckinDate(Long userId, LocalDate checkinDate);
+
+    /**
+     * 以串流逐筆讀取指定日期已打卡的用戶ID（走 checkin_date 索引）
+     * 須在唯讀交易中呼叫，並在使用完畢後關閉串流
+     * @param checkinDate 打卡日期
+     * @return 用戶ID串流
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT c.user.id FROM CheckIn c WHERE c.checkinDate = :checkinDate")
+    Stream<Long> streamUserIdsByCheckinDate(LocalDate checkinDate);
+
+    /**
+     * 查詢用戶在日期範圍內有打卡的日期（走 user_id + checkin_date 唯一索引）
+     * @param userId 用戶ID
+     * @param start 開始日期（含）
+     * @param end 結束日期（含）
+     * @return 打卡日期列表
+     */
+    @Query("SELECT c.checkinDate FROM CheckIn c WHERE c.user.id = :userId AND c.checkinDate BETWEEN :start AND :end")
+    List<LocalDate> findCheckinDatesBetween(Long userId, LocalDate start, LocalDate end);
+
+    /**
+     * 為新增 checkin_date 欄位前的舊記錄補上打卡日期
+     * @return 更新的記錄數
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE CheckIn c SET c.checkinDate = CAST(c.checkinTime AS LocalDate) WHERE c.checkinDate IS NULL")
+    int backfillCheckinDates();
 
     /**
      * 查找用戶的所有打卡記錄，按時間倒序排列
@@ -34,13 +161,70 @@ public interface CheckInRepository extends JpaRepository<CheckIn, Long> {
     List<CheckIn> findByUserOrderByCheckinTimeDesc(User user);
 
     /**
-     * 查找用戶在指定日期的打卡記錄
+     * 查詢用戶最新的一頁打卡記錄（走 user_id + checkin_time 索引）
+     * @param userId 用戶ID
+     * @param limit 筆數
+     * @return 打卡記錄投影列表，按時間倒序排列
+     */
+    @Query(SELECT_VIEW + "WHERE c.user.id = :userId ORDER BY c.checkinTime DESC, c.id DESC")
+    List<CheckInView> findPageByUserId(Long userId, Limit limit);
+
+    /**
+     * 以游標查詢用戶早於 (beforeTime, beforeId) 的一頁打卡記錄
+     * 以 checkinTime <= beforeTime 作為索引範圍條件，不論歷史多長都只讀取一頁的資料
+     * @param userId 用戶ID
+     * @param beforeTime 上一頁最後一筆的打卡時間
+     * @param beforeId 上一頁最後一筆的ID
+     * @param limit 筆數
+     * @return 打卡記錄投影列表，按時間倒序排列
+     */
+    default List<CheckInView> findPageByUserIdBefore(Long userId, LocalDateTime beforeTime, Long beforeId, Limit limit) {
+        return findPageByUserIdBefore(userId, beforeTime, beforeId,
+                beforeTime.toLocalDate().plusDays(DATE_SKEW_DAYS), limit);
+    }
+
+    /**
+     * 同 findPageByUserIdBefore，另以打卡日期上限讓分區表排除較新的分區
+     */
+    @Query(SELECT_VIEW + "WHERE c.user.id = :userId "
+            + "AND c.checkinDate <= :beforeDay "
+            + "AND c.checkinTime <= :beforeTime "
+            + "AND (c.checkinTime < :beforeTime OR c.id < :beforeId) "
+            + "ORDER BY c.checkinTime DESC, c.id DESC")
+    List<CheckInView> findPageByUserIdBefore(Long userId, LocalDateTime beforeTime, Long beforeId,
+                                             LocalDate beforeDay, Limit limit);
+
+    /**
+     * 查找用戶在指定日期的打卡記錄（走 user_id + checkin_date 唯一索引）
+     * 直接比較保存的打卡日期，不在 checkin_time 上套用 DATE()，資料庫才能使用索引
      * @param user 用戶
-     * @param date 日期
+     * @param date 打卡日期（依用戶時區）
      * @return 打卡記錄列表
      */
-    @Query("SELECT c FROM CheckIn c WHERE c.user = :user AND DATE(c.checkinTime) = DATE(:date)")
-    List<CheckIn> findByUserAndDate(User user, LocalDateTime date);
+    @Query("SELECT c FROM CheckIn c WHERE c.user = :user AND c.checkinDate = :date")
+    List<CheckIn> findByUserAndDate(User user, LocalDate date);
+
+    /**
+     * 查找用戶在半開時間區間 [start, end) 內的打卡記錄（走 user_id + checkin_time 索引）
+     * 一天的邊界以 CheckInDays 依用戶時區換算後傳入
+     * @param userId 用戶ID
+     * @param start 開始時間（含）
+     * @param end 結束時間（不含）
+     * @return 打卡記錄列表，按時間排序
+     */
+    default List<CheckIn> findByUserIdAndTimeRange(Long userId, LocalDateTime start, LocalDateTime end) {
+        return findByUserIdAndTimeRange(userId, start, end,
+                start.toLocalDate().minusDays(DATE_SKEW_DAYS), end.toLocalDate().plusDays(DATE_SKEW_DAYS));
+    }
+
+    /**
+     * 同 findByUserIdAndTimeRange，另以打卡日期範圍讓分區表只讀取涵蓋的分區
+     */
+    @Query("SELECT c FROM CheckIn c WHERE c.user.id = :userId "
+            + "AND c.checkinDate BETWEEN :fromDay AND :toDay "
+            + "AND c.checkinTime >= :start AND c.checkinTime < :end ORDER BY c.checkinTime")
+    List<CheckIn> findByUserIdAndTimeRange(Long userId, LocalDateTime start, LocalDateTime end,
+                                           LocalDate fromDay, LocalDate toDay);
 
     /**
      * 統計用戶的打卡總數
@@ -0,0 +1,36 @@
+package com.lifecheckin.backend.repository;
+
+import com.lifecheckin.backend.model.CheckIn;
+
+import java.util.List;
+
+/**
+ * CheckInRepository 的自定義擴充，提供依賴唯一索引的「不存在才插入」寫入方式。
+ */
+public interface CheckInRepositoryCustom {
+
+    /**
+     * 以單一語句插入打卡記錄，若同一用戶當天已有打卡則不插入
+     * 成功時會回填打卡記錄的ID
+     * @param checkIn 打卡記錄（需已設定用戶、打卡時間與打卡日期）
+     * @return 是否成功插入
+     */
+    boolean insertIfAbsent(CheckIn checkIn);
+
+    /**
+     * 批次插入打卡記錄，與資料庫中已有記錄衝突者略過
+     * 成功插入者會回填打卡記錄的ID
+     * @param checkIns 打卡記錄列表
+     * @return 每筆記錄是否成功插入，順序與輸入相同
+     */
+    boolean[] insertAllIfAbsent(List<CheckIn> checkIns);
+
+    /**
+     * 大量匯入歷史打卡記錄，與資料庫中已有記錄衝突者略過
+     * PostgreSQL 以 COPY 寫入暫存表後再一次合併，其他資料庫退回批次「不存在才插入」
+     * 須在交易中呼叫；成功插入者會回填打卡記錄的ID
+     * @param checkIns 打卡記錄列表（需已設定用戶、打卡時間與打卡日期）
+     * @return 每筆記錄是否成功插入，順序與輸入相同
+     */
+    boolean[] importAll(List<CheckIn> checkIns);
+}
@@ -0,0 +1,223 @@
+package com.lifecheckin.backend.repository;
+
+import com.lifecheckin.backend.config.DatabaseDialect;
+import com.lifecheckin.backend.model.CheckIn;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * CheckInRepositoryCustom 的實作
+ * PostgreSQL 使用 INSERT ... ON CONFLICT DO NOTHING，其他資料庫（H2）使用標準 MERGE，
+ * 兩者都依賴 (user_id, checkin_date) 唯一索引判斷重複，不需要事先查詢。
+ * 主鍵由 Hibernate 的 pooled 序列產生器預先分配，與 JPA 寫入的記錄共用同一段序列。
+ * 批次寫入時若 MERGE 遇到併發衝突會拋出例外，由呼叫端決定如何重試。
+ * 大量匯入在 PostgreSQL 上改用 COPY 寫入暫存表，再以一條 INSERT ... SELECT 合併。
+ */
+public class CheckInRepositoryCustomImpl implements CheckInRepositoryCustom {
+
+    private static final String POSTGRES_INSERT_IF_ABSENT =
+            "INSERT INTO checkin_records (id, user_id, checkin_time, checkin_date, note, location, status) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?) "
+                    + "ON CONFLICT (user_id, checkin_date) DO NOTHING";
+
+    private static final String MERGE_INSERT_IF_ABSENT =
+            "MERGE INTO checkin_records t "
+                    + "USING (VALUES (CAST(? AS BIGINT), CAST(? AS BIGINT), CAST(? AS TIMESTAMP), CAST(? AS DATE), "
+                    + "CAST(? AS VARCHAR(255)), CAST(? AS VARCHAR(255)), CAST(? AS VARCHAR(255)))) "
+                    + "s (id, user_id, checkin_time, checkin_date, note, location, status) "
+                    + "ON t.user_id = s.user_id AND t.checkin_date = s.checkin_date "
+                    + "WHEN NOT MATCHED THEN INSERT (id, user_id, checkin_time, checkin_date, note, location, status) "
+                    + "VALUES (s.id, s.user_id, s.checkin_time, s.checkin_date, s.note, s.location, s.status)";
+
+    private static final String CREATE_IMPORT_STAGE =
+            "CREATE TEMP TABLE checkin_import_stage (LIKE checkin_records INCLUDING DEFAULTS) ON COMMIT DROP";
+
+    private static final String COPY_IMPORT_STAGE =
+            "COPY checkin_import_stage (id, user_id, checkin_time, checkin_date, note, location, status) "
+                    + "FROM STDIN WITH (FORMAT csv)";
+
+    private static final String MERGE_IMPORT_STAGE =
+            "INSERT INTO checkin_records (id, user_id, checkin_time, checkin_date, note, location, status) "
+                    + "SELECT id, user_id, checkin_time, checkin_date, note, location, status FROM checkin_import_stage "
+                    + "ON CONFLICT (user_id, checkin_date) DO NOTHING "
+                    + "RETURNING id";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private DatabaseDialect databaseDialect;
+
+    @Override
+    public boolean insertIfAbsent(CheckIn checkIn) {
+        Long id = nextId(checkIn);
+        int inserted;
+        try {
+            inserted = jdbcTemplate.update(insertIfAbsentSql(), ps -> bind(ps, id, checkIn));
+        } catch (DuplicateKeyException e) {
+            // MERGE 在併發插入同一鍵時仍可能違反唯一索引，同樣視為衝突
+            return false;
+        }
+
+        if (inserted == 0) {
+            return false;
+        }
+        checkIn.setId(id);
+        return true;
+    }
+
+    @Override
+    public boolean[] insertAllIfAbsent(List<CheckIn> checkIns) {
+        boolean[] inserted = new boolean[checkIns.size()];
+        if (checkIns.isEmpty()) {
+            return inserted;
+        }
+
+        long[] ids = new long[checkIns.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = nextId(checkIns.get(i));
+        }
+
+        int[] counts = jdbcTemplate.batchUpdate(insertIfAbsentSql(), new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                bind(ps, ids[i], checkIns.get(i));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return checkIns.size();
+            }
+        });
+
+        Set<Long> insertedIds = null;
+        for (int count : counts) {
+            if (count == Statement.SUCCESS_NO_INFO) {
+                // 驅動程式改寫成多列插入時不回報逐筆結果，改以預先分配的主鍵確認哪些已寫入
+                insertedIds = new HashSet<>(namedParameterJdbcTemplate.queryForList(
+                        "SELECT id FROM checkin_records WHERE id IN (:ids)",
+                        Map.of("ids", Arrays.stream(ids).boxed().toList()), Long.class));
+                break;
+            }
+        }
+
+        for (int i = 0; i < counts.length; i++) {
+            inserted[i] = insertedIds != null ? insertedIds.contains(ids[i]) : counts[i] > 0;
+            if (inserted[i]) {
+                checkIns.get(i).setId(ids[i]);
+            }
+        }
+        return inserted;
+    }
+
+    @Override
+    public boolean[] importAll(List<CheckIn> checkIns) {
+        if (checkIns.isEmpty()) {
+            return new boolean[0];
+        }
+        if (!databaseDialect.isPostgres()) {
+            return insertAllIfAbsent(checkIns);
+        }
+
+        long[] ids = new long[checkIns.size()];
+        StringBuilder csv = new StringBuilder(checkIns.size() * 80);
+        for (int i = 0; i < ids.length; i++) {
+            CheckIn checkIn = checkIns.get(i);
+            ids[i] = nextId(checkIn);
+            csv.append(ids[i]).append(',')
+                    .append(checkIn.getUser().getId()).append(',')
+                    .append(checkIn.getCheckinTime()).append(',')
+                    .append(checkIn.getCheckinDate()).append(',');
+            appendCsvText(csv, checkIn.getNote());
+            csv.append(',');
+            appendCsvText(csv, checkIn.getLocation());
+            csv.append(',').append(checkIn.getStatus().name()).append('\n');
+        }
+
+        // 暫存表沒有唯一索引，COPY 不會因單筆衝突而整批失敗；衝突留給合併語句略過
+        jdbcTemplate.execute(CREATE_IMPORT_STAGE);
+        jdbcTemplate.execute((ConnectionCallback<Long>) con -> {
+            try {
+                return con.unwrap(PGConnection.class).getCopyAPI()
+                        .copyIn(COPY_IMPORT_STAGE, new StringReader(csv.toString()));
+            } catch (IOException e) {
+                throw new SQLException("Failed to stream check-ins to COPY", e);
+            }
+        });
+        Set<Long> insertedIds = new HashSet<>(jdbcTemplate.queryForList(MERGE_IMPORT_STAGE, Long.class));
+        jdbcTemplate.execute("DROP TABLE checkin_import_stage");
+
+        boolean[] inserted = new boolean[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            inserted[i] = insertedIds.contains(ids[i]);
+            if (inserted[i]) {
+                checkIns.get(i).setId(ids[i]);
+            }
+        }
+        return inserted;
+    }
+
+    private static void appendCsvText(StringBuilder csv, String value) {
+        // COPY 的 CSV 格式中未加引號的空欄位代表 NULL，加引號的空字串才是空字串
+        if (value != null) {
+            csv.append('"').append(value.replace("\"", "\"\"")).append('"');
+        }
+    }
+
+    private void bind(PreparedStatement ps, long id, CheckIn checkIn) throws SQLException {
+        ps.setLong(1, id);
+        ps.setLong(2, checkIn.getUser().getId());
+        ps.setObject(3, checkIn.getCheckinTime());
+        ps.setObject(4, checkIn.getCheckinDate());
+        ps.setString(5, checkIn.getNote());
+        ps.setString(6, checkIn.getLocation());
+        ps.setString(7, checkIn.getStatus().name());
+    }
+
+    /**
+     * 由 Hibernate 為 CheckIn 設定的序列產生器分配下一個主鍵
+     */
+    private Long nextId(CheckIn checkIn) {
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        BeforeExecutionGenerator generator = (BeforeExecutionGenerator) session.getFactory()
+                .getMappingMetamodel()
+                .getEntityDescriptor(CheckIn.class)
+                .getGenerator();
+        return (Long) generator.generate(session, checkIn, null, EventType.INSERT);
+    }
+
+    /**
+     * 依資料庫類型選擇「不存在才插入」語句
+     */
+    private String insertIfAbsentSql() {
+        return databaseDialect.isPostgres() ? POSTGRES_INSERT_IF_ABSENT : MERGE_INSERT_IF_ABSENT;
+    }
+}
@@ -0,0 +1,24 @@
+package com.lifecheckin.backend.repository;
+
+import com.lifecheckin.backend.model.DailyCheckInStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 每日打卡彙總數據訪問接口
+ */
+@Repository
+public interface DailyCheckInStatsRepository extends JpaRepository<DailyCheckInStats, LocalDate>,
+        DailyCheckInStatsRepositoryCustom {
+
+    /**
+     * 查詢日期範圍內的每日彙總（走主鍵範圍）
+     * @param from 開始日期
+     * @param to 結束日期
+     * @return 每日彙總列表，按日期排序
+     */
+    List<DailyCheckInStats> findByStatDateBetweenOrderByStatDate(LocalDate from, LocalDate to);
+}
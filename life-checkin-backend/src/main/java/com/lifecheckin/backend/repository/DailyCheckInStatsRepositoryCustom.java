@@ -0,0 +1,26 @@
+package com.lifecheckin.backend.repository;
+
+import com.lifecheckin.backend.model.DailyCheckInStats;
+
+import java.time.LocalDate;
+import java.util.Collection;
+
+/**
+ * DailyCheckInStatsRepository 的自定義擴充，累加增量與依原始打卡記錄重建彙總。
+ */
+public interface DailyCheckInStatsRepositoryCustom {
+
+    /**
+     * 將增量累加到每日彙總，該日尚無彙總時建立
+     * @param deltas 每日增量（statDate 為日期，各計數為增減量）
+     */
+    void addDeltas(Collection<DailyCheckInStats> deltas);
+
+    /**
+     * 依 checkin_records 重建日期範圍內的彙總（刪除後以 INSERT ... SELECT 重新計算）
+     * @param from 開始日期（含）
+     * @param to 結束日期（含）
+     * @return 重建的天數（有打卡的日子）
+     */
+    int rebuild(LocalDate from, LocalDate to);
+}
@@ -0,0 +1,92 @@
+package com.lifecheckin.backend.repository;
+
+import com.lifecheckin.backend.config.DatabaseDialect;
+import com.lifecheckin.backend.model.DailyCheckInStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Collection;
+
+/**
+ * DailyCheckInStatsRepositoryCustom 的實作
+ * 增量以 PostgreSQL 的 INSERT ... ON CONFLICT DO UPDATE 或 H2 的 MERGE 一條語句累加，
+ * 重建以一條 INSERT ... SELECT ... GROUP BY 由 checkin_records 的 checkin_date 索引範圍計算。
+ */
+public class DailyCheckInStatsRepositoryCustomImpl implements DailyCheckInStatsRepositoryCustom {
+
+    private static final String POSTGRES_ADD_DELTA =
+            "INSERT INTO daily_checkin_stats (stat_date, total_count, normal_count, late_count, early_count) "
+                    + "VALUES (?, ?, ?, ?, ?) "
+                    + "ON CONFLICT (stat_date) DO UPDATE SET "
+                    + "total_count = daily_checkin_stats.total_count + EXCLUDED.total_count, "
+                    + "normal_count = daily_checkin_stats.normal_count + EXCLUDED.normal_count, "
+                    + "late_count = daily_checkin_stats.late_count + EXCLUDED.late_count, "
+                    + "early_count = daily_checkin_stats.early_count + EXCLUDED.early_count";
+
+    private static final String MERGE_ADD_DELTA =
+            "MERGE INTO daily_checkin_stats t "
+                    + "USING (VALUES (CAST(? AS DATE), CAST(? AS BIGINT), CAST(? AS BIGINT), CAST(? AS BIGINT), "
+                    + "CAST(? AS BIGINT))) s (stat_date, total_count, normal_count, late_count, early_count) "
+                    + "ON t.stat_date = s.stat_date "
+                    + "WHEN MATCHED THEN UPDATE SET total_count = t.total_count + s.total_count, "
+                    + "normal_count = t.normal_count + s.normal_count, late_count = t.late_count + s.late_count, "
+                    + "early_count = t.early_count + s.early_count "
+                    + "WHEN NOT MATCHED THEN INSERT (stat_date, total_count, normal_count, late_count, early_count) "
+                    + "VALUES (s.stat_date, s.total_count, s.normal_count, s.late_count, s.early_count)";
+
+    private static final String DELETE_RANGE =
+            "DELETE FROM daily_checkin_stats WHERE stat_date BETWEEN ? AND ?";
+
+    private static final String REBUILD_RANGE =
+            "INSERT INTO daily_checkin_stats (stat_date, total_count, normal_count, late_count, early_count) "
+                    + "SELECT checkin_date, COUNT(*), "
+                    + "SUM(CASE WHEN status = 'NORMAL' THEN 1 ELSE 0 END), "
+                    + "SUM(CASE WHEN status = 'LATE' THEN 1 ELSE 0 END), "
+                    + "SUM(CASE WHEN status = 'EARLY' THEN 1 ELSE 0 END) "
+                    + "FROM checkin_records WHERE checkin_date BETWEEN ? AND ? "
+                    + "GROUP BY checkin_date";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DatabaseDialect databaseDialect;
+
+    @Override
+    public void addDeltas(Collection<DailyCheckInStats> deltas) {
+        // 每次合併通常只有一兩天的增量，逐筆執行，失敗時只重試失敗的那一筆，避免重複累加
+        for (DailyCheckInStats row : deltas) {
+            try {
+                jdbcTemplate.update(addDeltaSql(), ps -> bind(ps, row));
+            } catch (DuplicateKeyException e) {
+                // MERGE 在併發建立同一天的彙總時可能違反主鍵，此時該列已存在，再累加一次即可
+                jdbcTemplate.update(addDeltaSql(), ps -> bind(ps, row));
+            }
+        }
+    }
+
+    @Override
+    public int rebuild(LocalDate from, LocalDate to) {
+        jdbcTemplate.update(DELETE_RANGE, from, to);
+        return jdbcTemplate.update(REBUILD_RANGE, from, to);
+    }
+
+    private void bind(PreparedStatement ps, DailyCheckInStats row) throws SQLException {
+        ps.setObject(1, row.getStatDate());
+        ps.setLong(2, row.getTotalCount());
+        ps.setLong(3, row.getNormalCount());
+        ps.setLong(4, row.getLateCount());
+        ps.setLong(5, row.getEarlyCount());
+    }
+
+    /**
+     * 依資料庫類型選擇累加語句
+     */
+    private String addDeltaSql() {
+        return databaseDialect.isPostgres() ? POSTGRES_ADD_DELTA : MERGE_ADD_DELTA;
+    }
+}
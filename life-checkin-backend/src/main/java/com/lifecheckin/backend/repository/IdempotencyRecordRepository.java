@@ -0,0 +1,51 @@
+package com.lifecheckin.backend.repository;
+
+import com.lifecheckin.backend.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * IdempotencyRecordRepository 提供對 Idempotency-Key 回應記錄的資料庫操作。
+ */
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+
+    /**
+     * 查詢尚未過期的回應記錄
+     * @param username 用戶名
+     * @param idempotencyKey Idempotency-Key
+     * @param now 目前時間
+     * @return 回應記錄Optional
+     */
+    Optional<IdempotencyRecord> findByUsernameAndIdempotencyKeyAndExpiresAtAfter(
+            String username, String idempotencyKey, LocalDateTime now);
+
+    /**
+     * 刪除同一個鍵已過期、尚未被定期清除的回應記錄，讓同一個鍵可以再次保存回應
+     * 須在交易中呼叫
+     * @param username 用戶名
+     * @param idempotencyKey Idempotency-Key
+     * @param now 目前時間
+     * @return 刪除的記錄數
+     */
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.username = :username "
+            + "AND r.idempotencyKey = :idempotencyKey AND r.expiresAt <= :now")
+    int deleteExpiredKey(String username, String idempotencyKey, LocalDateTime now);
+
+    /**
+     * 刪除已過期的回應記錄
+     * @param now 目前時間
+     * @return 刪除的記錄數
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int deleteExpired(LocalDateTime now);
+}
@@ -0,0 +1,12 @@
+package com.lifecheckin.backend.repository;
+
+import com.lifecheckin.backend.model.JobCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * 排程工作進度數據訪問接口
+ */
+@Repository
+public interface JobCheckpointRepository extends JpaRepository<JobCheckpoint, String> {
+}
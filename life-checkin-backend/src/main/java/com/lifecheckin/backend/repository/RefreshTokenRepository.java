@@ -0,0 +1,68 @@
+package com.lifecheckin.backend.repository;
+
+import com.lifecheckin.backend.dto.RefreshTokenLookup;
+import com.lifecheckin.backend.model.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * RefreshTokenRepository 提供對刷新令牌的資料庫操作。
+ */
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+
+    /**
+     * 以令牌雜湊查詢刷新令牌與簽發存取令牌需要的用戶欄位
+     * 刷新令牌的欄位由 uk_refresh_token_lookup 索引取得，用戶以主鍵取得
+     * @param tokenHash 令牌雜湊
+     * @return 查詢結果；令牌不存在或用戶已刪除時為空
+     */
+    @Query("SELECT new com.lifecheckin.backend.dto.RefreshTokenLookup(t.id, t.familyId, t.tokenVersion, t.expiresAt, "
+            + "u.id, u.username, u.roles, u.timeZone, COALESCE(u.tokenVersion, 0)) "
+            + "FROM RefreshToken t JOIN User u ON u.id = t.userId WHERE t.tokenHash = :tokenHash")
+    Optional<RefreshTokenLookup> findLookupByTokenHash(String tokenHash);
+
+    /**
+     * 把令牌標記為已使用；令牌已使用或已撤銷時不更新，由更新筆數判斷是否搶先使用
+     * @param id 令牌ID
+     * @param now 目前時間
+     * @return 更新的筆數
+     */
+    @Modifying
+    @Query("UPDATE RefreshToken t SET t.usedAt = :now WHERE t.id = :id AND t.usedAt IS NULL AND t.revoked = false")
+    int markUsed(Long id, LocalDateTime now);
+
+    /**
+     * 撤銷一個 family 的所有令牌
+     * @param familyId family ID
+     * @return 撤銷的筆數
+     */
+    @Modifying
+    @Query("UPDATE RefreshToken t SET t.revoked = true WHERE t.familyId = :familyId AND t.revoked = false")
+    int revokeFamily(String familyId);
+
+    /**
+     * 刪除用戶的所有刷新令牌
+     * @param userId 用戶ID
+     * @return 刪除的筆數
+     */
+    @Modifying
+    @Query("DELETE FROM RefreshToken t WHERE t.userId = :userId")
+    int deleteByUserId(Long userId);
+
+    /**
+     * 刪除已過期的刷新令牌
+     * @param now 目前時間
+     * @return 刪除的記錄數
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RefreshToken t WHERE t.expiresAt < :now")
+    int deleteExpired(LocalDateTime now);
+}
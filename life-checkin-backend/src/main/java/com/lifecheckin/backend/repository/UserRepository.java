@@ -1,18 +1,150 @@
 package com.lifecheckin.backend.repository;
 
+import com.lifecheckin.backend.dto.UserStreak;
 import com.lifecheckin.backend.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * UserRepository 提供對 User 實體的資料庫操作。
  * 繼承 JpaRepository 後，自動獲得常用的 CRUD 方法。
  */
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, BatchSaveRepository<User>, UserRepositoryCustom {
     // 如有需要，可新增自定義查詢方法
     Optional<User> findByUsername(String username);
     Optional<User> findByEmail(String email);
+    boolean existsByUsername(String username);
+    boolean existsByEmail(String email);
+
+    /**
+     * 查詢用戶目前的令牌版本，只讀取一個欄位
+     * @param id 用戶ID
+     * @return 令牌版本，用戶不存在時為空
+     */
+    @Query("SELECT COALESCE(u.tokenVersion, 0) FROM User u WHERE u.id = :id")
+    Optional<Integer> findTokenVersionById(Long id);
+
+    /**
+     * 以新的雜湊取代密碼（成本變更後的重新雜湊），密碼本身不變，不更新令牌版本
+     * 只在儲存的雜湊仍是驗證時讀到的值時更新，不會覆寫同時間的密碼變更
+     * @param username 用戶名
+     * @param oldHash 驗證時讀到的雜湊
+     * @param newHash 新的雜湊
+     * @return 更新的用戶數
+     */
+    @Modifying
+    @Query("UPDATE User u SET u.password = :newHash WHERE u.username = :username AND u.password = :oldHash")
+    int replacePasswordHash(String username, String oldHash, String newHash);
+
+    /**
+     * 以單一查詢批次解析用戶名，只讀取用戶名、ID與時區三個欄位
+     * @param usernames 用戶名集合
+     * @return 每列為 [username, id, timeZone]，不存在的用戶名不會出現
+     */
+    @Query("SELECT u.username, u.id, u.timeZone FROM User u WHERE u.username IN :usernames")
+    List<Object[]> findIdsByUsernameIn(Collection<String> usernames);
+
+    /**
+     * 查詢用戶目前的連續打卡狀態
+     * @param userIds 用戶ID集合
+     * @return 連續打卡狀態列表
+     */
+    @Query("SELECT new com.lifecheckin.backend.dto.UserStreak(u.id, u.username, u.streakDays, u.lastCheckInDate) "
+            + "FROM User u WHERE u.id IN :userIds")
+    List<UserStreak> findStreaksByIdIn(Collection<Long> userIds);
+
+    /**
+     * 以串流逐筆讀取連續打卡仍在進行中（最後打卡不早於指定時間）的用戶
+     * 須在唯讀交易中呼叫，並在使用完畢後關閉串流
+     * @param since 最後打卡時間下限
+     * @return 連續打卡狀態串流
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.lifecheckin.backend.dto.UserStreak(u.id, u.username, u.streakDays, u.lastCheckInDate) "
+            + "FROM User u WHERE u.streakDays > 0 AND u.lastCheckInDate >= :since")
+    Stream<UserStreak> streamActiveStreaks(LocalDateTime since);
+
+    /**
+     * 以串流逐筆讀取所有用戶的用戶名與郵箱（建立可用性 Bloom filter）
+     * 須在唯讀交易中呼叫，並在使用完畢後關閉串流
+     * @return 用戶名與郵箱串流
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT u.username, u.email FROM User u")
+    Stream<Object[]> streamUsernamesAndEmails();
+
+    /**
+     * 以主鍵游標查詢下一批連續打卡已中斷（最後打卡早於指定時間）但天數尚未歸零的用戶
+     * @param afterId 上一批最後一個用戶ID
+     * @param cutoff 最後打卡時間上限（不含）
+     * @param limit 每批筆數
+     * @return 用戶ID列表，按ID排序
+     */
+    @Query("SELECT u.id FROM User u WHERE u.id > :afterId AND u.streakDays > 0 AND u.lastCheckInDate < :cutoff "
+            + "ORDER BY u.id")
+    List<Long> findExpiredStreakIds(Long afterId, LocalDateTime cutoff, Limit limit);
+
+    /**
+     * 查詢用戶使用的所有時區
+     * @return 時區ID列表，null 代表使用伺服器時區
+     */
+    @Query("SELECT DISTINCT u.timeZone FROM User u")
+    List<String> findDistinctTimeZones();
+
+    /**
+     * 將一批用戶的連續打卡天數歸零
+     * 再次檢查最後打卡時間，查詢之後才打卡的用戶不會被歸零
+     * @param userIds 用戶ID集合
+     * @param cutoff 最後打卡時間上限（不含）
+     * @return 歸零的用戶數
+     */
+    @Modifying
+    @Query("UPDATE User u SET u.streakDays = 0 "
+            + "WHERE u.id IN :userIds AND u.streakDays > 0 AND u.lastCheckInDate < :cutoff")
+    int expireStreaks(Collection<Long> userIds, LocalDateTime cutoff);
+
+    /**
+     * 以單一條件式 UPDATE 記錄用戶打卡，依資料庫中的上次打卡時間決定連續打卡天數：
+     * 上次打卡在今天則保持不變，在昨天則加一，其餘（含從未打卡）重置為 1。
+     * 歷史最長天數取原值與新天數的較大者（SET 中引用的欄位都是更新前的值）。
+     * 不載入用戶實體，也不會覆寫密碼、角色等其他欄位。
+     * @param userIds 用戶ID集合
+     * @param now 本次打卡時間
+     * @param startOfToday 今天的開始時間
+     * @param startOfYesterday 昨天的開始時間
+     * @return 更新的用戶數
+     */
+    @Modifying
+    @Query("UPDATE User u SET "
+            + "u.streakDays = CASE "
+            + "WHEN u.lastCheckInDate >= :startOfToday THEN COALESCE(u.streakDays, 0) "
+            + "WHEN u.lastCheckInDate >= :startOfYesterday THEN COALESCE(u.streakDays, 0) + 1 "
+            + "ELSE 1 END, "
+            + "u.longestStreakDays = GREATEST(COALESCE(u.longestStreakDays, 0), CASE "
+            + "WHEN u.lastCheckInDate >= :startOfToday THEN COALESCE(u.streakDays, 0) "
+            + "WHEN u.lastCheckInDate >= :startOfYesterday THEN COALESCE(u.streakDays, 0) + 1 "
+            + "ELSE 1 END), "
+            + "u.lastCheckInDate = :now "
+            + "WHERE u.id IN :userIds")
+    int updateCheckInStreak(Collection<Long> userIds, LocalDateTime now,
+                            LocalDateTime startOfToday, LocalDateTime startOfYesterday);
 }
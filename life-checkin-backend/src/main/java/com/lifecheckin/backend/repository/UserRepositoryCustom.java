@@ -0,0 +1,55 @@
+package com.lifecheckin.backend.repository;
+
+import com.lifecheckin.backend.dto.StreakDiff;
+import com.lifecheckin.backend.dto.UserStreak;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * UserRepository 的自定義擴充，依打卡記錄重新計算所有用戶的連續打卡狀態，
+ * 以及在 PostgreSQL 上以 UPDATE ... RETURNING 記錄打卡並取回新的連續打卡狀態。
+ */
+public interface UserRepositoryCustom {
+
+    /**
+     * 依 checkin_records 計算所有用戶目前的連續天數、歷史最長連續天數與最後打卡時間，
+     * 回傳與 users 中保存的值不同的用戶。最後打卡早於 cutoff 的用戶目前連續天數為 0。
+     * @param cutoff 伺服器時區的時間，通常是所有用戶時區中最早的昨天開始時間（CheckInDays.earliestStartOfYesterday）
+     * @return 有差異的用戶，按用戶ID排序
+     */
+    List<StreakDiff> findStreakDiffs(LocalDateTime cutoff);
+
+    /**
+     * 同 findStreakDiffs，只計算指定的用戶（例如匯入歷史打卡後受影響的用戶）
+     * @param cutoff 最後打卡時間下限，早於此時間的連續打卡已中斷
+     * @param userIds 用戶ID集合
+     * @return 有差異的用戶，按用戶ID排序
+     */
+    List<StreakDiff> findStreakDiffs(LocalDateTime cutoff, Collection<Long> userIds);
+
+    /**
+     * 寫入重新計算的結果；計算之後又打卡的用戶（最後打卡時間已改變）會被略過
+     * @param diffs 差異列表
+     * @return 實際更新的用戶數
+     */
+    int applyStreakDiffs(List<StreakDiff> diffs);
+
+    /**
+     * 同 UserRepository.updateCheckInStreak，並以 RETURNING 在同一語句中回傳更新後的連續打卡狀態（僅 PostgreSQL）
+     * @param userIds 用戶ID集合
+     * @param now 本次打卡時間
+     * @param startOfToday 今天的開始時間
+     * @param startOfYesterday 昨天的開始時間
+     * @return 更新後的連續打卡狀態，不存在的用戶不會出現
+     */
+    List<UserStreak> updateCheckInStreakReturning(Collection<Long> userIds, LocalDateTime now,
+                                                  LocalDateTime startOfToday, LocalDateTime startOfYesterday);
+
+    /**
+     * 目前使用的計算方式
+     * @return sql-window 或 fork-join
+     */
+    String streakEngine();
+}
@@ -0,0 +1,321 @@
+package com.lifecheckin.backend.repository;
+
+import com.lifecheckin.backend.config.DatabaseDialect;
+import com.lifecheckin.backend.dto.StreakDiff;
+import com.lifecheckin.backend.dto.UserStreak;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * UserRepositoryCustom 的實作
+ * PostgreSQL 以一條查詢完成：用 ROW_NUMBER() 視窗函數把連續的打卡日期分成同一段（日期減去序號相同者為同一段），
+ * 再依用戶彙總出目前與最長的連續天數，並直接與 users 比較。
+ * 其他資料庫（H2）依用戶ID範圍切分，由 ForkJoinPool 平行讀取並計算每一段範圍。
+ */
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+
+    static final String SQL_ENGINE = "sql-window";
+    static final String FORK_JOIN_ENGINE = "fork-join";
+
+    private static final String POSTGRES_STREAK_DIFFS =
+            "WITH days AS ("
+                    + "SELECT user_id, checkin_date, checkin_time, "
+                    + "checkin_date - CAST(ROW_NUMBER() OVER (PARTITION BY user_id ORDER BY checkin_date) AS INTEGER) "
+                    + "AS run_key FROM checkin_records%s), "
+                    + "runs AS ("
+                    + "SELECT user_id, COUNT(*) AS run_days, MAX(checkin_date) AS end_date, MAX(checkin_time) AS last_time "
+                    + "FROM days GROUP BY user_id, run_key), "
+                    + "streaks AS ("
+                    + "SELECT user_id, MAX(CASE WHEN last_time >= ? THEN run_days ELSE 0 END) AS current_days, "
+                    + "MAX(run_days) AS longest_days, MAX(last_time) AS last_time "
+                    + "FROM runs GROUP BY user_id) "
+                    + "SELECT u.id, u.username, COALESCE(u.streak_days, 0), COALESCE(s.current_days, 0), "
+                    + "COALESCE(u.longest_streak_days, 0), COALESCE(s.longest_days, 0), "
+                    + "u.last_check_in_date, s.last_time "
+                    + "FROM users u LEFT JOIN streaks s ON s.user_id = u.id "
+                    + "WHERE %s(COALESCE(u.streak_days, 0) <> COALESCE(s.current_days, 0) "
+                    + "OR COALESCE(u.longest_streak_days, 0) <> COALESCE(s.longest_days, 0) "
+                    + "OR u.last_check_in_date IS DISTINCT FROM s.last_time) "
+                    + "ORDER BY u.id";
+
+    private static final String SELECT_USER_ID_RANGE = "SELECT MIN(id), MAX(id) FROM users";
+
+    private static final String SELECT_USERS_IN_RANGE =
+            "SELECT id, username, COALESCE(streak_days, 0), COALESCE(longest_streak_days, 0), last_check_in_date "
+                    + "FROM users WHERE id BETWEEN ? AND ? ORDER BY id";
+
+    private static final String SELECT_CHECKIN_DATES_IN_RANGE =
+            "SELECT user_id, checkin_date, checkin_time FROM checkin_records "
+                    + "WHERE user_id BETWEEN ? AND ? ORDER BY user_id, checkin_date";
+
+    private static final String SELECT_USERS_BY_IDS =
+            "SELECT id, username, COALESCE(streak_days, 0), COALESCE(longest_streak_days, 0), last_check_in_date "
+                    + "FROM users WHERE id IN (%s) ORDER BY id";
+
+    private static final String SELECT_CHECKIN_DATES_BY_USER_IDS =
+            "SELECT user_id, checkin_date, checkin_time FROM checkin_records "
+                    + "WHERE user_id IN (%s) ORDER BY user_id, checkin_date";
+
+    private static final String APPLY_STREAK =
+            "UPDATE users SET streak_days = ?, longest_streak_days = ?, last_check_in_date = ? "
+                    + "WHERE id = ? AND last_check_in_date IS NOT DISTINCT FROM ?";
+
+    // 與 UserRepository.updateCheckInStreak 相同的規則：今天已打卡保持、昨天打卡加一、其餘重置為 1
+    private static final String STREAK_AFTER_CHECKIN =
+            "CASE WHEN last_check_in_date >= ? THEN COALESCE(streak_days, 0) "
+                    + "WHEN last_check_in_date >= ? THEN COALESCE(streak_days, 0) + 1 ELSE 1 END";
+
+    private static final String UPDATE_CHECKIN_STREAK_RETURNING =
+            "UPDATE users SET streak_days = " + STREAK_AFTER_CHECKIN + ", "
+                    + "longest_streak_days = GREATEST(COALESCE(longest_streak_days, 0), " + STREAK_AFTER_CHECKIN + "), "
+                    + "last_check_in_date = ? WHERE id IN (%s) "
+                    + "RETURNING id, username, streak_days, last_check_in_date";
+
+    private static final int APPLY_BATCH_SIZE = 1000;
+
+    // 只計算指定用戶時，每次查詢的用戶數
+    private static final int USER_ID_CHUNK = 500;
+
+    @Value("${checkin.streak-recompute.parallelism:4}")
+    private int parallelism;
+
+    // 每個平行工作負責的用戶ID範圍大小
+    @Value("${checkin.streak-recompute.partition-size:5000}")
+    private long partitionSize;
+
+    private static final RowMapper<StreakDiff> STREAK_DIFF_MAPPER = (rs, rowNum) -> new StreakDiff(
+            rs.getLong(1), rs.getString(2), rs.getInt(3), rs.getInt(4), rs.getInt(5), rs.getInt(6),
+            rs.getObject(7, LocalDateTime.class), rs.getObject(8, LocalDateTime.class));
+
+    // 只讀取保存的值，重新計算的值由 RunScanner 填入
+    private static final RowMapper<UserStreak> USER_STREAK_MAPPER = (rs, rowNum) -> new UserStreak(
+            rs.getLong(1), rs.getString(2), rs.getInt(3), rs.getObject(4, LocalDateTime.class));
+
+    private static final RowMapper<StreakDiff> STORED_STREAK_MAPPER = (rs, rowNum) -> new StreakDiff(
+            rs.getLong(1), rs.getString(2), rs.getInt(3), 0, rs.getInt(4), 0,
+            rs.getObject(5, LocalDateTime.class), null);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DatabaseDialect databaseDialect;
+
+    @Override
+    public List<StreakDiff> findStreakDiffs(LocalDateTime cutoff) {
+        if (SQL_ENGINE.equals(streakEngine())) {
+            return jdbcTemplate.query(String.format(POSTGRES_STREAK_DIFFS, "", ""), STREAK_DIFF_MAPPER, cutoff);
+        }
+
+        long[] range = jdbcTemplate.queryForObject(SELECT_USER_ID_RANGE,
+                (rs, rowNum) -> new long[]{rs.getLong(1), rs.wasNull() ? -1 : rs.getLong(2)});
+        if (range == null || range[1] < 0) {
+            return List.of();
+        }
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return pool.invoke(new RangeTask(range[0], range[1], cutoff));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Override
+    public List<StreakDiff> findStreakDiffs(LocalDateTime cutoff, Collection<Long> userIds) {
+        List<Long> ids = new ArrayList<>(new TreeSet<>(userIds));
+        List<StreakDiff> diffs = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += USER_ID_CHUNK) {
+            List<Long> chunk = ids.subList(from, Math.min(from + USER_ID_CHUNK, ids.size()));
+            String placeholders = String.join(",", Collections.nCopies(chunk.size(), "?"));
+            if (SQL_ENGINE.equals(streakEngine())) {
+                List<Object> args = new ArrayList<>(chunk);
+                args.add(cutoff);
+                args.addAll(chunk);
+                diffs.addAll(jdbcTemplate.query(String.format(POSTGRES_STREAK_DIFFS,
+                        " WHERE user_id IN (" + placeholders + ")", "u.id IN (" + placeholders + ") AND "),
+                        STREAK_DIFF_MAPPER, args.toArray()));
+            } else {
+                List<StreakDiff> users = jdbcTemplate.query(String.format(SELECT_USERS_BY_IDS, placeholders),
+                        STORED_STREAK_MAPPER, chunk.toArray());
+                diffs.addAll(diffsOf(users, cutoff,
+                        String.format(SELECT_CHECKIN_DATES_BY_USER_IDS, placeholders), chunk.toArray()));
+            }
+        }
+        return diffs;
+    }
+
+    @Override
+    public int applyStreakDiffs(List<StreakDiff> diffs) {
+        int updated = 0;
+        for (int from = 0; from < diffs.size(); from += APPLY_BATCH_SIZE) {
+            List<StreakDiff> chunk = diffs.subList(from, Math.min(from + APPLY_BATCH_SIZE, diffs.size()));
+            int[][] counts = jdbcTemplate.batchUpdate(APPLY_STREAK, chunk, chunk.size(), (ps, diff) -> {
+                ps.setInt(1, diff.getRecomputedStreakDays());
+                ps.setInt(2, diff.getRecomputedLongestStreakDays());
+                ps.setObject(3, diff.getRecomputedLastCheckInDate(), Types.TIMESTAMP);
+                ps.setLong(4, diff.getUserId());
+                ps.setObject(5, diff.getStoredLastCheckInDate(), Types.TIMESTAMP);
+            });
+            for (int[] batch : counts) {
+                for (int count : batch) {
+                    updated += count == Statement.SUCCESS_NO_INFO ? 1 : count;
+                }
+            }
+        }
+        return updated;
+    }
+
+    @Override
+    public List<UserStreak> updateCheckInStreakReturning(Collection<Long> userIds, LocalDateTime now,
+                                                         LocalDateTime startOfToday, LocalDateTime startOfYesterday) {
+        if (!databaseDialect.isPostgres()) {
+            throw new IllegalStateException("UPDATE ... RETURNING 僅支援 PostgreSQL");
+        }
+        List<Long> ids = new ArrayList<>(userIds);
+        List<UserStreak> streaks = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += USER_ID_CHUNK) {
+            List<Long> chunk = ids.subList(from, Math.min(from + USER_ID_CHUNK, ids.size()));
+            List<Object> args = new ArrayList<>(
+                    List.of(startOfToday, startOfYesterday, startOfToday, startOfYesterday, now));
+            args.addAll(chunk);
+            streaks.addAll(jdbcTemplate.query(String.format(UPDATE_CHECKIN_STREAK_RETURNING,
+                    String.join(",", Collections.nCopies(chunk.size(), "?"))), USER_STREAK_MAPPER, args.toArray()));
+        }
+        return streaks;
+    }
+
+    @Override
+    public String streakEngine() {
+        return databaseDialect.isPostgres() ? SQL_ENGINE : FORK_JOIN_ENGINE;
+    }
+
+    /**
+     * 計算一段用戶ID範圍；範圍太大時對半切分，交給 ForkJoinPool 平行處理
+     */
+    private final class RangeTask extends RecursiveTask<List<StreakDiff>> {
+        private final long fromId;
+        private final long toId;
+        private final LocalDateTime cutoff;
+
+        private RangeTask(long fromId, long toId, LocalDateTime cutoff) {
+            this.fromId = fromId;
+            this.toId = toId;
+            this.cutoff = cutoff;
+        }
+
+        @Override
+        protected List<StreakDiff> compute() {
+            if (toId - fromId < partitionSize) {
+                return computeRange();
+            }
+            long middle = fromId + (toId - fromId) / 2;
+            RangeTask left = new RangeTask(fromId, middle, cutoff);
+            RangeTask right = new RangeTask(middle + 1, toId, cutoff);
+            left.fork();
+            List<StreakDiff> result = new ArrayList<>(right.compute());
+            result.addAll(0, left.join());
+            return result;
+        }
+
+        private List<StreakDiff> computeRange() {
+            List<StreakDiff> users = jdbcTemplate.query(SELECT_USERS_IN_RANGE, STORED_STREAK_MAPPER, fromId, toId);
+            return diffsOf(users, cutoff, SELECT_CHECKIN_DATES_IN_RANGE, fromId, toId);
+        }
+    }
+
+    /**
+     * 依打卡記錄計算一批用戶的連續打卡狀態，回傳與保存的值不同的用戶
+     * @param users 用戶保存的值，按用戶ID排序
+     * @param sql 讀取這批用戶打卡記錄的查詢，須依用戶ID、打卡日期排序
+     */
+    private List<StreakDiff> diffsOf(List<StreakDiff> users, LocalDateTime cutoff, String sql, Object... args) {
+        if (users.isEmpty()) {
+            return users;
+        }
+
+        // 用戶與打卡記錄都依用戶ID排序，邊讀邊合併
+        RunScanner scanner = new RunScanner(users, cutoff);
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setFetchSize(1000);
+            for (int i = 0; i < args.length; i++) {
+                ps.setObject(i + 1, args[i]);
+            }
+            return ps;
+        }, scanner::processRow);
+        scanner.finishUser();
+
+        List<StreakDiff> diffs = new ArrayList<>();
+        for (StreakDiff diff : users) {
+            if (diff.getStoredStreakDays() != diff.getRecomputedStreakDays()
+                    || diff.getStoredLongestStreakDays() != diff.getRecomputedLongestStreakDays()
+                    || !Objects.equals(diff.getStoredLastCheckInDate(), diff.getRecomputedLastCheckInDate())) {
+                diffs.add(diff);
+            }
+        }
+        return diffs;
+    }
+
+    /**
+     * 逐筆掃描依用戶、日期（由舊到新）排序的打卡記錄，把計算結果填入對應用戶
+     */
+    private static final class RunScanner {
+        private final List<StreakDiff> users;
+        private final LocalDateTime cutoff;
+        private int index;
+        private StreakDiff current;
+        private LocalDate previousDate;
+        private int runDays;
+
+        private RunScanner(List<StreakDiff> users, LocalDateTime cutoff) {
+            this.users = users;
+            this.cutoff = cutoff;
+        }
+
+        private void processRow(ResultSet rs) throws SQLException {
+            long userId = rs.getLong(1);
+            LocalDate date = rs.getObject(2, LocalDate.class);
+            if (current == null || current.getUserId() != userId) {
+                finishUser();
+                // 打卡記錄的用戶一定在 users 中（外鍵），往後找到同一位用戶
+                while (users.get(index).getUserId() != userId) {
+                    index++;
+                }
+                current = users.get(index);
+                runDays = 0;
+                previousDate = null;
+            }
+            runDays = previousDate != null && date.equals(previousDate.plusDays(1)) ? runDays + 1 : 1;
+            previousDate = date;
+            current.setRecomputedLongestStreakDays(Math.max(current.getRecomputedLongestStreakDays(), runDays));
+            current.setRecomputedLastCheckInDate(rs.getObject(3, LocalDateTime.class));
+        }
+
+        private void finishUser() {
+            if (current != null) {
+                // 最後一段的最後打卡不早於 cutoff（用戶時區的昨天或今天）才算進行中的連續打卡
+                current.setRecomputedStreakDays(
+                        current.getRecomputedLastCheckInDate().isBefore(cutoff) ? 0 : runDays);
+                current = null;
+            }
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.lifecheckin.backend.security;
 
-import com.lifecheckin.backend.service.CustomUserDetailsService;
+import com.lifecheckin.backend.service.TokenVersionService;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -8,28 +9,27 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.filter.OncePerRequestFilter;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 
 import java.io.IOException;
 
 /**
  * JWT認證過濾器
  * 從HTTP請求中提取JWT令牌並進行認證
+ * 已認證用戶（JwtPrincipal）與權限直接由令牌聲明建立，不查詢 users；
+ * 令牌版本與用戶目前的版本比對（記憶體快取），用戶名、密碼、角色或時區變更前簽發的令牌不再有效。
  */
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
     private final JwtUtil jwtUtil;
-    private final UserDetailsService userDetailsService;
+    private final TokenVersionService tokenVersionService;
 
-    @Autowired
-    public JwtAuthenticationFilter(JwtUtil jwtUtil, CustomUserDetailsService userDetailsService) {
+    public JwtAuthenticationFilter(JwtUtil jwtUtil, TokenVersionService tokenVersionService) {
         this.jwtUtil = jwtUtil;
-        this.userDetailsService = userDetailsService;
+        this.tokenVersionService = tokenVersionService;
     }
 
     @Override
@@ -49,25 +49,25 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             // 提取令牌
             String token = authHeader.substring(7);
 
-            // 解析並驗證令牌
-            String username = jwtUtil.validateTokenAndGetUsername(token);
+            // 解析並驗證令牌（簽名與過期時間只檢查一次）
+            Claims claims = jwtUtil.validateTokenAndGetClaims(token);
+            JwtPrincipal principal = claims != null ? jwtUtil.toPrincipal(claims) : null;
 
-            if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                // 使用UserDetailsService加載用戶數據
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-
-                // 驗證令牌是否對該用戶有效
-                if (jwtUtil.validateToken(token, userDetails.getUsername())) {
+            if (principal != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+                // 令牌簽發後用戶資料已變更或用戶已刪除
+                if (tokenVersionService.isCurrent(principal.getUserId(), jwtUtil.tokenVersion(claims))) {
                     UsernamePasswordAuthenticationToken authToken =
                             new UsernamePasswordAuthenticationToken(
-                                    userDetails,
+                                    principal,
                                     null,
-                                    userDetails.getAuthorities()
+                                    principal.getRoles().stream().map(SimpleGrantedAuthority::new).toList()
                             );
 
                     // 設置認證
                     SecurityContextHolder.getContext().setAuthentication(authToken);
-                    logger.debug("User authenticated: {}", username);
+                    logger.debug("User authenticated: {}", principal.getName());
+                } else {
+                    logger.debug("Token version is outdated for user: {}", principal.getName());
                 }
             }
         } catch (Exception e) {
@@ -77,4 +77,4 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
-}
\ No newline at end of file
+}
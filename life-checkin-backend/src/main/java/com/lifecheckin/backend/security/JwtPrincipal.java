@@ -0,0 +1,49 @@
+package com.lifecheckin.backend.security;
+
+import java.security.Principal;
+import java.util.List;
+
+/**
+ * 由 JWT 聲明建立的已認證用戶
+ * 用戶ID、角色與時區都來自簽名的令牌，處理請求時不需要查詢 users。
+ * 實作 Principal，Authentication.getName() 仍回傳用戶名。
+ */
+public final class JwtPrincipal implements Principal {
+
+    private final Long userId;
+    private final String username;
+    private final List<String> roles;
+    private final String timeZone;
+
+    public JwtPrincipal(Long userId, String username, List<String> roles, String timeZone) {
+        this.userId = userId;
+        this.username = username;
+        this.roles = List.copyOf(roles);
+        this.timeZone = timeZone;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    @Override
+    public String getName() {
+        return username;
+    }
+
+    public List<String> getRoles() {
+        return roles;
+    }
+
+    /**
+     * 用戶時區（IANA 時區ID），未設定時為 null
+     */
+    public String getTimeZone() {
+        return timeZone;
+    }
+
+    @Override
+    public String toString() {
+        return "JwtPrincipal{userId=" + userId + ", username=" + username + ", roles=" + roles + "}";
+    }
+}
@@ -1,9 +1,18 @@
 package com.lifecheckin.backend.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.lifecheckin.backend.model.User;
+import com.lifecheckin.backend.service.CustomUserDetailsService;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -11,30 +20,106 @@ import org.springframework.stereotype.Component;
 
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 /**
  * JWT工具類
  * 處理JWT令牌的生成、解析和驗證
+ * 簽名密鑰與解析器在啟動時建立一次；每個令牌只驗證一次簽名與過期時間，得到的聲明供後續使用。
+ * 最近驗證過的令牌以令牌的 SHA-256 雜湊為鍵快取聲明，令牌過期時自動移除，
+ * 同一個令牌的後續請求不必重新計算 HMAC 與解析 JSON。
+ * 令牌帶有用戶ID、角色、時區與令牌版本，認證請求時不需要查詢用戶。
  */
 @Component
 public class JwtUtil {
 
     private static final Logger logger = LoggerFactory.getLogger(JwtUtil.class);
 
+    static final String USER_ID_CLAIM = "uid";
+    static final String ROLES_CLAIM = "roles";
+    static final String TIME_ZONE_CLAIM = "tz";
+    static final String TOKEN_VERSION_CLAIM = "ver";
+
     @Value("${jwt.secret}")
     private String secretString;
 
-    @Value("${jwt.expiration:86400000}") // 默認1天
+    @Value("${jwt.expiration:900000}") // 默認15分鐘，過期後以刷新令牌換發
     private Long expiration;
 
-    // 根據密鑰字串生成簽名密鑰
-    private Key getSigningKey() {
-        byte[] keyBytes = secretString.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+    // 已驗證令牌快取的最大筆數，0 表示不快取
+    @Value("${jwt.verified-cache-size:10000}")
+    private long verifiedCacheSize;
+
+    private Key signingKey;
+
+    private JwtParser parser;
+
+    private Cache<String, Claims> verified;
+
+    /**
+     * 根據密鑰字串生成簽名密鑰，並建立可重複使用（執行緒安全）的解析器
+     */
+    @PostConstruct
+    public void init() {
+        if (secretString == null || secretString.isEmpty()) {
+            logger.error("JWT密鑰為空，請檢查配置!");
+            throw new IllegalStateException("JWT secret key is empty or null");
+        }
+        signingKey = Keys.hmacShaKeyFor(secretString.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+        verified = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheSize)
+                .expireAfter(new Expiry<String, Claims>() {
+                    @Override
+                    public long expireAfterCreate(String key, Claims claims, long currentTime) {
+                        return TimeUnit.MILLISECONDS.toNanos(
+                                Math.max(0, claims.getExpiration().getTime() - System.currentTimeMillis()));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * 驗證令牌的簽名與過期時間並取得聲明，同一個令牌只解析一次
+     * @param token JWT令牌
+     * @return 聲明（唯讀使用，快取中的物件會被多個請求共用）
+     * @throws ExpiredJwtException 令牌已過期時
+     * @throws JwtException 令牌格式或簽名無效時
+     */
+    public Claims verify(String token) {
+        String key = hash(token);
+        Claims claims = verified.getIfPresent(key);
+        if (claims != null) {
+            // 快取依過期時間移除，但移除時機可能略晚，仍以過期時間為準
+            if (claims.getExpiration().getTime() > System.currentTimeMillis()) {
+                return claims;
+            }
+            verified.invalidate(key);
+        }
+        claims = parser.parseClaimsJws(token).getBody();
+        if (claims.getExpiration() == null) {
+            throw new JwtException("JWT has no expiration");
+        }
+        verified.put(key, claims);
+        return claims;
     }
 
     /**
@@ -43,7 +128,6 @@ public class JwtUtil {
      * @return 用戶名
      */
     public String extractUsername(String token) {
-        logger.debug("從令牌中提取用戶名");
         return extractClaim(token, Claims::getSubject);
     }
 
@@ -53,7 +137,6 @@ public class JwtUtil {
      * @return 過期時間
      */
     public Date extractExpiration(String token) {
-        logger.debug("從令牌中提取過期時間");
         return extractClaim(token, Claims::getExpiration);
     }
 
@@ -64,57 +147,25 @@ public class JwtUtil {
      * @return 聲明值
      */
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
-    }
-
-    /**
-     * 提取所有聲明
-     * @param token JWT令牌
-     * @return 所有聲明
-     */
-    private Claims extractAllClaims(String token) {
-        try {
-            logger.debug("開始提取令牌中的所有聲明");
-            Claims claims = Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
-            logger.debug("令牌聲明提取成功");
-            return claims;
-        } catch (Exception e) {
-            logger.error("提取令牌聲明時發生錯誤: {}", e.getMessage(), e);
-            throw e;
-        }
-    }
-
-    /**
-     * 檢查令牌是否過期
-     * @param token JWT令牌
-     * @return 是否過期
-     */
-    private Boolean isTokenExpired(String token) {
-        try {
-            Date expiration = extractExpiration(token);
-            boolean isExpired = expiration.before(new Date());
-            logger.debug("檢查令牌是否過期: {}", isExpired);
-            return isExpired;
-        } catch (Exception e) {
-            logger.error("檢查令牌過期時發生錯誤: {}", e.getMessage(), e);
-            return true; // 默認視為過期
-        }
+        return claimsResolver.apply(verify(token));
     }
 
     /**
      * 生成令牌
-     * @param username 用戶名
+     * 用戶ID、角色、時區與令牌版本以聲明簽入令牌，驗證時直接由聲明建立 JwtPrincipal
+     * @param user 用戶
      * @return JWT令牌
      */
-    public String generateToken(String username) {
-        logger.info("開始為用戶生成令牌: {}", username);
+    public String generateToken(User user) {
+        logger.info("開始為用戶生成令牌: {}", user.getUsername());
         Map<String, Object> claims = new HashMap<>();
-        String token = createToken(claims, username);
+        claims.put(USER_ID_CLAIM, user.getId());
+        claims.put(ROLES_CLAIM, CustomUserDetailsService.parseRoles(user.getRoles()));
+        claims.put(TOKEN_VERSION_CLAIM, user.getTokenVersion() != null ? user.getTokenVersion() : 0);
+        if (user.getTimeZone() != null) {
+            claims.put(TIME_ZONE_CLAIM, user.getTimeZone());
+        }
+        String token = createToken(claims, user.getUsername());
         logger.debug("令牌生成成功，長度: {}", token.length());
         return token;
     }
@@ -126,54 +177,76 @@ public class JwtUtil {
      * @return JWT令牌
      */
     private String createToken(Map<String, Object> claims, String subject) {
-        try {
-            Date now = new Date(System.currentTimeMillis());
-            Date expiryDate = new Date(System.currentTimeMillis() + expiration);
-
-            logger.debug("創建令牌，主題: {}, 過期時間: {}", subject, expiryDate);
+        Date now = new Date(System.currentTimeMillis());
+        Date expiryDate = new Date(System.currentTimeMillis() + expiration);
 
-            if (secretString == null || secretString.isEmpty()) {
-                logger.error("JWT密鑰為空，請檢查配置!");
-                throw new IllegalStateException("JWT secret key is empty or null");
-            }
+        logger.debug("創建令牌，主題: {}, 過期時間: {}", subject, expiryDate);
 
-            return Jwts.builder()
-                    .setClaims(claims)
-                    .setSubject(subject)
-                    .setIssuedAt(now)
-                    .setExpiration(expiryDate)
-                    .signWith(getSigningKey(), SignatureAlgorithm.HS256)
-                    .compact();
-        } catch (Exception e) {
-            logger.error("創建令牌時發生錯誤: {}", e.getMessage(), e);
-            throw e;
-        }
+        return Jwts.builder()
+                .setClaims(claims)
+                .setSubject(subject)
+                .setIssuedAt(now)
+                .setExpiration(expiryDate)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
+                .compact();
     }
 
     /**
-     * 驗證令牌並提取用戶名
+     * 驗證令牌並取得聲明
      * @param token JWT令牌
-     * @return 用戶名
+     * @return 聲明；令牌為空、無效或已過期時為 null
      */
-    public String validateTokenAndGetUsername(String token) {
-        logger.debug("開始驗證令牌並提取用戶名");
+    public Claims validateTokenAndGetClaims(String token) {
         if (token == null || token.isEmpty()) {
             logger.error("令牌為空");
             return null;
         }
 
         try {
-            if (isTokenExpired(token)) {
-                logger.warn("令牌已過期");
-                return null;
-            }
-            String username = extractUsername(token);
-            logger.debug("令牌驗證成功，用戶名: {}", username);
-            return username;
-        } catch (Exception e) {
-            logger.error("令牌驗證失敗: {}", e.getMessage(), e);
+            return verify(token);
+        } catch (ExpiredJwtException e) {
+            logger.warn("令牌已過期");
+            return null;
+        } catch (JwtException | IllegalArgumentException e) {
+            logger.error("令牌驗證失敗: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 由已驗證令牌的聲明建立已認證用戶
+     * @param claims 聲明
+     * @return 已認證用戶；令牌缺少用戶ID（舊版令牌）時為 null
+     */
+    public JwtPrincipal toPrincipal(Claims claims) {
+        Number userId = claims.get(USER_ID_CLAIM, Number.class);
+        if (userId == null || claims.getSubject() == null) {
             return null;
         }
+        List<?> roles = claims.get(ROLES_CLAIM, List.class);
+        return new JwtPrincipal(userId.longValue(), claims.getSubject(),
+                roles != null ? roles.stream().map(String::valueOf).toList() : List.of(),
+                claims.get(TIME_ZONE_CLAIM, String.class));
+    }
+
+    /**
+     * 令牌簽發時的用戶令牌版本
+     * @param claims 聲明
+     * @return 令牌版本，未帶版本時為 0
+     */
+    public int tokenVersion(Claims claims) {
+        Number version = claims.get(TOKEN_VERSION_CLAIM, Number.class);
+        return version != null ? version.intValue() : 0;
+    }
+
+    /**
+     * 驗證令牌並提取用戶名
+     * @param token JWT令牌
+     * @return 用戶名；令牌為空、無效或已過期時為 null
+     */
+    public String validateTokenAndGetUsername(String token) {
+        Claims claims = validateTokenAndGetClaims(token);
+        return claims != null ? claims.getSubject() : null;
     }
 
     /**
@@ -183,10 +256,21 @@ public class JwtUtil {
      * @return 是否有效
      */
     public Boolean validateToken(String token, String username) {
-        logger.debug("驗證令牌是否對指定用戶有效: {}", username);
-        final String extractedUsername = extractUsername(token);
-        boolean isValid = (extractedUsername.equals(username) && !isTokenExpired(token));
+        String extractedUsername = validateTokenAndGetUsername(token);
+        boolean isValid = extractedUsername != null && extractedUsername.equals(username);
         logger.debug("令牌驗證結果: {}", isValid);
         return isValid;
     }
-}
\ No newline at end of file
+
+    /**
+     * 快取鍵：令牌的 SHA-256 雜湊，快取中不保存令牌本身
+     */
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.lifecheckin.backend.service;
+
+import com.lifecheckin.backend.dto.CheckInArchiveResult;
+import com.lifecheckin.backend.dto.CheckInView;
+import com.lifecheckin.backend.repository.CheckInArchiveRepository;
+import com.lifecheckin.backend.repository.CheckInRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.stream.Stream;
+
+/**
+ * 打卡記錄封存服務（預設關閉）
+ * 把超過保留期限的打卡記錄按月移出 checkin_records，寫入壓縮的封存檔（CheckInArchiveRepository），
+ * 熱資料表與索引只保留近期的記錄。每個月先完整寫入並替換封存檔，再分批刪除已封存的記錄；
+ * 中途中斷時重新執行即可，封存檔以記錄ID合併，不會產生重複。
+ * 啟用分區並設定 drop 時，分區保留期限應大於封存保留期限，否則記錄會在封存前被刪除。
+ */
+@Service
+public class CheckInArchiveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CheckInArchiveService.class);
+
+    @Value("${checkin.archive.enabled:false}")
+    private boolean enabled;
+
+    // 保留在 checkin_records 的月份數（不含本月）
+    @Value("${checkin.archive.retention-months:12}")
+    private int retentionMonths;
+
+    // 每批（每個交易）刪除的記錄數
+    @Value("${checkin.archive.delete-chunk-size:1000}")
+    private int deleteChunkSize;
+
+    @Autowired
+    private CheckInRepository checkInRepository;
+
+    @Autowired
+    private CheckInArchiveRepository checkInArchiveRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * 每天封存超過保留期限的月份
+     */
+    @Scheduled(cron = "${checkin.archive.cron:0 0 1 * * *}")
+    public void runScheduled() {
+        if (enabled) {
+            archive(LocalDate.now());
+        }
+    }
+
+    /**
+     * 封存保留期限以前的所有月份
+     * @param today 今天的日期
+     * @return 封存結果；未啟用時不做任何事
+     */
+    public synchronized CheckInArchiveResult archive(LocalDate today) {
+        CheckInArchiveResult result = new CheckInArchiveResult();
+        if (!enabled) {
+            return result;
+        }
+        result.setEnabled(true);
+        long start = System.nanoTime();
+
+        YearMonth cutoff = YearMonth.from(today).minusMonths(retentionMonths);
+        LocalDate oldest = checkInRepository.findOldestCheckinDate();
+        if (oldest != null) {
+            for (YearMonth month = YearMonth.from(oldest); month.isBefore(cutoff); month = month.plusMonths(1)) {
+                long archived = archiveMonth(month);
+                if (archived > 0) {
+                    result.getArchivedMonths().add(month.toString());
+                    result.setArchivedRows(result.getArchivedRows() + archived);
+                }
+            }
+        }
+
+        result.setElapsedMillis((System.nanoTime() - start) / 1_000_000);
+        logger.info("打卡記錄封存完成，月份: {}, 記錄數: {}, 耗時: {}ms",
+                result.getArchivedMonths(), result.getArchivedRows(), result.getElapsedMillis());
+        return result;
+    }
+
+    /**
+     * 封存一個月份：以串流讀取並寫入封存檔，替換成功後才刪除 checkin_records 中的記錄
+     * 要刪除的ID由替換後的封存檔依區塊讀回，每 deleteChunkSize 筆一個交易，不在記憶體中保留整個月份的ID；
+     * 封存檔中先前已封存的記錄早已刪除，再次刪除不影響任何資料列
+     * @return 移出的記錄數
+     */
+    private long archiveMonth(YearMonth month) {
+        LocalDate from = month.atDay(1);
+        LocalDate to = month.plusMonths(1).atDay(1);
+        long[] added = new long[1];
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        try (CheckInArchiveRepository.MonthWriter writer = checkInArchiveRepository.openMonth(month)) {
+            readOnly.executeWithoutResult(status -> {
+                try (Stream<CheckInView> rows = checkInRepository.streamViewsByCheckinDateRange(from, to)) {
+                    rows.forEach(row -> {
+                        try {
+                            writer.add(row);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        added[0]++;
+                    });
+                }
+            });
+            if (added[0] == 0) {
+                return 0;
+            }
+            long total = writer.commit();
+            logger.info("已寫入 {} 封存檔，新增 {} 筆，封存檔共 {} 筆", month, added[0], total);
+        } catch (IOException e) {
+            throw new UncheckedIOException("無法寫入 " + month + " 的封存檔", e);
+        }
+
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        checkInArchiveRepository.forEachIdChunk(month, deleteChunkSize,
+                chunk -> tx.executeWithoutResult(status -> checkInRepository.deleteArchived(chunk, from, to)));
+        return added[0];
+    }
+}
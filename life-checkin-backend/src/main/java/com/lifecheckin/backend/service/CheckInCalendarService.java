@@ -0,0 +1,102 @@
+package com.lifecheckin.backend.service;
+
+import com.lifecheckin.backend.dto.CheckInCalendarView;
+import com.lifecheckin.backend.exception.InvalidInputException;
+import com.lifecheckin.backend.model.CheckInCalendar;
+import com.lifecheckin.backend.repository.CheckInArchiveRepository;
+import com.lifecheckin.backend.repository.CheckInCalendarRepository;
+import com.lifecheckin.backend.repository.CheckInRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * 打卡日曆服務
+ * 每位用戶每年一列點陣圖，打卡時以單一語句設定當天的位元；
+ * 讀取時只讀這一列，尚未建立（例如功能上線前的年份）時由該年的打卡記錄重建一次。
+ */
+@Service
+public class CheckInCalendarService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CheckInCalendarService.class);
+
+    private static final int MIN_YEAR = 1900;
+    private static final int BITMAP_BYTES = 46;
+
+    @Autowired
+    private CheckInCalendarRepository checkInCalendarRepository;
+
+    @Autowired
+    private CheckInRepository checkInRepository;
+
+    @Autowired
+    private CheckInArchiveRepository checkInArchiveRepository;
+
+    /**
+     * 獲取用戶一年的打卡日曆
+     * @param userId 用戶ID
+     * @param year 年份
+     * @return 打卡日曆
+     */
+    @Transactional
+    public CheckInCalendarView getCalendar(Long userId, int year) {
+        int currentYear = Year.now().getValue();
+        if (year < MIN_YEAR || year > currentYear) {
+            throw new InvalidInputException("Year must be between " + MIN_YEAR + " and " + currentYear);
+        }
+
+        long[] words = checkInCalendarRepository.findById(new CheckInCalendar.Key(userId, year))
+                .map(CheckInCalendar::getWords)
+                .orElseGet(() -> rebuild(userId, year));
+        return toView(year, words);
+    }
+
+    /**
+     * 由打卡記錄（含已封存的記錄）重建用戶一年的日曆並保存
+     */
+    private long[] rebuild(Long userId, int year) {
+        long[] words = new long[CheckInCalendar.WORDS];
+        LocalDate first = LocalDate.of(year, 1, 1);
+        LocalDate last = LocalDate.of(year, 12, 31);
+        List<LocalDate> dates = new ArrayList<>(checkInRepository.findCheckinDatesBetween(userId, first, last));
+        dates.addAll(checkInArchiveRepository.findCheckinDatesBetween(userId, first, last));
+        for (LocalDate date : dates) {
+            int bit = date.getDayOfYear() - 1;
+            words[bit >>> 6] |= 1L << bit;
+        }
+        // 以 OR 合併，與同時進行的打卡互不覆蓋
+        checkInCalendarRepository.mergeDays(userId, year, words);
+        logger.debug("已重建打卡日曆，用戶ID: {}, 年份: {}, 打卡天數: {}", userId, year, dates.size());
+        return words;
+    }
+
+    private CheckInCalendarView toView(int year, long[] words) {
+        int daysInYear = Year.of(year).length();
+        byte[] bitmap = new byte[BITMAP_BYTES];
+        List<CheckInCalendarView.Run> runs = new ArrayList<>();
+        int checkInDays = 0;
+        int runStart = -1;
+        for (int bit = 0; bit <= daysInYear; bit++) {
+            boolean set = bit < daysInYear && (words[bit >>> 6] & (1L << bit)) != 0;
+            if (set) {
+                bitmap[bit >>> 3] |= (byte) (1 << (bit & 7));
+                checkInDays++;
+                if (runStart < 0) {
+                    runStart = bit;
+                }
+            } else if (runStart >= 0) {
+                runs.add(new CheckInCalendarView.Run(Year.of(year).atDay(runStart + 1), bit - runStart));
+                runStart = -1;
+            }
+        }
+        return new CheckInCalendarView(year, checkInDays, Base64.getEncoder().encodeToString(bitmap), runs);
+    }
+}
@@ -0,0 +1,66 @@
+package com.lifecheckin.backend.service;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+
+/**
+ * 打卡日期的時區換算
+ * 打卡時間以伺服器時區的 LocalDateTime 保存；用戶設定時區後，打卡日期與「今天」、「昨天」的邊界改依用戶時區計算，
+ * 再換回伺服器時區的時間。查詢時以半開區間 [開始, 結束) 直接比較 checkin_time，不在欄位上套用函數，仍可使用索引。
+ */
+public final class CheckInDays {
+
+    private CheckInDays() {
+    }
+
+    /**
+     * 解析用戶時區
+     * @param timeZone IANA 時區ID（例如 Asia/Taipei），未設定時使用伺服器時區
+     * @return 時區
+     * @throws DateTimeException 時區ID無效時
+     */
+    public static ZoneId zoneOf(String timeZone) {
+        return timeZone == null || timeZone.isBlank() ? ZoneId.systemDefault() : ZoneId.of(timeZone);
+    }
+
+    /**
+     * 伺服器時間在用戶時區中的日期
+     * @param serverTime 伺服器時區的時間
+     * @param zone 用戶時區
+     * @return 用戶時區的日期
+     */
+    public static LocalDate dayOf(LocalDateTime serverTime, ZoneId zone) {
+        return serverTime.atZone(ZoneId.systemDefault()).withZoneSameInstant(zone).toLocalDate();
+    }
+
+    /**
+     * 用戶時區中某一天的開始時間，換算為伺服器時區的時間
+     * @param day 用戶時區的日期
+     * @param zone 用戶時區
+     * @return 伺服器時區的時間
+     */
+    public static LocalDateTime startOf(LocalDate day, ZoneId zone) {
+        return day.atStartOfDay(zone).withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+    }
+
+    /**
+     * 所有時區中最早的「昨天開始時間」：最後打卡早於此時間的連續打卡在任何時區都已中斷
+     * @param now 伺服器時區的目前時間
+     * @param timeZones 用戶使用的時區ID（null 代表伺服器時區）
+     * @return 伺服器時區的時間
+     */
+    public static LocalDateTime earliestStartOfYesterday(LocalDateTime now, Collection<String> timeZones) {
+        LocalDateTime earliest = startOf(now.toLocalDate().minusDays(1), ZoneId.systemDefault());
+        for (String timeZone : timeZones) {
+            ZoneId zone = zoneOf(timeZone);
+            LocalDateTime start = startOf(dayOf(now, zone).minusDays(1), zone);
+            if (start.isBefore(earliest)) {
+                earliest = start;
+            }
+        }
+        return earliest;
+    }
+}
@@ -0,0 +1,226 @@
+package com.lifecheckin.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lifecheckin.backend.dto.CheckInView;
+import com.lifecheckin.backend.exception.InvalidInputException;
+import com.lifecheckin.backend.exception.ResourceNotFoundException;
+import com.lifecheckin.backend.repository.CheckInArchiveRepository;
+import com.lifecheckin.backend.repository.CheckInRepository;
+import com.lifecheckin.backend.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.YearMonth;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 個人打卡資料匯出服務
+ * 先依月份輸出封存檔中的記錄，再以串流逐筆讀取 checkin_records，讀到一筆就寫入 gzip 壓縮的輸出串流；
+ * 不建立完整的記錄列表，記憶體用量與用戶的記錄數無關。
+ */
+@Service
+public class CheckInExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CheckInExportService.class);
+
+    private static final String CSV_HEADER = "id,checkinTime,checkinDate,note,location,status";
+
+    /**
+     * 匯出格式
+     */
+    public enum Format {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String mediaType;
+        private final String extension;
+
+        Format(String mediaType, String extension) {
+            this.mediaType = mediaType;
+            this.extension = extension;
+        }
+
+        public String getMediaType() {
+            return mediaType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        /**
+         * 解析請求參數中的格式（不分大小寫）
+         * @param value csv 或 ndjson
+         * @return 匯出格式
+         * @throws InvalidInputException 格式不支援時
+         */
+        public static Format parse(String value) {
+            for (Format format : values()) {
+                if (format.name().equalsIgnoreCase(value)) {
+                    return format;
+                }
+            }
+            throw new InvalidInputException("Unsupported export format: " + value + " (expected csv or ndjson)");
+        }
+    }
+
+    @Autowired
+    private CheckInRepository checkInRepository;
+
+    @Autowired
+    private CheckInArchiveRepository checkInArchiveRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * 確認用戶存在，應在開始寫入回應前呼叫，不存在時才能回傳 404
+     * @param userId 用戶ID
+     * @throws ResourceNotFoundException 用戶不存在時
+     */
+    public void requireUser(Long userId) {
+        if (!userRepository.existsById(userId)) {
+            throw new ResourceNotFoundException("User not found with id: " + userId);
+        }
+    }
+
+    /**
+     * 以 gzip 壓縮輸出用戶的所有打卡記錄（含封存的記錄），按時間排序
+     * @param userId 用戶ID
+     * @param format 匯出格式
+     * @param out 輸出串流（寫入壓縮後的內容，不會關閉）
+     */
+    @Transactional(readOnly = true)
+    public void exportUserCheckIns(Long userId, Format format, OutputStream out) {
+        long start = System.nanoTime();
+        long[] rows = {0};
+        try {
+            GZIPOutputStream gzip = new GZIPOutputStream(out, 8192);
+            Writer writer = new BufferedWriter(new OutputStreamWriter(gzip, StandardCharsets.UTF_8), 8192);
+            if (format == Format.CSV) {
+                writer.write(CSV_HEADER);
+                writer.write('\n');
+            }
+
+            // 封存檔一次只解壓縮一個月份的區塊
+            for (YearMonth month : checkInArchiveRepository.archivedMonths()) {
+                for (CheckInView row : checkInArchiveRepository.findByUserIdInMonth(userId, month)) {
+                    writeRow(writer, format, row);
+                    rows[0]++;
+                }
+            }
+
+            ArchivedMonthIds archived = new ArchivedMonthIds(userId);
+            try (Stream<CheckInView> checkIns = checkInRepository.streamViewsByUserId(userId)) {
+                checkIns.forEach(row -> {
+                    if (archived.contains(row)) {
+                        return;
+                    }
+                    try {
+                        writeRow(writer, format, row);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    rows[0]++;
+                });
+            }
+
+            writer.flush();
+            gzip.finish();
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        logger.info("打卡記錄已匯出，用戶ID: {}, 格式: {}, 筆數: {}, 耗時: {}ms",
+                userId, format, rows[0], (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void writeRow(Writer writer, Format format, CheckInView row) throws IOException {
+        if (format == Format.NDJSON) {
+            writer.write(objectMapper.writeValueAsString(row));
+        } else {
+            writer.write(String.valueOf(row.getId()));
+            writer.write(',');
+            writer.write(row.getCheckinTime().toString());
+            writer.write(',');
+            writer.write(row.getCheckinDate() != null ? row.getCheckinDate().toString() : "");
+            writer.write(',');
+            writer.write(csvField(row.getNote()));
+            writer.write(',');
+            writer.write(csvField(row.getLocation()));
+            writer.write(',');
+            writer.write(row.getStatus() != null ? row.getStatus().name() : "");
+        }
+        writer.write('\n');
+    }
+
+    /**
+     * 含逗號、引號或換行的欄位以雙引號包住，引號以兩個雙引號表示（與匯入的 CSV 格式相同）
+     */
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * 封存後刪除前中斷時，已封存月份的記錄可能仍在 checkin_records 中，已由封存檔輸出的不再重複輸出。
+     * 記錄按時間排序，只保留目前月份的封存記錄ID。
+     */
+    private final class ArchivedMonthIds {
+        private final Long userId;
+        private YearMonth month;
+        private final Set<Long> ids = new HashSet<>();
+
+        private ArchivedMonthIds(Long userId) {
+            this.userId = userId;
+        }
+
+        boolean contains(CheckInView row) {
+            YearMonth rowMonth = YearMonth.from(row.getCheckinDate());
+            if (!checkInArchiveRepository.isArchived(rowMonth)) {
+                return false;
+            }
+            if (!rowMonth.equals(month)) {
+                month = rowMonth;
+                ids.clear();
+                for (CheckInView archived : checkInArchiveRepository.findByUserIdInMonth(userId, rowMonth)) {
+                    ids.add(archived.getId());
+                }
+            }
+            return ids.contains(row.getId());
+        }
+    }
+
+    /**
+     * 下載檔名
+     * @param username 用戶名
+     * @param format 匯出格式
+     * @return 檔名，例如 checkins-alice.csv
+     */
+    public static String fileName(String username, Format format) {
+        return "checkins-" + username.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9._-]", "_") + "."
+                + format.getExtension();
+    }
+}
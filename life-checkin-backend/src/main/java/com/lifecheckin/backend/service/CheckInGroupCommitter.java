@@ -0,0 +1,326 @@
+package com.lifecheckin.backend.service;
+
+import com.lifecheckin.backend.exception.CheckInBusyException;
+import com.lifecheckin.backend.exception.DuplicateCheckInException;
+import com.lifecheckin.backend.exception.InvalidInputException;
+import com.lifecheckin.backend.model.CheckIn;
+import com.lifecheckin.backend.model.User;
+import com.lifecheckin.backend.repository.CheckInCalendarRepository;
+import com.lifecheckin.backend.repository.CheckInRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * 打卡群組提交器
+ * 將尖峰時段同時湧入的打卡請求排入佇列，由單一寫入執行緒按批次合併寫入，
+ * 每批只開啟並提交一次交易；每個呼叫者仍會拿到屬於自己的成功或失敗結果。
+ */
+@Service
+public class CheckInGroupCommitter {
+
+    private static final Logger logger = LoggerFactory.getLogger(CheckInGroupCommitter.class);
+
+    @Value("${checkin.group-commit.enabled:false}")
+    private boolean enabled;
+
+    @Value("${checkin.group-commit.batch-size:200}")
+    private int batchSize;
+
+    @Value("${checkin.group-commit.linger-ms:5}")
+    private long lingerMs;
+
+    @Value("${checkin.group-commit.queue-capacity:10000}")
+    private int queueCapacity;
+
+    // 呼叫者等待所屬批次寫入完成的最長時間
+    @Value("${checkin.group-commit.wait-timeout-ms:5000}")
+    private long waitTimeoutMs;
+
+    @Autowired
+    private CheckInRepository checkInRepository;
+
+    @Autowired
+    private CheckInService checkInService;
+
+    @Autowired
+    private DailyCheckInBitmap dailyCheckInBitmap;
+
+    @Autowired
+    private DailyCheckInStatsService dailyCheckInStatsService;
+
+    @Autowired
+    private CheckInCalendarRepository checkInCalendarRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private BlockingQueue<PendingCheckIn> queue;
+    private TransactionTemplate transactionTemplate;
+    private Thread worker;
+    private volatile boolean running;
+
+    /**
+     * 啟動批次寫入執行緒（僅在啟用群組提交時）
+     */
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        running = true;
+        worker = new Thread(this::runLoop, "checkin-group-commit");
+        worker.setDaemon(true);
+        worker.start();
+        logger.info("打卡群組提交已啟用，批次大小: {}, 等待時間: {}ms", batchSize, lingerMs);
+    }
+
+    /**
+     * 停止批次寫入執行緒，並寫完佇列中剩餘的請求
+     * 寫入執行緒結束（或等待逾時）後仍留在佇列中的請求改用單筆交易寫入，每個呼叫者都會拿到結果
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (!enabled) {
+            return;
+        }
+        running = false;
+        worker.interrupt();
+        worker.join(TimeUnit.SECONDS.toMillis(10));
+
+        List<PendingCheckIn> leftovers = new ArrayList<>();
+        queue.drainTo(leftovers);
+        if (!leftovers.isEmpty()) {
+            logger.warn("打卡群組提交已停止，佇列中剩餘 {} 筆改用單筆寫入", leftovers.size());
+            for (PendingCheckIn pending : leftovers) {
+                writeSingle(pending);
+            }
+        }
+    }
+
+    /**
+     * 是否啟用群組提交模式
+     * @return 是否啟用
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 提交打卡請求並等待所屬批次寫入完成
+     * @param checkIn 打卡記錄對象
+     * @return 創建的打卡記錄
+     */
+    public CheckIn submitAndWait(CheckIn checkIn) {
+        return submitAndWait(checkIn, null);
+    }
+
+    /**
+     * 提交打卡請求並等待所屬批次寫入完成，onCreated 在寫入這筆打卡的交易中執行
+     * @param checkIn 打卡記錄對象
+     * @param onCreated 插入成功後在交易內執行，null 表示不需要；拋出異常時整批改為逐筆寫入
+     * @return 創建的打卡記錄
+     */
+    public CheckIn submitAndWait(CheckIn checkIn, Consumer<CheckIn> onCreated) {
+        PendingCheckIn pending = new PendingCheckIn(checkIn, onCreated);
+        if (!running || !queue.offer(pending)) {
+            // 佇列已滿或正在關閉，退回單筆交易路徑
+            logger.warn("打卡群組提交佇列不可用，改用單筆寫入");
+            return checkInService.createCheckIn(checkIn, onCreated);
+        }
+        if (!running && queue.remove(pending)) {
+            // 放入佇列時寫入執行緒正好停止，沒有人會處理這筆請求
+            return checkInService.createCheckIn(checkIn, onCreated);
+        }
+
+        try {
+            return pending.future.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            if (queue.remove(pending)) {
+                // 尚未被取出寫入，改用單筆交易路徑
+                logger.warn("打卡群組提交等待超過 {}ms，改用單筆寫入", waitTimeoutMs);
+                return checkInService.createCheckIn(checkIn, onCreated);
+            }
+            // 已在寫入中的批次裡，結果未知
+            logger.warn("打卡群組提交等待超過 {}ms，批次仍在寫入中", waitTimeoutMs);
+            throw new CheckInBusyException("Check-in is taking longer than expected, please retry later");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Check-in failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for check-in", e);
+        }
+    }
+
+    /**
+     * 寫入執行緒主迴圈：收集一批請求（達到批次大小或等待時間到期），然後一次寫入
+     */
+    private void runLoop() {
+        List<PendingCheckIn> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingCheckIn first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMs);
+                while (batch.size() < batchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingCheckIn next = remaining > 0
+                            ? queue.poll(remaining, TimeUnit.NANOSECONDS)
+                            : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // 關閉時被中斷：把剩餘請求一併帶走
+                queue.drainTo(batch, batchSize - batch.size());
+            }
+
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+    }
+
+    /**
+     * 以單一交易寫入一批打卡請求，提交後再通知各呼叫者
+     * @param batch 待寫入的請求
+     */
+    private void flush(List<PendingCheckIn> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> writeBatch(batch));
+        } catch (RuntimeException e) {
+            // 整批失敗時逐筆重試，讓每個呼叫者都拿到自己的結果
+            logger.warn("打卡批次寫入失敗，改為逐筆寫入，批次大小: {}, 原因: {}", batch.size(), e.getMessage());
+            for (PendingCheckIn pending : batch) {
+                pending.checkIn.setId(null);
+                writeSingle(pending);
+            }
+            return;
+        }
+
+        for (PendingCheckIn pending : batch) {
+            if (pending.error != null) {
+                pending.future.completeExceptionally(pending.error);
+            } else {
+                pending.future.complete(pending.checkIn);
+            }
+        }
+        logger.debug("打卡批次已提交，批次大小: {}", batch.size());
+    }
+
+    /**
+     * 以單筆交易寫入一個請求並通知呼叫者
+     */
+    private void writeSingle(PendingCheckIn pending) {
+        try {
+            pending.future.complete(checkInService.createCheckIn(pending.checkIn, pending.onCreated));
+        } catch (RuntimeException e) {
+            pending.future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * 批次寫入：以「不存在才插入」批次寫入打卡記錄，再以單一條件式 UPDATE 更新整批用戶的連續打卡天數
+     * 不存在的用戶會因外鍵約束使整批失敗，改由逐筆寫入回報
+     * @param batch 待寫入的請求
+     */
+    private void writeBatch(List<PendingCheckIn> batch) {
+        LocalDateTime now = LocalDateTime.now();
+
+        List<PendingCheckIn> toInsert = new ArrayList<>(batch.size());
+        Set<Long> seen = new HashSet<>();
+        for (PendingCheckIn pending : batch) {
+            User user = pending.checkIn.getUser();
+            if (user == null || user.getId() == null) {
+                pending.error = new InvalidInputException("User information is required for check-in");
+                continue;
+            }
+
+            // 同一批次內的重複請求直接視為重複，不送到資料庫
+            if (!seen.add(user.getId())) {
+                pending.error = new DuplicateCheckInException("You have already checked in today");
+                continue;
+            }
+
+            pending.checkIn.setCheckinTime(now);
+            pending.checkIn.setCheckinDate(CheckInDays.dayOf(now, CheckInService.zoneOf(user)));
+            toInsert.add(pending);
+        }
+
+        // 與資料庫中今日已有打卡衝突的記錄由唯一索引擋下
+        boolean[] inserted = checkInRepository.insertAllIfAbsent(
+                toInsert.stream().map(pending -> pending.checkIn).toList());
+
+        // 依時區分組，同一時區的用戶「今天」的邊界相同，可以一起更新
+        Map<ZoneId, List<Long>> checkedInUserIds = new HashMap<>();
+        for (int i = 0; i < toInsert.size(); i++) {
+            PendingCheckIn pending = toInsert.get(i);
+            if (inserted[i]) {
+                if (pending.onCreated != null) {
+                    pending.onCreated.accept(pending.checkIn);
+                }
+                checkedInUserIds.computeIfAbsent(CheckInService.zoneOf(pending.checkIn.getUser()),
+                        zone -> new ArrayList<>()).add(pending.checkIn.getUser().getId());
+                // 交易提交後才記入今日打卡點陣圖
+                dailyCheckInBitmap.markCheckedIn(pending.checkIn.getUser().getId(), pending.checkIn.getCheckinDate());
+                dailyCheckInStatsService.record(pending.checkIn.getCheckinDate(), pending.checkIn.getStatus(), 1);
+            } else {
+                pending.error = new DuplicateCheckInException("You have already checked in today");
+            }
+        }
+
+        checkedInUserIds.forEach((zone, userIds) -> {
+            checkInService.updateUserCheckInStatus(userIds, now, zone);
+            checkInCalendarRepository.markDay(userIds, CheckInDays.dayOf(now, zone));
+        });
+    }
+
+    /**
+     * 佇列中等待寫入的打卡請求
+     */
+    private static final class PendingCheckIn {
+        private final CheckIn checkIn;
+        private final Consumer<CheckIn> onCreated;
+        private final CompletableFuture<CheckIn> future = new CompletableFuture<>();
+        private RuntimeException error;
+
+        private PendingCheckIn(CheckIn checkIn, Consumer<CheckIn> onCreated) {
+            this.checkIn = checkIn;
+            this.onCreated = onCreated;
+        }
+    }
+}
@@ -0,0 +1,414 @@
+package com.lifecheckin.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lifecheckin.backend.dto.CheckInImportResult;
+import com.lifecheckin.backend.exception.InvalidInputException;
+import com.lifecheckin.backend.model.CheckIn;
+import com.lifecheckin.backend.model.User;
+import com.lifecheckin.backend.repository.CheckInArchiveRepository;
+import com.lifecheckin.backend.repository.CheckInCalendarRepository;
+import com.lifecheckin.backend.repository.CheckInRepository;
+import com.lifecheckin.backend.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * 歷史打卡匯入服務
+ * 逐行解析 NDJSON 或 CSV，累積成大批次後批次解析用戶名並寫入，
+ * 最後對每位受影響的用戶重新計算一次連續打卡天數。整份輸入不會一次載入記憶體。
+ */
+@Service
+public class CheckInImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CheckInImportService.class);
+
+    private static final int USERNAME_LOOKUP_CHUNK = 1000;
+    private static final int USER_ID_CHUNK = 1000;
+
+    /**
+     * 匯入資料格式
+     */
+    public enum Format {
+        NDJSON, CSV
+    }
+
+    @Value("${checkin.import.batch-size:5000}")
+    private int batchSize;
+
+    @Value("${checkin.import.max-reported-rejects:1000}")
+    private int maxReportedRejects;
+
+    @Autowired
+    private CheckInRepository checkInRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private DailyCheckInBitmap dailyCheckInBitmap;
+
+    @Autowired
+    private DailyCheckInStatsService dailyCheckInStatsService;
+
+    @Autowired
+    private StreakLeaderboard streakLeaderboard;
+
+    @Autowired
+    private StreakRecomputeService streakRecomputeService;
+
+    @Autowired
+    private CheckInCalendarRepository checkInCalendarRepository;
+
+    @Autowired
+    private CheckInArchiveRepository checkInArchiveRepository;
+
+    /**
+     * 匯入歷史打卡記錄
+     * 每一批在自己的交易中寫入；同一用戶同一天已有記錄的資料列會被拒絕，因此中斷後可直接重新匯入
+     * @param input 輸入內容（NDJSON 每行一個物件；CSV 第一行為欄位名稱）
+     * @param format 資料格式
+     * @return 匯入結果
+     */
+    public CheckInImportResult importCheckIns(Reader input, Format format) {
+        logger.info("開始匯入歷史打卡記錄，格式: {}", format);
+        ImportRun run = new ImportRun();
+        long start = System.nanoTime();
+
+        try (BufferedReader reader = new BufferedReader(input)) {
+            List<String> header = null;
+            List<ImportRow> pending = new ArrayList<>(batchSize);
+            String line;
+            long lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (format == Format.CSV && header == null) {
+                    header = parseCsvHeader(line);
+                    continue;
+                }
+
+                run.result.setTotalRows(run.result.getTotalRows() + 1);
+                try {
+                    pending.add(format == Format.CSV
+                            ? parseCsvRow(lineNumber, line, header)
+                            : parseJsonRow(lineNumber, line));
+                } catch (InvalidInputException e) {
+                    run.reject(lineNumber, e.getMessage());
+                }
+
+                if (pending.size() >= batchSize) {
+                    writeBatch(run, pending);
+                    pending = new ArrayList<>(batchSize);
+                }
+            }
+            writeBatch(run, pending);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read import data", e);
+        }
+
+        // 每位受影響的用戶只重新計算一次
+        if (!run.affectedUserIds.isEmpty()) {
+            // 重新計算連續打卡天數並更新排行榜；打卡日曆直接刪除，下次讀取時由打卡記錄重建
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                streakRecomputeService.recompute(run.affectedUserIds);
+                List<Long> userIds = new ArrayList<>(run.affectedUserIds);
+                for (int from = 0; from < userIds.size(); from += USER_ID_CHUNK) {
+                    List<Long> chunk = userIds.subList(from, Math.min(from + USER_ID_CHUNK, userIds.size()));
+                    checkInCalendarRepository.deleteByUserIdIn(chunk);
+                    streakLeaderboard.update(userRepository.findStreaksByIdIn(chunk));
+                }
+            });
+        }
+
+        CheckInImportResult result = run.result;
+        long elapsedNanos = System.nanoTime() - start;
+        result.setAffectedUsers(run.affectedUserIds.size());
+        result.setElapsedMillis(elapsedNanos / 1_000_000);
+        result.setRowsPerSecond(elapsedNanos > 0 ? result.getTotalRows() / (elapsedNanos / 1_000_000_000.0) : 0);
+        logger.info("歷史打卡匯入完成，總筆數: {}, 成功: {}, 拒絕: {}, 受影響用戶: {}, 每秒筆數: {}",
+                result.getTotalRows(), result.getImportedRows(), result.getRejectedRows(),
+                result.getAffectedUsers(), Math.round(result.getRowsPerSecond()));
+        return result;
+    }
+
+    /**
+     * 寫入一批已解析的資料列：先批次解析用戶名，再以單一交易寫入
+     * @param run 本次匯入的狀態
+     * @param rows 待寫入的資料列
+     */
+    private void writeBatch(ImportRun run, List<ImportRow> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        resolveUsernames(run, rows);
+
+        List<ImportRow> accepted = new ArrayList<>(rows.size());
+        List<CheckIn> checkIns = new ArrayList<>(rows.size());
+        for (ImportRow row : rows) {
+            Long userId = run.userIds.get(row.username);
+            if (userId == null) {
+                run.reject(row.line, "Unknown username: " + row.username);
+                continue;
+            }
+            User user = new User();
+            user.setId(userId);
+            user.setTimeZone(run.timeZones.get(userId));
+            CheckIn checkIn = new CheckIn();
+            checkIn.setUser(user);
+            checkIn.setCheckinTime(row.checkinTime);
+            checkIn.setCheckinDate(CheckInDays.dayOf(row.checkinTime, CheckInService.zoneOf(user)));
+            // 封存檔中的記錄不受唯一索引保護，無法判斷是否重複
+            if (checkInArchiveRepository.isArchived(YearMonth.from(checkIn.getCheckinDate()))) {
+                run.reject(row.line, "Check-ins of " + YearMonth.from(checkIn.getCheckinDate()) + " are archived");
+                continue;
+            }
+            checkIn.setNote(row.note);
+            checkIn.setLocation(row.location);
+            checkIn.setStatus(row.status);
+            accepted.add(row);
+            checkIns.add(checkIn);
+        }
+        if (checkIns.isEmpty()) {
+            return;
+        }
+
+        boolean[] inserted = new TransactionTemplate(transactionManager).execute(
+                status -> checkInRepository.importAll(checkIns));
+        for (int i = 0; i < checkIns.size(); i++) {
+            if (inserted[i]) {
+                run.result.setImportedRows(run.result.getImportedRows() + 1);
+                run.affectedUserIds.add(checkIns.get(i).getUser().getId());
+                // 匯入的資料可能包含今天的打卡
+                CheckIn imported = checkIns.get(i);
+                dailyCheckInBitmap.markCheckedIn(imported.getUser().getId(), imported.getCheckinDate());
+                dailyCheckInStatsService.record(imported.getCheckinDate(), imported.getStatus(), 1);
+            } else {
+                ImportRow row = accepted.get(i);
+                run.reject(row.line, "Already checked in on " + checkIns.get(i).getCheckinDate());
+            }
+        }
+        logger.debug("歷史打卡批次已寫入，批次大小: {}", checkIns.size());
+    }
+
+    /**
+     * 以批次查詢解析尚未見過的用戶名，結果在整次匯入中重複使用
+     */
+    private void resolveUsernames(ImportRun run, List<ImportRow> rows) {
+        Set<String> unresolved = new HashSet<>();
+        for (ImportRow row : rows) {
+            if (!run.userIds.containsKey(row.username)) {
+                unresolved.add(row.username);
+            }
+        }
+
+        List<String> names = new ArrayList<>(unresolved);
+        for (int from = 0; from < names.size(); from += USERNAME_LOOKUP_CHUNK) {
+            List<String> chunk = names.subList(from, Math.min(from + USERNAME_LOOKUP_CHUNK, names.size()));
+            for (Object[] match : userRepository.findIdsByUsernameIn(chunk)) {
+                run.userIds.put((String) match[0], (Long) match[1]);
+                if (match[2] != null) {
+                    run.timeZones.put((Long) match[1], (String) match[2]);
+                }
+                unresolved.remove((String) match[0]);
+            }
+        }
+        // 不存在的用戶名也記下來，避免之後的批次重複查詢
+        for (String name : unresolved) {
+            run.userIds.put(name, null);
+        }
+    }
+
+    private ImportRow parseJsonRow(long lineNumber, String line) {
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(line);
+        } catch (JsonProcessingException e) {
+            throw new InvalidInputException("Malformed JSON");
+        }
+        if (node == null || !node.isObject()) {
+            throw new InvalidInputException("Expected a JSON object");
+        }
+        return toRow(lineNumber, field -> {
+            JsonNode value = node.get(field);
+            return value == null || value.isNull() ? null : value.asText();
+        });
+    }
+
+    private List<String> parseCsvHeader(String line) {
+        List<String> header = new ArrayList<>();
+        for (String column : splitCsv(line)) {
+            header.add(column == null ? "" : column.trim());
+        }
+        if (!header.contains("username") || !header.contains("checkinTime")) {
+            throw new InvalidInputException("CSV header must contain username and checkinTime columns");
+        }
+        return header;
+    }
+
+    private ImportRow parseCsvRow(long lineNumber, String line, List<String> header) {
+        List<String> values = splitCsv(line);
+        if (values.size() != header.size()) {
+            throw new InvalidInputException("Expected " + header.size() + " columns but found " + values.size());
+        }
+        return toRow(lineNumber, field -> {
+            int index = header.indexOf(field);
+            return index < 0 ? null : values.get(index);
+        });
+    }
+
+    /**
+     * 拆分一行 CSV，支援以雙引號包住含逗號的欄位及以兩個雙引號表示的引號；空欄位視為未提供
+     */
+    private static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        boolean wasQuoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+                wasQuoted = true;
+            } else if (c == ',') {
+                fields.add(current.length() == 0 && !wasQuoted ? null : current.toString());
+                current.setLength(0);
+                wasQuoted = false;
+            } else {
+                current.append(c);
+            }
+        }
+        if (quoted) {
+            throw new InvalidInputException("Unterminated quoted field");
+        }
+        fields.add(current.length() == 0 && !wasQuoted ? null : current.toString());
+        return fields;
+    }
+
+    /**
+     * 驗證並轉換一列資料
+     * @param lineNumber 行號
+     * @param field 依欄位名稱取值
+     * @return 解析後的資料列
+     */
+    private ImportRow toRow(long lineNumber, Function<String, String> field) {
+        String username = field.apply("username");
+        if (username == null || username.isBlank()) {
+            throw new InvalidInputException("username is required");
+        }
+
+        String time = field.apply("checkinTime");
+        if (time == null || time.isBlank()) {
+            throw new InvalidInputException("checkinTime is required");
+        }
+        LocalDateTime checkinTime;
+        try {
+            // 同時接受 ISO 格式與以空白分隔日期時間的格式
+            checkinTime = LocalDateTime.parse(time.trim().replace(' ', 'T'));
+        } catch (DateTimeParseException e) {
+            throw new InvalidInputException("Invalid checkinTime: " + time);
+        }
+        if (checkinTime.isAfter(LocalDateTime.now())) {
+            throw new InvalidInputException("checkinTime is in the future: " + time);
+        }
+
+        String note = field.apply("note");
+        String location = field.apply("location");
+        if ((note != null && note.length() > 255) || (location != null && location.length() > 255)) {
+            throw new InvalidInputException("note and location must be at most 255 characters");
+        }
+
+        CheckIn.CheckInStatus status = CheckIn.CheckInStatus.NORMAL;
+        String statusValue = field.apply("status");
+        if (statusValue != null && !statusValue.isBlank()) {
+            try {
+                status = CheckIn.CheckInStatus.valueOf(statusValue.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new InvalidInputException("Invalid status: " + statusValue);
+            }
+        }
+
+        return new ImportRow(lineNumber, username.trim(), checkinTime, note, location, status);
+    }
+
+    /**
+     * 一次匯入過程中的累計狀態
+     */
+    private final class ImportRun {
+        private final CheckInImportResult result = new CheckInImportResult();
+        // 用戶名對應的用戶ID，不存在的用戶名對應 null
+        private final Map<String, Long> userIds = new HashMap<>();
+        // 有設定時區的用戶ID對應的時區，用來計算打卡日期
+        private final Map<Long, String> timeZones = new HashMap<>();
+        private final Set<Long> affectedUserIds = new HashSet<>();
+
+        private void reject(long line, String reason) {
+            result.setRejectedRows(result.getRejectedRows() + 1);
+            if (result.getRejects().size() < maxReportedRejects) {
+                result.getRejects().add(new CheckInImportResult.RowReject(line, reason));
+            } else {
+                result.setRejectsTruncated(true);
+            }
+        }
+    }
+
+    /**
+     * 已通過格式驗證、等待寫入的資料列
+     */
+    private static final class ImportRow {
+        private final long line;
+        private final String username;
+        private final LocalDateTime checkinTime;
+        private final String note;
+        private final String location;
+        private final CheckIn.CheckInStatus status;
+
+        private ImportRow(long line, String username, LocalDateTime checkinTime,
+                          String note, String location, CheckIn.CheckInStatus status) {
+            this.line = line;
+            this.username = username;
+            this.checkinTime = checkinTime;
+            this.note = note;
+            this.location = location;
+            this.status = status;
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package com.lifecheckin.backend.service;
+
+import com.lifecheckin.backend.config.DatabaseDialect;
+import com.lifecheckin.backend.dto.PartitionMaintenanceResult;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 打卡記錄按月分區（僅 PostgreSQL，預設關閉）
+ * 啟用後把 checkin_records 轉換為依 checkin_date 按月切分的分區表，每天預先建立之後幾個月的分區，
+ * 並依保留期限卸離或刪除舊分區。刪除整個分區不會留下需要 VACUUM 的死資料列，索引也隨分區一起縮小。
+ * 分區鍵使用 checkin_date 而不是 checkin_time：PostgreSQL 要求唯一索引包含分區鍵，
+ * 以 checkin_date 分區才能保留 (user_id, checkin_date) 唯一索引，維持每位使用者每天只能打卡一次。
+ */
+@Service
+public class CheckInPartitionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CheckInPartitionService.class);
+
+    private static final String TABLE = "checkin_records";
+    private static final String LEGACY_TABLE = "checkin_records_legacy";
+    private static final String DEFAULT_PARTITION = "checkin_records_default";
+    private static final Pattern PARTITION_NAME = Pattern.compile("checkin_records_y(\\d{4})m(\\d{2})");
+
+    private static final String SELECT_PARTITIONS =
+            "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid "
+                    + "WHERE i.inhparent = CAST(? AS regclass)";
+
+    @Value("${checkin.partitioning.enabled:false}")
+    private boolean enabled;
+
+    // 預先建立的未來月份數（不含本月）
+    @Value("${checkin.partitioning.premake-months:3}")
+    private int premakeMonths;
+
+    // 保留的月份數（不含本月），0 表示永久保留
+    @Value("${checkin.partitioning.retention-months:0}")
+    private int retentionMonths;
+
+    // 超過保留期限的分區：detach 卸離後保留為獨立資料表（可另行封存），drop 直接刪除
+    @Value("${checkin.partitioning.retention-action:detach}")
+    private String retentionAction;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // 確保 Hibernate 已完成結構更新（建立 checkin_records）後才執行
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private DatabaseDialect databaseDialect;
+
+    /**
+     * 啟動時轉換資料表並補齊分區，應用程式開始處理請求前完成
+     */
+    @PostConstruct
+    public void init() {
+        if (enabled) {
+            maintain(LocalDate.now());
+        }
+    }
+
+    /**
+     * 每天建立之後的分區並套用保留期限
+     */
+    @Scheduled(cron = "${checkin.partitioning.cron:0 45 0 * * *}")
+    public void runScheduled() {
+        if (enabled) {
+            maintain(LocalDate.now());
+        }
+    }
+
+    /**
+     * 執行一次分區維護：必要時轉換為分區表、建立之後的分區、卸離或刪除過期分區
+     * @param today 今天的日期
+     * @return 維護結果；未啟用或不是 PostgreSQL 時不做任何事
+     */
+    public synchronized PartitionMaintenanceResult maintain(LocalDate today) {
+        PartitionMaintenanceResult result = new PartitionMaintenanceResult();
+        if (!enabled || !databaseDialect.isPostgres()) {
+            if (enabled) {
+                logger.warn("打卡記錄分區僅支援 PostgreSQL，已略過");
+            }
+            return result;
+        }
+        result.setEnabled(true);
+
+        YearMonth current = YearMonth.from(today);
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        if (!isPartitioned()) {
+            tx.executeWithoutResult(status -> convert(current, result));
+        }
+
+        TreeMap<YearMonth, String> partitions = partitions();
+        for (int i = 0; i <= premakeMonths; i++) {
+            YearMonth month = current.plusMonths(i);
+            if (!partitions.containsKey(month)) {
+                createPartition(tx, month, partitions, result);
+            }
+        }
+
+        // 預設分區中仍在保留期限內的月份（例如匯入沒有分區的月份）建立各自的分區並把記錄搬過去
+        YearMonth oldestKept = retentionMonths > 0 ? current.minusMonths(retentionMonths) : null;
+        for (LocalDate first : jdbcTemplate.queryForList(
+                "SELECT DISTINCT CAST(date_trunc('month', checkin_date) AS date) FROM " + DEFAULT_PARTITION,
+                LocalDate.class)) {
+            YearMonth month = YearMonth.from(first);
+            if (!partitions.containsKey(month) && (oldestKept == null || !month.isBefore(oldestKept))) {
+                createPartition(tx, month, partitions, result);
+            }
+        }
+
+        if (oldestKept != null) {
+            boolean drop = "drop".equalsIgnoreCase(retentionAction);
+            for (String name : partitions.headMap(oldestKept).values()) {
+                tx.executeWithoutResult(status -> {
+                    jdbcTemplate.execute("ALTER TABLE " + TABLE + " DETACH PARTITION " + name);
+                    if (drop) {
+                        jdbcTemplate.execute("DROP TABLE " + name);
+                    }
+                });
+                (drop ? result.getDroppedPartitions() : result.getDetachedPartitions()).add(name);
+            }
+            partitions.headMap(oldestKept).clear();
+        }
+
+        result.setPartitions(List.copyOf(partitions.values()));
+        Long defaultRows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + DEFAULT_PARTITION, Long.class);
+        result.setDefaultPartitionRows(defaultRows == null ? 0 : defaultRows);
+        logger.info("打卡記錄分區維護完成，新建: {}, 卸離: {}, 刪除: {}, 現有分區: {}, 從預設分區搬移: {} 筆",
+                result.getCreatedPartitions(), result.getDetachedPartitions(), result.getDroppedPartitions(),
+                result.getPartitions().size(), result.getMovedFromDefault());
+        if (result.getDefaultPartitionRows() > 0) {
+            // 只剩超過保留期限的月份會留在預設分區
+            logger.warn("預設分區 {} 仍有 {} 筆記錄", DEFAULT_PARTITION, result.getDefaultPartitionRows());
+        }
+        return result;
+    }
+
+    /**
+     * 把一般資料表轉換為分區表：改名保留原表，以相同欄位建立分區表與索引，複製資料後刪除原表
+     * 在單一交易中完成，過程中會鎖住 checkin_records，資料量大時應在離峰時段啟用
+     */
+    private void convert(YearMonth current, PartitionMaintenanceResult result) {
+        long start = System.nanoTime();
+        // 分區鍵不可為空，先補上舊記錄的打卡日期
+        jdbcTemplate.update("UPDATE " + TABLE + " SET checkin_date = CAST(checkin_time AS date) "
+                + "WHERE checkin_date IS NULL");
+        List<String> foreignKeys = jdbcTemplate.queryForList(
+                "SELECT conname FROM pg_constraint WHERE conrelid = CAST(? AS regclass) AND contype = 'f'",
+                String.class, TABLE);
+        LocalDate oldest = jdbcTemplate.queryForObject("SELECT MIN(checkin_date) FROM " + TABLE, LocalDate.class);
+
+        // 索引名稱在 schema 內不可重複，原表的索引（含主鍵、唯一約束）先改名
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " RENAME TO " + LEGACY_TABLE);
+        for (String index : jdbcTemplate.queryForList(
+                "SELECT indexname FROM pg_indexes WHERE schemaname = current_schema() AND tablename = ?",
+                String.class, LEGACY_TABLE)) {
+            jdbcTemplate.execute("ALTER INDEX " + index + " RENAME TO " + index + "_legacy");
+        }
+
+        jdbcTemplate.execute("CREATE TABLE " + TABLE + " (LIKE " + LEGACY_TABLE
+                + " INCLUDING DEFAULTS INCLUDING CONSTRAINTS) PARTITION BY RANGE (checkin_date)");
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " ALTER COLUMN checkin_date SET NOT NULL");
+        // 主鍵與唯一約束都必須包含分區鍵
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " ADD CONSTRAINT checkin_records_pkey "
+                + "PRIMARY KEY (id, checkin_date)");
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " ADD CONSTRAINT uk_user_checkin_date "
+                + "UNIQUE (user_id, checkin_date)");
+        jdbcTemplate.execute("CREATE INDEX idx_user_checkin_time ON " + TABLE + " (user_id, checkin_time)");
+        jdbcTemplate.execute("CREATE INDEX idx_checkin_date ON " + TABLE + " (checkin_date)");
+
+        // 預設分區接住沒有對應月份分區的資料（例如匯入很久以前的記錄），正常情況下保持為空
+        jdbcTemplate.execute("CREATE TABLE " + DEFAULT_PARTITION + " PARTITION OF " + TABLE + " DEFAULT");
+        YearMonth first = oldest != null && YearMonth.from(oldest).isBefore(current) ? YearMonth.from(oldest) : current;
+        YearMonth last = current.plusMonths(premakeMonths);
+        for (YearMonth month = first; !month.isAfter(last); month = month.plusMonths(1)) {
+            createPartition(month);
+            result.getCreatedPartitions().add(partitionName(month));
+        }
+
+        int copied = jdbcTemplate.update("INSERT INTO " + TABLE + " SELECT * FROM " + LEGACY_TABLE);
+        jdbcTemplate.execute("DROP TABLE " + LEGACY_TABLE);
+        for (String foreignKey : foreignKeys) {
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " ADD CONSTRAINT " + foreignKey
+                    + " FOREIGN KEY (user_id) REFERENCES users (id)");
+        }
+        result.setConverted(true);
+        logger.info("checkin_records 已轉換為按月分區表，複製 {} 筆記錄，耗時: {}ms",
+                copied, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void createPartition(TransactionTemplate tx, YearMonth month, TreeMap<YearMonth, String> partitions,
+                                 PartitionMaintenanceResult result) {
+        Integer moved = tx.execute(status -> createPartition(month));
+        partitions.put(month, partitionName(month));
+        result.getCreatedPartitions().add(partitionName(month));
+        result.setMovedFromDefault(result.getMovedFromDefault() + (moved == null ? 0 : moved));
+    }
+
+    /**
+     * 建立月份分區，需在呼叫端的交易中執行
+     * 預設分區已有該月份的記錄時，CREATE TABLE ... PARTITION OF 會因預設分區違反新分區範圍而失敗，
+     * 改為先建立獨立資料表、把記錄從預設分區搬入，再掛上 checkin_records
+     * @return 從預設分區搬入的記錄數
+     */
+    private int createPartition(YearMonth month) {
+        String name = partitionName(month);
+        LocalDate from = month.atDay(1);
+        LocalDate to = month.plusMonths(1).atDay(1);
+        String bounds = " FOR VALUES FROM ('" + from + "') TO ('" + to + "')";
+        if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM " + DEFAULT_PARTITION
+                + " WHERE checkin_date >= ? AND checkin_date < ?)", Boolean.class, from, to))) {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + name + " PARTITION OF " + TABLE + bounds);
+            return 0;
+        }
+
+        jdbcTemplate.execute("CREATE TABLE " + name + " (LIKE " + TABLE + " INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+        int moved = jdbcTemplate.update("WITH moved AS (DELETE FROM " + DEFAULT_PARTITION
+                + " WHERE checkin_date >= ? AND checkin_date < ? RETURNING *) INSERT INTO " + name
+                + " SELECT * FROM moved", from, to);
+        // 掛上時會自動建立與 checkin_records 相同的索引與外鍵
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " ATTACH PARTITION " + name + bounds);
+        logger.info("預設分區中 {} 筆 {} 的記錄已搬入新分區 {}", moved, month, name);
+        return moved;
+    }
+
+    /**
+     * 目前掛在 checkin_records 下的按月分區（不含預設分區）
+     */
+    private TreeMap<YearMonth, String> partitions() {
+        TreeMap<YearMonth, String> partitions = new TreeMap<>();
+        for (String name : jdbcTemplate.queryForList(SELECT_PARTITIONS, String.class, TABLE)) {
+            Matcher matcher = PARTITION_NAME.matcher(name);
+            if (matcher.matches()) {
+                partitions.put(YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2))),
+                        name);
+            }
+        }
+        return partitions;
+    }
+
+    private static String partitionName(YearMonth month) {
+        return String.format("%s_y%04dm%02d", TABLE, month.getYear(), month.getMonthValue());
+    }
+
+    private boolean isPartitioned() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT relkind = 'p' FROM pg_class WHERE oid = CAST(? AS regclass)", Boolean.class, TABLE));
+    }
+}
@@ -1,20 +1,49 @@
 package com.lifecheckin.backend.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lifecheckin.backend.config.DatabaseDialect;
+import com.lifecheckin.backend.dto.CheckInCursor;
+import com.lifecheckin.backend.dto.CheckInPage;
+import com.lifecheckin.backend.dto.CheckInView;
+import com.lifecheckin.backend.dto.UserStreak;
+import com.lifecheckin.backend.exception.DuplicateCheckInException;
 import com.lifecheckin.backend.exception.InvalidInputException;
 import com.lifecheckin.backend.exception.ResourceNotFoundException;
 import com.lifecheckin.backend.model.CheckIn;
 import com.lifecheckin.backend.model.User;
+import com.lifecheckin.backend.repository.CheckInArchiveRepository;
+import com.lifecheckin.backend.repository.CheckInCalendarRepository;
 import com.lifecheckin.backend.repository.CheckInRepository;
 import com.lifecheckin.backend.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.DateTimeException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.NavigableSet;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * 打卡服務類
@@ -23,27 +52,81 @@ import java.util.Optional;
 @Service
 public class CheckInService {
 
+    private static final Logger logger = LoggerFactory.getLogger(CheckInService.class);
+
+    // 打卡記錄的分頁順序：時間倒序，同一時間依ID倒序
+    private static final Comparator<CheckInView> NEWEST_FIRST =
+            Comparator.comparing(CheckInView::getCheckinTime).thenComparing(CheckInView::getId).reversed();
+
     @Autowired
     private CheckInRepository checkInRepository;
 
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private DailyCheckInBitmap dailyCheckInBitmap;
+
+    @Autowired
+    private DailyCheckInStatsService dailyCheckInStatsService;
+
+    @Autowired
+    private StreakLeaderboard streakLeaderboard;
+
+    @Autowired
+    private CheckInCalendarRepository checkInCalendarRepository;
+
+    @Autowired
+    private CheckInArchiveRepository checkInArchiveRepository;
+
+    @Autowired
+    private DatabaseDialect databaseDialect;
+
+    @Value("${checkin.page.default-size:50}")
+    private int defaultPageSize;
+
+    @Value("${checkin.page.max-size:200}")
+    private int maxPageSize;
+
     /**
      * 獲取所有打卡記錄
-     * @return 打卡記錄列表
+     * @return 打卡記錄投影列表
      */
-    public List<CheckIn> getAllCheckIns() {
-        return checkInRepository.findAll();
+    public List<CheckInView> getAllCheckIns() {
+        return checkInRepository.findAllViews();
+    }
+
+    /**
+     * 以 NDJSON 逐筆輸出所有打卡記錄，讀到一筆寫出一筆，記憶體用量與資料量無關
+     * @param out 輸出串流
+     */
+    @Transactional(readOnly = true)
+    public void streamAllCheckIns(OutputStream out) {
+        try (Stream<CheckInView> checkIns = checkInRepository.streamAllViews()) {
+            checkIns.forEach(checkIn -> {
+                try {
+                    out.write(objectMapper.writeValueAsBytes(checkIn));
+                    out.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     /**
      * 根據ID獲取打卡記錄
      * @param id 打卡記錄ID
-     * @return 打卡記錄Optional
+     * @return 打卡記錄投影Optional
      */
-    public Optional<CheckIn> getCheckInById(Long id) {
-        return checkInRepository.findById(id);
+    public Optional<CheckInView> getCheckInById(Long id) {
+        return checkInRepository.findViewById(id);
     }
 
     /**
@@ -53,75 +136,101 @@ public class CheckInService {
      */
     @Transactional
     public CheckIn createCheckIn(CheckIn checkIn) {
+        return createCheckIn(checkIn, null);
+    }
+
+    /**
+     * 創建打卡記錄，並在同一個交易中執行 onCreated（例如保存 Idempotency-Key 的回應）
+     * onCreated 拋出異常時打卡一併回滾
+     * @param checkIn 打卡記錄對象
+     * @param onCreated 插入成功後在交易內執行，null 表示不需要
+     * @return 創建的打卡記錄
+     */
+    @Transactional
+    public CheckIn createCheckIn(CheckIn checkIn, Consumer<CheckIn> onCreated) {
         // 驗證用戶
         User user = checkIn.getUser();
         if (user == null || user.getId() == null) {
             throw new InvalidInputException("User information is required for check-in");
         }
 
-        // 檢查用戶是否存在
-        User existingUser = userRepository.findById(user.getId())
-                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + user.getId()));
-
-        // 檢查今天是否已經打卡
-        LocalDate today = LocalDate.now();
-        LocalDateTime startOfDay = today.atStartOfDay();
-        LocalDateTime endOfDay = today.atTime(LocalTime.MAX);
-
-        Optional<CheckIn> existingCheckIn = checkInRepository.findByUserAndCheckinTimeBetween(
-                existingUser, startOfDay, endOfDay);
+        // 設置當前時間作為打卡時間，打卡日期依用戶時區計算
+        ZoneId zone = zoneOf(user);
+        LocalDateTime now = LocalDateTime.now();
+        checkIn.setCheckinTime(now);
+        checkIn.setCheckinDate(CheckInDays.dayOf(now, zone));
 
-        if (existingCheckIn.isPresent()) {
-            throw new InvalidInputException("You have already checked in today");
+        // 更新用戶的最後打卡日期和連續打卡天數，影響列數為 0 代表用戶不存在
+        if (updateUserCheckInStatus(List.of(user.getId()), now, zone) == 0) {
+            throw new ResourceNotFoundException("User not found with id: " + user.getId());
         }
 
-        // 設置當前時間作為打卡時間
-        checkIn.setCheckinTime(LocalDateTime.now());
-
-        // 設置用戶
-        checkIn.setUser(existingUser);
-
-        // 保存打卡記錄
-        CheckIn savedCheckIn = checkInRepository.save(checkIn);
+        // 以單一語句插入，今天已打卡時由唯一索引判斷衝突，不需事先查詢；
+        // 衝突時拋出異常，交易回滾連同上面的連續打卡更新一併撤銷
+        if (!checkInRepository.insertIfAbsent(checkIn)) {
+            throw new DuplicateCheckInException("You have already checked in today");
+        }
+        if (onCreated != null) {
+            onCreated.accept(checkIn);
+        }
 
-        // 更新用戶的最後打卡日期和連續打卡天數
-        updateUserCheckInStatus(existingUser);
+        checkInCalendarRepository.markDay(List.of(user.getId()), checkIn.getCheckinDate());
+        dailyCheckInBitmap.markCheckedIn(user.getId(), checkIn.getCheckinDate());
+        dailyCheckInStatsService.record(checkIn.getCheckinDate(), checkIn.getStatus(), 1);
+        return checkIn;
+    }
 
-        return savedCheckIn;
+    /**
+     * 啟動時為舊的打卡記錄補上打卡日期
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillCheckinDates() {
+        try {
+            int updated = checkInRepository.backfillCheckinDates();
+            if (updated > 0) {
+                logger.info("已為 {} 筆舊打卡記錄補上打卡日期", updated);
+            }
+        } catch (DataIntegrityViolationException e) {
+            logger.warn("補上打卡日期失敗，舊資料中存在同一天的重複打卡: {}", e.getMessage());
+        }
     }
 
     /**
      * 更新用戶的打卡狀態
-     * @param user 用戶
+     * 以單一條件式 UPDATE 依資料庫中的上次打卡日期遞增、保持或重置連續打卡天數，不載入用戶實體。
+     * 排行榜需要的新連續天數在 PostgreSQL 上由 UPDATE ... RETURNING 一併取回；
+     * 其他資料庫依排行榜上的上次打卡時間以相同規則推算，只有不在排行榜上的用戶才讀回資料庫
+     * @param userIds 用戶ID集合
+     * @param now 本次打卡時間
+     * @param zone 這些用戶的時區，決定「今天」與「昨天」的邊界
+     * @return 更新的用戶數
      */
-    private void updateUserCheckInStatus(User user) {
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime previousCheckIn = user.getLastCheckInDate();
-
-        // 如果之前有打卡記錄
-        if (previousCheckIn != null) {
-            LocalDate previousDate = previousCheckIn.toLocalDate();
-            LocalDate today = now.toLocalDate();
-            LocalDate yesterday = today.minusDays(1);
+    int updateUserCheckInStatus(Collection<Long> userIds, LocalDateTime now, ZoneId zone) {
+        LocalDate today = CheckInDays.dayOf(now, zone);
+        LocalDateTime startOfToday = CheckInDays.startOf(today, zone);
+        LocalDateTime startOfYesterday = CheckInDays.startOf(today.minusDays(1), zone);
+        if (databaseDialect.isPostgres()) {
+            // 交易提交後更新排行榜
+            List<UserStreak> streaks = userRepository.updateCheckInStreakReturning(
+                    userIds, now, startOfToday, startOfYesterday);
+            streakLeaderboard.update(streaks);
+            return streaks.size();
+        }
 
-            // 如果上次打卡是昨天，增加連續打卡天數
-            if (previousDate.isEqual(yesterday)) {
-                user.setStreakDays(user.getStreakDays() + 1);
-            }
-            // 如果不是昨天，且不是今天，重置連續打卡天數
-            else if (!previousDate.isEqual(today)) {
-                user.setStreakDays(1);
+        int updated = userRepository.updateCheckInStreak(userIds, now, startOfToday, startOfYesterday);
+        if (updated > 0) {
+            // 排行榜在交易提交後才更新，此時的項目仍是打卡前的狀態
+            List<UserStreak> streaks = new ArrayList<>(
+                    streakLeaderboard.afterCheckIn(userIds, now, startOfToday, startOfYesterday));
+            if (streaks.size() < userIds.size()) {
+                Set<Long> derived = new HashSet<>();
+                streaks.forEach(streak -> derived.add(streak.getUserId()));
+                List<Long> missing = userIds.stream().filter(id -> !derived.contains(id)).toList();
+                streaks.addAll(userRepository.findStreaksByIdIn(missing));
             }
-        } else {
-            // 第一次打卡
-            user.setStreakDays(1);
+            streakLeaderboard.update(streaks);
         }
-
-        // 更新最後打卡日期
-        user.setLastCheckInDate(now);
-
-        // 保存用戶
-        userRepository.save(user);
+        return updated;
     }
 
     /**
@@ -147,38 +256,135 @@ public class CheckInService {
      */
     @Transactional
     public void deleteCheckIn(Long id) {
-        if (!checkInRepository.existsById(id)) {
-            throw new ResourceNotFoundException("CheckIn not found with id: " + id);
-        }
-        checkInRepository.deleteById(id);
+        CheckIn checkIn = checkInRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("CheckIn not found with id: " + id));
+        checkInRepository.delete(checkIn);
+        checkInCalendarRepository.clearDay(checkIn.getUser().getId(), checkIn.getCheckinDate());
+        dailyCheckInBitmap.clearCheckedIn(checkIn.getUser().getId(), checkIn.getCheckinDate());
+        dailyCheckInStatsService.record(checkIn.getCheckinDate(), checkIn.getStatus(), -1);
     }
 
     /**
-     * 獲取用戶的打卡記錄
+     * 以游標分頁獲取用戶的打卡記錄，按時間倒序排列，包含已移入封存檔的舊記錄
      * @param userId 用戶ID
-     * @return 打卡記錄列表
+     * @param before 上一頁回傳的游標，null 表示第一頁
+     * @param limit 每頁筆數，null 使用預設值，超過上限時以上限為準
+     * @return 一頁打卡記錄與下一頁的游標
      */
-    public List<CheckIn> getUserCheckIns(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
+    public CheckInPage getUserCheckInPage(Long userId, CheckInCursor before, Integer limit) {
+        if (limit != null && limit < 1) {
+            throw new InvalidInputException("limit must be at least 1");
+        }
+        int pageSize = Math.min(limit != null ? limit : defaultPageSize, maxPageSize);
+
+        // 多取一筆用來判斷是否還有下一頁
+        Limit fetch = Limit.of(pageSize + 1);
+        List<CheckInView> checkIns = before == null
+                ? checkInRepository.findPageByUserId(userId, fetch)
+                : checkInRepository.findPageByUserIdBefore(userId, before.getCheckinTime(), before.getId(), fetch);
+        checkIns = withArchived(userId, before, checkIns, pageSize);
 
-        // 這裡需要在 CheckInRepository 中添加按用戶查詢的方法
-        return checkInRepository.findByUserOrderByCheckinTimeDesc(user);
+        if (checkIns.size() <= pageSize) {
+            return new CheckInPage(checkIns, null);
+        }
+        List<CheckInView> items = checkIns.subList(0, pageSize);
+        CheckInView last = items.get(pageSize - 1);
+        return new CheckInPage(items, new CheckInCursor(last.getCheckinTime(), last.getId()));
     }
 
     /**
-     * 檢查用戶今日是否已打卡
+     * 以封存檔中早於游標的記錄補足一頁
+     * 從游標所在月份往前逐月讀取，一次只解壓縮一個月份的區塊；checkin_records 已取滿一頁時，
+     * 只讀取可能比這頁最後一筆更新的月份，尚未封存任何記錄時不讀取封存檔
+     * @param hot checkin_records 中的一頁（最多 pageSize + 1 筆）
+     * @return 合併後按時間倒序排列的記錄，最多 pageSize + 1 筆
+     */
+    private List<CheckInView> withArchived(Long userId, CheckInCursor before, List<CheckInView> hot, int pageSize) {
+        NavigableSet<YearMonth> months = checkInArchiveRepository.archivedMonths();
+        if (months.isEmpty()) {
+            return hot;
+        }
+        // 封存檔按打卡日期分月，打卡日期與打卡時間的日期最多相差 DATE_SKEW_DAYS 天
+        YearMonth from = before == null ? months.last()
+                : YearMonth.from(before.getCheckinTime().toLocalDate().plusDays(CheckInRepository.DATE_SKEW_DAYS));
+        YearMonth floor = hot.size() > pageSize
+                ? YearMonth.from(hot.get(hot.size() - 1).getCheckinTime().toLocalDate()
+                        .minusDays(CheckInRepository.DATE_SKEW_DAYS))
+                : null;
+
+        CheckInView cursor = before != null ? asView(before) : null;
+        List<CheckInView> archived = new ArrayList<>();
+        for (YearMonth month : months.headSet(from, true).descendingSet()) {
+            if (floor != null && month.isBefore(floor)) {
+                break;
+            }
+            for (CheckInView row : checkInArchiveRepository.findByUserIdInMonth(userId, month)) {
+                if (cursor == null || NEWEST_FIRST.compare(row, cursor) > 0) {
+                    archived.add(row);
+                }
+            }
+            if (floor == null && archived.size() > pageSize) {
+                // 前一個月份的記錄可能因時區落在這個月份的開頭，再多讀一個月
+                floor = month.minusMonths(1);
+            }
+        }
+        if (archived.isEmpty()) {
+            return hot;
+        }
+
+        // 封存後刪除前中斷時，同一筆記錄可能同時在兩邊，以 checkin_records 中的為準
+        Set<Long> hotIds = new HashSet<>();
+        List<CheckInView> merged = new ArrayList<>(hot.size() + archived.size());
+        for (CheckInView row : hot) {
+            hotIds.add(row.getId());
+            merged.add(row);
+        }
+        for (CheckInView row : archived) {
+            if (!hotIds.contains(row.getId())) {
+                merged.add(row);
+            }
+        }
+        merged.sort(NEWEST_FIRST);
+        return merged.size() > pageSize + 1 ? merged.subList(0, pageSize + 1) : merged;
+    }
+
+    private static CheckInView asView(CheckInCursor cursor) {
+        CheckInView view = new CheckInView();
+        view.setCheckinTime(cursor.getCheckinTime());
+        view.setId(cursor.getId());
+        return view;
+    }
+
+    /**
+     * 檢查用戶今日（伺服器時區）是否已打卡
      * @param userId 用戶ID
      * @return 是否已打卡
      */
     public boolean hasCheckedInToday(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
+        return hasCheckedInToday(userId, null);
+    }
 
-        LocalDate today = LocalDate.now();
-        LocalDateTime startOfDay = today.atStartOfDay();
-        LocalDateTime endOfDay = today.atTime(LocalTime.MAX);
+    /**
+     * 檢查用戶今日（依用戶時區）是否已打卡
+     * @param userId 用戶ID
+     * @param timeZone 用戶時區，null 表示伺服器時區
+     * @return 是否已打卡
+     */
+    public boolean hasCheckedInToday(Long userId, String timeZone) {
+        // 用戶的今天與點陣圖的日期相同時由點陣圖回答，不查詢資料庫
+        return dailyCheckInBitmap.isCheckedIn(userId,
+                CheckInDays.dayOf(LocalDateTime.now(), CheckInDays.zoneOf(timeZone)));
+    }
 
-        return checkInRepository.findByUserAndCheckinTimeBetween(user, startOfDay, endOfDay).isPresent();
+    /**
+     * 用戶的時區；打卡請求中只帶用戶ID時使用伺服器時區
+     */
+    static ZoneId zoneOf(User user) {
+        try {
+            return CheckInDays.zoneOf(user.getTimeZone());
+        } catch (DateTimeException e) {
+            logger.warn("用戶 {} 的時區無效: {}，改用伺服器時區", user.getId(), user.getTimeZone());
+            return ZoneId.systemDefault();
+        }
     }
 }
\ No newline at end of file
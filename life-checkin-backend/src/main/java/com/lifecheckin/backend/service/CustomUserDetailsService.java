@@ -6,6 +6,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
@@ -17,13 +18,16 @@ import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private static final Logger logger = LoggerFactory.getLogger(CustomUserDetailsService.class);
 
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+
     @Override
     public UserDetails loadUserByUsername(String username) {
         logger.debug("⭐ loadUserByUsername 方法開始執行，username: {}", username);
@@ -72,8 +76,29 @@ public class CustomUserDetailsService implements UserDetailsService {
         }
     }
 
-    // 輔助方法：解析角色字串
-    private List<String> parseRoles(String roles) {
+    /**
+     * 登入成功且儲存的雜湊成本與設定不同時，由 DaoAuthenticationProvider 以新成本的雜湊呼叫
+     * @param user 驗證時載入的用戶
+     * @param newPassword 以新成本計算的雜湊
+     * @return 帶新雜湊的用戶
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        if (userService.rehashPassword(user.getUsername(), user.getPassword(), newPassword)) {
+            passwordHashingService.recordRehash();
+            logger.info("已以新的 BCrypt 成本重新雜湊密碼，username: {}", user.getUsername());
+        }
+        return org.springframework.security.core.userdetails.User.withUserDetails(user)
+                .password(newPassword)
+                .build();
+    }
+
+    /**
+     * 解析以逗號分隔的角色字串（登入與簽發令牌共用）
+     * @param roles 角色字串
+     * @return 角色列表，未設定時為 ROLE_USER
+     */
+    public static List<String> parseRoles(String roles) {
         logger.debug("⭐ 開始解析角色，roles: {}", roles);
 
         if (roles == null || roles.trim().isEmpty()) {
@@ -0,0 +1,209 @@
+package com.lifecheckin.backend.service;
+
+import com.lifecheckin.backend.repository.CheckInRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+
+/**
+ * 今日打卡點陣圖
+ * 以用戶ID為索引記錄今天已打卡的用戶，讓「今天是否已打卡」直接由記憶體回答，不需查詢資料庫。
+ * 跨日時換成新的一天，並從資料庫載入當天已有的打卡；載入完成前的查詢退回資料庫。
+ * 只看得到本節點寫入的打卡，多節點部署時應關閉（checkin.today-cache.enabled=false）。
+ */
+@Service
+public class DailyCheckInBitmap {
+
+    private static final Logger logger = LoggerFactory.getLogger(DailyCheckInBitmap.class);
+
+    @Value("${checkin.today-cache.enabled:true}")
+    private boolean enabled;
+
+    @Autowired
+    private CheckInRepository checkInRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private volatile DayBits current;
+
+    /**
+     * 啟動時載入今天的打卡
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (enabled) {
+            today();
+        }
+    }
+
+    /**
+     * 每天午夜換成新的一天並重新載入
+     */
+    @Scheduled(cron = "${checkin.today-cache.rollover-cron:0 0 0 * * *}")
+    public void rollover() {
+        if (enabled) {
+            today();
+        }
+    }
+
+    /**
+     * 用戶今天是否已打卡
+     * @param userId 用戶ID
+     * @return 是否已打卡
+     */
+    public boolean isCheckedInToday(Long userId) {
+        return isCheckedIn(userId, LocalDate.now());
+    }
+
+    /**
+     * 用戶在指定日期是否已打卡；日期不是點陣圖的日期（例如用戶時區已跨日）時查詢資料庫
+     * @param userId 用戶ID
+     * @param date 打卡日期
+     * @return 是否已打卡
+     */
+    public boolean isCheckedIn(Long userId, LocalDate date) {
+        if (!enabled) {
+            return checkInRepository.existsByUserIdAndCheckinDate(userId, date);
+        }
+        DayBits bits = today();
+        if (!bits.ready || !bits.day.equals(date)) {
+            return checkInRepository.existsByUserIdAndCheckinDate(userId, date);
+        }
+        return bits.get(userId);
+    }
+
+    /**
+     * 記錄用戶在指定日期打卡；在交易中呼叫時等交易提交後才記錄
+     * @param userId 用戶ID
+     * @param date 打卡日期（不是今天則忽略）
+     */
+    public void markCheckedIn(Long userId, LocalDate date) {
+        afterCommit(() -> update(userId, date, true));
+    }
+
+    /**
+     * 清除用戶在指定日期的打卡（打卡記錄被刪除時）；在交易中呼叫時等交易提交後才清除
+     * @param userId 用戶ID
+     * @param date 打卡日期（不是今天則忽略）
+     */
+    public void clearCheckedIn(Long userId, LocalDate date) {
+        afterCommit(() -> update(userId, date, false));
+    }
+
+    private void update(Long userId, LocalDate date, boolean checkedIn) {
+        if (!enabled || userId == null || userId < 0) {
+            return;
+        }
+        DayBits bits = today();
+        if (bits.day.equals(date)) {
+            bits.set(userId, checkedIn);
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * 取得今天的點陣圖，跨日時換成新的一天並載入
+     */
+    private DayBits today() {
+        LocalDate today = LocalDate.now();
+        DayBits bits = current;
+        if (bits != null && bits.day.equals(today)) {
+            return bits;
+        }
+        synchronized (this) {
+            bits = current;
+            if (bits != null && bits.day.equals(today)) {
+                return bits;
+            }
+            // 先換上新的一天再載入，載入期間寫入的打卡也會記在新的點陣圖上
+            bits = new DayBits(today);
+            current = bits;
+            load(bits);
+            return bits;
+        }
+    }
+
+    private void load(DayBits bits) {
+        long start = System.nanoTime();
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        long count = readOnly.execute(status -> {
+            long loaded = 0;
+            try (Stream<Long> userIds = checkInRepository.streamUserIdsByCheckinDate(bits.day)) {
+                for (Long userId : (Iterable<Long>) userIds::iterator) {
+                    bits.set(userId, true);
+                    loaded++;
+                }
+            }
+            return loaded;
+        });
+        bits.ready = true;
+        logger.info("今日打卡點陣圖已載入，日期: {}, 已打卡用戶: {}, 耗時: {}ms",
+                bits.day, count, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * 一天的打卡點陣圖
+     * 以每 65,536 個用戶ID為一段，依需要建立，每段 8KB；讀寫皆不需加鎖
+     */
+    private static final class DayBits {
+        private static final int SEGMENT_BITS = 16;
+        private static final int SEGMENT_WORDS = (1 << SEGMENT_BITS) / Long.SIZE;
+
+        private final LocalDate day;
+        private final ConcurrentHashMap<Long, AtomicLongArray> segments = new ConcurrentHashMap<>();
+        private volatile boolean ready;
+
+        private DayBits(LocalDate day) {
+            this.day = day;
+        }
+
+        private boolean get(long userId) {
+            AtomicLongArray words = segments.get(userId >>> SEGMENT_BITS);
+            if (words == null) {
+                return false;
+            }
+            int bit = (int) (userId & ((1 << SEGMENT_BITS) - 1));
+            return (words.get(bit >>> 6) & (1L << bit)) != 0;
+        }
+
+        private void set(long userId, boolean value) {
+            AtomicLongArray words = segments.computeIfAbsent(
+                    userId >>> SEGMENT_BITS, segment -> new AtomicLongArray(SEGMENT_WORDS));
+            int bit = (int) (userId & ((1 << SEGMENT_BITS) - 1));
+            long mask = 1L << bit;
+            if (value) {
+                words.getAndUpdate(bit >>> 6, word -> word | mask);
+            } else {
+                words.getAndUpdate(bit >>> 6, word -> word & ~mask);
+            }
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.lifecheckin.backend.service;
+
+import com.lifecheckin.backend.exception.InvalidInputException;
+import com.lifecheckin.backend.model.CheckIn;
+import com.lifecheckin.backend.model.DailyCheckInStats;
+import com.lifecheckin.backend.repository.CheckInArchiveRepository;
+import com.lifecheckin.backend.repository.DailyCheckInStatsRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 每日打卡統計服務
+ * 打卡寫入在交易提交後把增量累積在記憶體，定期以一條語句合併到 daily_checkin_stats，
+ * 寫入路徑不會爭用同一天的彙總列。校正工作每天依 checkin_records 重建最近幾天的彙總，
+ * 修正節點當機時遺失的增量。查詢統計只讀彙總表。
+ */
+@Service
+public class DailyCheckInStatsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DailyCheckInStatsService.class);
+
+    private static final int MAX_DAYS = 366;
+    private static final long MAX_RECONCILE_DAYS = 3660;
+
+    @Value("${checkin.stats.default-days:90}")
+    private int defaultDays;
+
+    @Value("${checkin.stats.reconcile-days:7}")
+    private int reconcileDays;
+
+    @Autowired
+    private DailyCheckInStatsRepository dailyCheckInStatsRepository;
+
+    @Autowired
+    private CheckInArchiveRepository checkInArchiveRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // 尚未合併的增量：日期 -> {總數, NORMAL, LATE, EARLY}，只在 compute 中修改
+    private final ConcurrentHashMap<LocalDate, long[]> pending = new ConcurrentHashMap<>();
+
+    /**
+     * 記錄一筆打卡的新增或刪除；在交易中呼叫時等交易提交後才記錄
+     * @param date 打卡日期
+     * @param status 打卡狀態
+     * @param delta 1 為新增，-1 為刪除
+     */
+    public void record(LocalDate date, CheckIn.CheckInStatus status, int delta) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    add(date, status, delta);
+                }
+            });
+        } else {
+            add(date, status, delta);
+        }
+    }
+
+    private void add(LocalDate date, CheckIn.CheckInStatus status, long delta) {
+        pending.compute(date, (day, counts) -> {
+            long[] c = counts != null ? counts : new long[4];
+            c[0] += delta;
+            c[1 + status.ordinal()] += delta;
+            return c;
+        });
+    }
+
+    /**
+     * 將累積的增量合併到彙總表；失敗時把增量放回，下次再試
+     */
+    @Scheduled(fixedDelayString = "${checkin.stats.flush-interval-ms:5000}")
+    @PreDestroy
+    public synchronized void flush() {
+        List<DailyCheckInStats> deltas = new ArrayList<>();
+        for (LocalDate date : new ArrayList<>(pending.keySet())) {
+            long[] c = pending.remove(date);
+            if (c != null) {
+                deltas.add(new DailyCheckInStats(date, c[0], c[1], c[2], c[3]));
+            }
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(
+                    status -> dailyCheckInStatsRepository.addDeltas(deltas));
+            logger.debug("每日打卡統計增量已合併，天數: {}", deltas.size());
+        } catch (RuntimeException e) {
+            logger.warn("每日打卡統計增量合併失敗，稍後重試，原因: {}", e.getMessage());
+            for (DailyCheckInStats d : deltas) {
+                pending.compute(d.getStatDate(), (day, counts) -> {
+                    long[] c = counts != null ? counts : new long[4];
+                    c[0] += d.getTotalCount();
+                    c[1] += d.getNormalCount();
+                    c[2] += d.getLateCount();
+                    c[3] += d.getEarlyCount();
+                    return c;
+                });
+            }
+        }
+    }
+
+    /**
+     * 每天校正最近幾天（不含今天）的彙總
+     */
+    @Scheduled(cron = "${checkin.stats.reconcile-cron:0 30 0 * * *}")
+    public void reconcileRecentDays() {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        reconcile(yesterday.minusDays(reconcileDays - 1L), yesterday);
+    }
+
+    /**
+     * 依原始打卡記錄重建日期範圍內的彙總
+     * 重建前先合併記憶體中的增量，避免重建後又被重複累加
+     * 已封存月份的原始記錄不在 checkin_records 中，重建會清空彙總，因此不允許
+     * @param from 開始日期（含）
+     * @param to 結束日期（含）
+     * @return 重建後的每日統計
+     */
+    public synchronized List<DailyCheckInStats> reconcile(LocalDate from, LocalDate to) {
+        if (from.isAfter(to) || ChronoUnit.DAYS.between(from, to) >= MAX_RECONCILE_DAYS) {
+            throw new InvalidInputException(
+                    "Reconcile range must be non-empty and at most " + MAX_RECONCILE_DAYS + " days");
+        }
+        for (YearMonth month = YearMonth.from(from); !month.isAfter(YearMonth.from(to)); month = month.plusMonths(1)) {
+            if (checkInArchiveRepository.isArchived(month)) {
+                throw new InvalidInputException("Check-ins of " + month + " are archived and cannot be reconciled");
+            }
+        }
+        flush();
+
+        long start = System.nanoTime();
+        int days = new TransactionTemplate(transactionManager).execute(
+                status -> dailyCheckInStatsRepository.rebuild(from, to));
+        logger.info("每日打卡統計已校正，範圍: {} ~ {}, 有打卡的天數: {}, 耗時: {}ms",
+                from, to, days, (System.nanoTime() - start) / 1_000_000);
+        return getStats(from, to);
+    }
+
+    /**
+     * 獲取最近幾天（含今天）的每日統計，沒有打卡的日子補零
+     * @param days 天數，未指定時使用預設值
+     * @return 每日統計，按日期排序
+     */
+    public List<DailyCheckInStats> getDailyStats(Integer days) {
+        int n = days != null ? days : defaultDays;
+        if (n < 1 || n > MAX_DAYS) {
+            throw new InvalidInputException("days must be between 1 and " + MAX_DAYS);
+        }
+        LocalDate today = LocalDate.now();
+        return getStats(today.minusDays(n - 1L), today);
+    }
+
+    private List<DailyCheckInStats> getStats(LocalDate from, LocalDate to) {
+        Map<LocalDate, DailyCheckInStats> stored = dailyCheckInStatsRepository
+                .findByStatDateBetweenOrderByStatDate(from, to).stream()
+                .collect(Collectors.toMap(DailyCheckInStats::getStatDate, Function.identity()));
+        List<DailyCheckInStats> result = new ArrayList<>();
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            result.add(stored.getOrDefault(date, new DailyCheckInStats(date, 0, 0, 0, 0)));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,166 @@
+package com.lifecheckin.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.lifecheckin.backend.dto.CheckInView;
+import com.lifecheckin.backend.exception.DuplicateCheckInException;
+import com.lifecheckin.backend.exception.InvalidInputException;
+import com.lifecheckin.backend.model.CheckIn;
+import com.lifecheckin.backend.model.IdempotencyRecord;
+import com.lifecheckin.backend.repository.IdempotencyRecordRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Idempotency-Key 服務
+ * 記住帶有 Idempotency-Key 的打卡請求第一次成功的回應，重送時直接回傳同一份回應，
+ * 不再執行打卡交易。先查有容量上限與到期時間的記憶體快取，未命中時再查資料庫。
+ * 資料庫中的回應與打卡記錄在同一個交易中寫入，已提交的打卡一定找得到它的回應。
+ */
+@Service
+public class IdempotencyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    @Value("${checkin.idempotency.ttl-hours:24}")
+    private long ttlHours;
+
+    @Value("${checkin.idempotency.cache-size:100000}")
+    private long cacheSize;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Cache<String, CheckInView> responses;
+
+    // 正在處理中的鍵，避免同一個鍵的併發重送同時執行打卡
+    private final ConcurrentHashMap<String, Boolean> inFlight = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        responses = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(Duration.ofHours(ttlHours))
+                .build();
+    }
+
+    /**
+     * 以 Idempotency-Key 執行打卡：同一用戶、同一個鍵只會真正執行一次，重送時回傳第一次的回應
+     * @param username 用戶名
+     * @param idempotencyKey Idempotency-Key
+     * @param action 實際的打卡操作；收到的回呼須在寫入打卡記錄的交易中執行，用來保存回應
+     * @return 打卡記錄投影（第一次執行的結果）
+     */
+    public CheckInView execute(String username, String idempotencyKey,
+                               Function<Consumer<CheckIn>, CheckInView> action) {
+        if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new InvalidInputException("Idempotency-Key must be at most " + MAX_KEY_LENGTH + " characters");
+        }
+
+        String cacheKey = username + '\n' + idempotencyKey;
+        CheckInView cached = responses.getIfPresent(cacheKey);
+        if (cached != null) {
+            logger.debug("重送的打卡請求，直接回傳快取回應，用戶: {}", username);
+            return cached;
+        }
+
+        if (inFlight.putIfAbsent(cacheKey, Boolean.TRUE) != null) {
+            throw new DuplicateCheckInException("A check-in with this Idempotency-Key is already in progress");
+        }
+        try {
+            Optional<CheckInView> stored = findStored(username, idempotencyKey);
+            if (stored.isPresent()) {
+                responses.put(cacheKey, stored.get());
+                return stored.get();
+            }
+
+            CheckInView result;
+            try {
+                result = action.apply(checkIn -> store(username, idempotencyKey, CheckInView.from(checkIn)));
+            } catch (DuplicateCheckInException e) {
+                // 其他節點可能剛以同一個鍵完成打卡，再查一次資料庫
+                stored = findStored(username, idempotencyKey);
+                if (stored.isPresent()) {
+                    responses.put(cacheKey, stored.get());
+                    return stored.get();
+                }
+                throw e;
+            }
+
+            responses.put(cacheKey, result);
+            return result;
+        } finally {
+            inFlight.remove(cacheKey);
+        }
+    }
+
+    /**
+     * 定期刪除資料庫中已過期的回應記錄
+     */
+    @Scheduled(fixedDelayString = "${checkin.idempotency.cleanup-interval-ms:3600000}")
+    public void deleteExpired() {
+        int deleted = idempotencyRecordRepository.deleteExpired(LocalDateTime.now());
+        if (deleted > 0) {
+            logger.info("已刪除 {} 筆過期的 Idempotency-Key 記錄", deleted);
+        }
+    }
+
+    /**
+     * 只清除記憶體快取（測試用，模擬重新啟動或其他節點）
+     */
+    void evictCache() {
+        responses.invalidateAll();
+    }
+
+    private Optional<CheckInView> findStored(String username, String idempotencyKey) {
+        return idempotencyRecordRepository
+                .findByUsernameAndIdempotencyKeyAndExpiresAtAfter(username, idempotencyKey, LocalDateTime.now())
+                .map(record -> {
+                    try {
+                        return objectMapper.readValue(record.getResponseBody(), CheckInView.class);
+                    } catch (JsonProcessingException e) {
+                        throw new IllegalStateException("Stored idempotent response is unreadable", e);
+                    }
+                });
+    }
+
+    /**
+     * 在打卡的交易中將回應寫入資料庫；失敗時打卡一併回滾
+     */
+    private void store(String username, String idempotencyKey, CheckInView response) {
+        String body;
+        try {
+            body = objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Idempotent response cannot be serialized", e);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        idempotencyRecordRepository.deleteExpiredKey(username, idempotencyKey, now);
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setUsername(username);
+        record.setIdempotencyKey(idempotencyKey);
+        record.setResponseBody(body);
+        record.setCreatedAt(now);
+        record.setExpiresAt(now.plusHours(ttlHours));
+        idempotencyRecordRepository.save(record);
+    }
+}
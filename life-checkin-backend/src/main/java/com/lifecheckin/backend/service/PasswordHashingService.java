@@ -0,0 +1,194 @@
+package com.lifecheckin.backend.service;
+
+import com.lifecheckin.backend.exception.PasswordHashingBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 密碼雜湊服務
+ * BCrypt 刻意消耗大量 CPU，登入或註冊尖峰時若在 Tomcat 請求執行緒上直接計算，會佔滿 CPU 與請求執行緒，拖慢打卡等其他 API。
+ * 所有密碼雜湊與驗證都交給固定大小的執行緒池計算，同時計算的數量不超過執行緒數；
+ * 等待佇列有上限，佇列已滿或等待超時時立即拋出 PasswordHashingBusyException（回應 503），不讓請求堆積。
+ * 儲存的雜湊成本與設定的成本不同時，登入成功後以新成本重新雜湊（見 CustomUserDetailsService.updatePassword）。
+ */
+@Service
+public class PasswordHashingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PasswordHashingService.class);
+
+    private static final Pattern BCRYPT_COST = Pattern.compile("\\A\\$2[aby]?\\$(\\d\\d)\\$.{53}");
+
+    // 計算雜湊的執行緒數，0 表示使用 CPU 核心數
+    @Value("${security.password-hashing.threads:0}")
+    private int threads;
+
+    // 等待計算的最大請求數，超過時回應 503
+    @Value("${security.password-hashing.queue-capacity:32}")
+    private int queueCapacity;
+
+    // 請求等待計算完成的最長時間
+    @Value("${security.password-hashing.wait-timeout-ms:5000}")
+    private long waitTimeoutMs;
+
+    // BCrypt 成本（log2 輪數），變更後舊密碼在用戶下次登入時重新雜湊
+    @Value("${security.password-hashing.bcrypt-strength:10}")
+    private int bcryptStrength;
+
+    @Autowired
+    private BCryptPasswordEncoder bCryptPasswordEncoder;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private ThreadPoolExecutor executor;
+
+    private Timer encodeTimer;
+    private Timer verifyTimer;
+    private Timer waitTimer;
+    private Counter rejected;
+    private Counter rehashed;
+
+    @PostConstruct
+    public void init() {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+
+        encodeTimer = meterRegistry.timer("auth.password.hash.duration", "operation", "encode");
+        verifyTimer = meterRegistry.timer("auth.password.hash.duration", "operation", "verify");
+        waitTimer = meterRegistry.timer("auth.password.hash.wait");
+        rejected = meterRegistry.counter("auth.password.hash.rejected");
+        rehashed = meterRegistry.counter("auth.password.rehash");
+        meterRegistry.gauge("auth.password.hash.queue.depth", executor, e -> e.getQueue().size());
+        meterRegistry.gauge("auth.password.hash.active", executor, ThreadPoolExecutor::getActiveCount);
+        logger.info("密碼雜湊執行緒池已建立，執行緒數: {}, 佇列上限: {}, BCrypt 成本: {}",
+                poolSize, queueCapacity, bcryptStrength);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 以設定的成本雜湊密碼
+     * @param rawPassword 原始密碼
+     * @return BCrypt 雜湊
+     * @throws PasswordHashingBusyException 執行緒池已滿或等待超時時
+     */
+    public String encode(CharSequence rawPassword) {
+        return execute(encodeTimer, () -> bCryptPasswordEncoder.encode(rawPassword));
+    }
+
+    /**
+     * 驗證密碼
+     * @param rawPassword 原始密碼
+     * @param encodedPassword 儲存的雜湊
+     * @return 是否相符
+     * @throws PasswordHashingBusyException 執行緒池已滿或等待超時時
+     */
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return execute(verifyTimer, () -> bCryptPasswordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * 儲存的雜湊是否需要以目前的成本重新雜湊（成本調高或調低都會重新雜湊）
+     * @param encodedPassword 儲存的雜湊
+     * @return 是 BCrypt 雜湊且成本與設定不同時為 true
+     */
+    public boolean needsRehash(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_COST.matcher(encodedPassword);
+        return matcher.matches() && Integer.parseInt(matcher.group(1)) != bcryptStrength;
+    }
+
+    /**
+     * 記錄一次登入時的重新雜湊
+     */
+    void recordRehash() {
+        rehashed.increment();
+    }
+
+    /**
+     * 供 DaoAuthenticationProvider 使用的密碼編碼器，登入時的驗證與重新雜湊同樣經過執行緒池
+     */
+    public PasswordEncoder passwordEncoder() {
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                return PasswordHashingService.this.encode(rawPassword);
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return PasswordHashingService.this.matches(rawPassword, encodedPassword);
+            }
+
+            @Override
+            public boolean upgradeEncoding(String encodedPassword) {
+                return needsRehash(encodedPassword);
+            }
+        };
+    }
+
+    private <T> T execute(Timer timer, Callable<T> task) {
+        long submitted = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                waitTimer.record(System.nanoTime() - submitted, TimeUnit.NANOSECONDS);
+                return timer.recordCallable(task);
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            logger.warn("密碼雜湊佇列已滿，拒絕請求，等待中: {}", executor.getQueue().size());
+            throw new PasswordHashingBusyException("Authentication service is busy, please retry later");
+        }
+        try {
+            return future.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejected.increment();
+            logger.warn("密碼雜湊等待超過 {}ms，放棄請求", waitTimeoutMs);
+            throw new PasswordHashingBusyException("Authentication service is busy, please retry later");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingBusyException("Password hashing was interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.lifecheckin.backend.service;
+
+import com.lifecheckin.backend.dto.LoginResponse;
+import com.lifecheckin.backend.dto.RefreshTokenLookup;
+import com.lifecheckin.backend.exception.InvalidRefreshTokenException;
+import com.lifecheckin.backend.model.RefreshToken;
+import com.lifecheckin.backend.model.User;
+import com.lifecheckin.backend.repository.RefreshTokenRepository;
+import com.lifecheckin.backend.security.JwtUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * 刷新令牌服務
+ * 存取令牌的有效期很短，過期後以刷新令牌換發新的存取令牌與刷新令牌，不需要重新輸入密碼，也不計算 BCrypt。
+ * 刷新令牌是隨機值，資料庫只保存它的 HMAC-SHA256；刷新時以雜湊經索引查詢一次，同時取得簽發存取令牌需要的用戶欄位。
+ * 每個刷新令牌只能使用一次：已使用過的令牌再次出現，表示令牌可能外洩，同一次登入（family）的所有令牌一起撤銷。
+ */
+@Service
+public class RefreshTokenService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    private static final int TOKEN_BYTES = 32;
+
+    @Value("${jwt.refresh-token.secret:${jwt.secret}}")
+    private String secret;
+
+    @Value("${jwt.refresh-token.expiration-days:30}")
+    private long expirationDays;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final SecureRandom random = new SecureRandom();
+
+    private SecretKeySpec hmacKey;
+
+    // Mac 不是執行緒安全的，每個執行緒各用一個
+    private final ThreadLocal<Mac> mac = ThreadLocal.withInitial(() -> {
+        try {
+            Mac instance = Mac.getInstance("HmacSHA256");
+            instance.init(hmacKey);
+            return instance;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    });
+
+    private Counter refreshed;
+    private Counter reused;
+
+    @PostConstruct
+    public void init() {
+        hmacKey = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+        refreshed = meterRegistry.counter("auth.refresh.success");
+        reused = meterRegistry.counter("auth.refresh.reuse");
+    }
+
+    /**
+     * 登入成功後簽發新的刷新令牌（新的 family）
+     * @param user 用戶
+     * @return 刷新令牌
+     */
+    @Transactional
+    public String issue(User user) {
+        return issue(user.getId(), UUID.randomUUID().toString(),
+                user.getTokenVersion() != null ? user.getTokenVersion() : 0);
+    }
+
+    /**
+     * 以刷新令牌換發新的存取令牌與刷新令牌，舊的刷新令牌隨即失效
+     * 令牌被重複使用或用戶的令牌版本已變更時撤銷整個 family；撤銷在拋出異常後仍會提交
+     * @param token 刷新令牌
+     * @return 新的存取令牌與刷新令牌
+     * @throws InvalidRefreshTokenException 令牌不存在、已過期、已撤銷或已使用過時
+     */
+    @Transactional(noRollbackFor = InvalidRefreshTokenException.class)
+    public LoginResponse refresh(String token) {
+        if (token == null || token.isEmpty()) {
+            throw new InvalidRefreshTokenException("Refresh token is required");
+        }
+        RefreshTokenLookup lookup = refreshTokenRepository.findLookupByTokenHash(hash(token))
+                .orElseThrow(() -> new InvalidRefreshTokenException("Invalid refresh token"));
+
+        LocalDateTime now = LocalDateTime.now();
+        if (!lookup.getExpiresAt().isAfter(now)) {
+            throw new InvalidRefreshTokenException("Refresh token has expired");
+        }
+        if (!Objects.equals(lookup.getTokenVersion(), lookup.getUserTokenVersion())) {
+            // 用戶名、密碼、角色或時區已變更，這次登入的令牌都不再有效
+            refreshTokenRepository.revokeFamily(lookup.getFamilyId());
+            throw new InvalidRefreshTokenException("Refresh token is no longer valid, please log in again");
+        }
+        if (refreshTokenRepository.markUsed(lookup.getId(), now) == 0) {
+            int revoked = refreshTokenRepository.revokeFamily(lookup.getFamilyId());
+            reused.increment();
+            logger.warn("刷新令牌被重複使用，已撤銷同一次登入的 {} 個令牌，用戶ID: {}", revoked, lookup.getUserId());
+            throw new InvalidRefreshTokenException("Refresh token has already been used or revoked");
+        }
+
+        String refreshToken = issue(lookup.getUserId(), lookup.getFamilyId(), lookup.getUserTokenVersion());
+        String accessToken = jwtUtil.generateToken(lookup.toUser());
+        refreshed.increment();
+        logger.debug("已換發令牌，用戶ID: {}", lookup.getUserId());
+        return new LoginResponse(accessToken, refreshToken);
+    }
+
+    /**
+     * 每小時刪除已過期的刷新令牌
+     */
+    @Scheduled(fixedDelayString = "${jwt.refresh-token.cleanup-interval-ms:3600000}")
+    public void deleteExpired() {
+        int deleted = refreshTokenRepository.deleteExpired(LocalDateTime.now());
+        if (deleted > 0) {
+            logger.info("已刪除 {} 筆過期的刷新令牌", deleted);
+        }
+    }
+
+    private String issue(Long userId, String familyId, int tokenVersion) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        LocalDateTime now = LocalDateTime.now();
+        RefreshToken refreshToken = new RefreshToken();
+        refreshToken.setTokenHash(hash(token));
+        refreshToken.setUserId(userId);
+        refreshToken.setFamilyId(familyId);
+        refreshToken.setTokenVersion(tokenVersion);
+        refreshToken.setIssuedAt(now);
+        refreshToken.setExpiresAt(now.plusDays(expirationDays));
+        refreshTokenRepository.save(refreshToken);
+        return token;
+    }
+
+    /**
+     * 令牌的 HMAC-SHA256，資料庫外洩也無法由雜湊得到可用的令牌
+     */
+    private String hash(String token) {
+        byte[] digest = mac.get().doFinal(token.getBytes(StandardCharsets.US_ASCII));
+        return Base64.getEncoder().withoutPadding().encodeToString(digest);
+    }
+}
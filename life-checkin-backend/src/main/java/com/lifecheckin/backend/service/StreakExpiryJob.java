@@ -0,0 +1,159 @@
+package com.lifecheckin.backend.service;
+
+import com.lifecheckin.backend.dto.StreakExpiryResult;
+import com.lifecheckin.backend.model.JobCheckpoint;
+import com.lifecheckin.backend.repository.JobCheckpointRepository;
+import com.lifecheckin.backend.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 連續打卡歸零工作
+ * 每天把最後打卡早於昨天、連續打卡已中斷的用戶天數歸零，讀取 streak_days 的地方不必再自行判斷。
+ * 依主鍵游標分批處理，每批一個短交易、一條 UPDATE，不會長時間鎖住 users。
+ * 每批提交時一併記錄進度，工作中斷後再執行會從上次的位置繼續。
+ */
+@Service
+public class StreakExpiryJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(StreakExpiryJob.class);
+
+    static final String JOB_NAME = "streak-expiry";
+
+    @Value("${checkin.streak-expiry.chunk-size:1000}")
+    private int chunkSize;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JobCheckpointRepository jobCheckpointRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong lastProcessedId = new AtomicLong();
+
+    private Counter expiredUsers;
+    private Counter chunks;
+    private Timer runTimer;
+    private Timer chunkTimer;
+
+    @PostConstruct
+    public void init() {
+        expiredUsers = meterRegistry.counter("checkin.streak.expiry.users");
+        chunks = meterRegistry.counter("checkin.streak.expiry.chunks");
+        runTimer = meterRegistry.timer("checkin.streak.expiry.duration");
+        chunkTimer = meterRegistry.timer("checkin.streak.expiry.chunk.duration");
+        meterRegistry.gauge("checkin.streak.expiry.running", running, r -> r.get() ? 1 : 0);
+        meterRegistry.gauge("checkin.streak.expiry.last.id", lastProcessedId);
+    }
+
+    /**
+     * 每天凌晨執行
+     */
+    @Scheduled(cron = "${checkin.streak-expiry.cron:0 15 0 * * *}")
+    public void runScheduled() {
+        run();
+    }
+
+    /**
+     * 執行一輪歸零；今天這一輪已中斷時從上次提交的位置繼續，已完成時不再掃描
+     * @return 執行結果
+     */
+    public StreakExpiryResult run() {
+        StreakExpiryResult result = new StreakExpiryResult();
+        LocalDate today = LocalDate.now();
+        result.setRunDate(today);
+        if (!running.compareAndSet(false, true)) {
+            logger.warn("連續打卡歸零工作已在執行中，略過這次執行");
+            result.setSkipped(true);
+            return result;
+        }
+
+        long start = System.nanoTime();
+        try {
+            // 用戶可設定時區，取所有時區中最早的昨天開始時間，只歸零在任何時區都已中斷的連續打卡
+            LocalDateTime cutoff = CheckInDays.earliestStartOfYesterday(
+                    LocalDateTime.now(), userRepository.findDistinctTimeZones());
+            JobCheckpoint checkpoint = jobCheckpointRepository.findById(JOB_NAME)
+                    .filter(c -> c.getRunDate().equals(today))
+                    .orElseGet(() -> newCheckpoint(today));
+            if (checkpoint.isFinished()) {
+                logger.info("今天的連續打卡歸零工作已完成，不再執行");
+                return result;
+            }
+
+            long afterId = checkpoint.getLastId();
+            result.setResumedAfterId(afterId);
+            if (afterId > 0) {
+                logger.info("連續打卡歸零工作從用戶ID {} 之後繼續", afterId);
+            }
+
+            TransactionTemplate tx = new TransactionTemplate(transactionManager);
+            while (true) {
+                long chunkStart = System.nanoTime();
+                long from = afterId;
+                Integer expired = tx.execute(status -> {
+                    List<Long> ids = userRepository.findExpiredStreakIds(from, cutoff, Limit.of(chunkSize));
+                    checkpoint.setLastId(ids.isEmpty() ? from : ids.get(ids.size() - 1));
+                    checkpoint.setFinished(ids.size() < chunkSize);
+                    checkpoint.setUpdatedAt(LocalDateTime.now());
+                    jobCheckpointRepository.save(checkpoint);
+                    return ids.isEmpty() ? 0 : userRepository.expireStreaks(ids, cutoff);
+                });
+                chunkTimer.record(System.nanoTime() - chunkStart, TimeUnit.NANOSECONDS);
+                chunks.increment();
+                expiredUsers.increment(expired);
+                result.setChunks(result.getChunks() + 1);
+                result.setExpiredUsers(result.getExpiredUsers() + expired);
+
+                afterId = checkpoint.getLastId();
+                lastProcessedId.set(afterId);
+                if (checkpoint.isFinished()) {
+                    break;
+                }
+            }
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            runTimer.record(elapsed, TimeUnit.NANOSECONDS);
+            result.setElapsedMillis(elapsed / 1_000_000);
+            running.set(false);
+        }
+        logger.info("連續打卡歸零工作完成，歸零用戶: {}, 批數: {}, 耗時: {}ms",
+                result.getExpiredUsers(), result.getChunks(), result.getElapsedMillis());
+        return result;
+    }
+
+    private JobCheckpoint newCheckpoint(LocalDate runDate) {
+        JobCheckpoint checkpoint = new JobCheckpoint();
+        checkpoint.setJobName(JOB_NAME);
+        checkpoint.setRunDate(runDate);
+        checkpoint.setLastId(0L);
+        checkpoint.setFinished(false);
+        checkpoint.setUpdatedAt(LocalDateTime.now());
+        return checkpoint;
+    }
+}
@@ -0,0 +1,273 @@
+package com.lifecheckin.backend.service;
+
+import com.lifecheckin.backend.dto.LeaderboardEntry;
+import com.lifecheckin.backend.dto.UserStreak;
+import com.lifecheckin.backend.exception.InvalidInputException;
+import com.lifecheckin.backend.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * 連續打卡排行榜
+ * 在記憶體中以跳躍串列依連續天數排序所有連續打卡仍在進行中（最後打卡為今天或昨天）的用戶，
+ * 並以各連續天數的人數計算名次，查詢排行榜與自己的名次都不需存取資料庫。
+ * 啟動時由 users 表重建；打卡更新連續天數後，在交易提交時更新；每天午夜移除已中斷的連續打卡。
+ * 只看得到本節點寫入的打卡，多節點部署時各節點的排行榜會有差異，直到下次重建。
+ */
+@Service
+public class StreakLeaderboard {
+
+    private static final Logger logger = LoggerFactory.getLogger(StreakLeaderboard.class);
+
+    private static final Comparator<Entry> ORDER = Comparator
+            .comparingInt((Entry e) -> e.streakDays).reversed()
+            .thenComparingLong(e -> e.userId);
+
+    @Value("${checkin.leaderboard.default-limit:10}")
+    private int defaultLimit;
+
+    @Value("${checkin.leaderboard.max-limit:100}")
+    private int maxLimit;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final ConcurrentHashMap<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Long> userIdsByUsername = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Entry> ranking = new ConcurrentSkipListSet<>(ORDER);
+    // 連續天數 -> 人數，用來計算名次（比自己天數多的人數 + 1）
+    private final ConcurrentSkipListMap<Integer, AtomicLong> streakCounts = new ConcurrentSkipListMap<>();
+
+    /**
+     * 啟動時由 users 表重建排行榜
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        long start = System.nanoTime();
+        entries.clear();
+        userIdsByUsername.clear();
+        ranking.clear();
+        streakCounts.clear();
+
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readOnly.executeWithoutResult(status -> {
+            try (Stream<UserStreak> streaks = userRepository.streamActiveStreaks(
+                    LocalDate.now().minusDays(1).atStartOfDay())) {
+                streaks.forEach(this::apply);
+            }
+        });
+        logger.info("連續打卡排行榜已重建，上榜用戶: {}, 耗時: {}ms",
+                entries.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * 每天午夜移除昨天沒有打卡、連續打卡已中斷的用戶
+     */
+    @Scheduled(cron = "${checkin.leaderboard.expire-cron:0 0 0 * * *}")
+    public synchronized void expire() {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        int removed = 0;
+        for (Entry entry : new ArrayList<>(entries.values())) {
+            if (entry.lastCheckIn.toLocalDate().isBefore(yesterday)) {
+                remove(entry);
+                removed++;
+            }
+        }
+        logger.info("連續打卡排行榜已移除中斷的連續打卡: {}", removed);
+    }
+
+    /**
+     * 更新用戶的連續打卡狀態；在交易中呼叫時等交易提交後才更新
+     * @param streaks 用戶目前的連續打卡狀態
+     */
+    public void update(Collection<UserStreak> streaks) {
+        afterCommit(() -> {
+            synchronized (this) {
+                streaks.forEach(this::apply);
+            }
+        });
+    }
+
+    /**
+     * 依排行榜上的上次打卡時間，以與 UserRepository.updateCheckInStreak 相同的規則推算用戶打卡後的連續打卡狀態，
+     * 省去更新後再讀回 users 的查詢。須在打卡的交易提交、排行榜更新之前呼叫。
+     * 不在排行榜上的用戶（新用戶或連續打卡已中斷）無法推算，不會出現在結果中
+     * @param userIds 用戶ID集合
+     * @param now 本次打卡時間
+     * @param startOfToday 今天的開始時間
+     * @param startOfYesterday 昨天的開始時間
+     * @return 推算出的連續打卡狀態
+     */
+    public List<UserStreak> afterCheckIn(Collection<Long> userIds, LocalDateTime now,
+                                         LocalDateTime startOfToday, LocalDateTime startOfYesterday) {
+        List<UserStreak> streaks = new ArrayList<>();
+        for (Long userId : userIds) {
+            Entry entry = entries.get(userId);
+            if (entry != null) {
+                int streakDays = !entry.lastCheckIn.isBefore(startOfToday) ? entry.streakDays
+                        : !entry.lastCheckIn.isBefore(startOfYesterday) ? entry.streakDays + 1 : 1;
+                streaks.add(new UserStreak(userId, entry.username, streakDays, now));
+            }
+        }
+        return streaks;
+    }
+
+    /**
+     * 用戶改名後更新排行榜上的用戶名；在交易中呼叫時等交易提交後才更新
+     * @param userId 用戶ID
+     * @param username 新用戶名
+     */
+    public void rename(Long userId, String username) {
+        afterCommit(() -> {
+            synchronized (this) {
+                Entry entry = entries.get(userId);
+                if (entry != null && !entry.username.equals(username)) {
+                    remove(entry);
+                    add(new Entry(userId, username, entry.streakDays, entry.lastCheckIn));
+                }
+            }
+        });
+    }
+
+    /**
+     * 將用戶移出排行榜（用戶被刪除時）；在交易中呼叫時等交易提交後才移除
+     * @param userId 用戶ID
+     */
+    public void remove(Long userId) {
+        afterCommit(() -> {
+            synchronized (this) {
+                Entry entry = entries.get(userId);
+                if (entry != null) {
+                    remove(entry);
+                }
+            }
+        });
+    }
+
+    /**
+     * 獲取連續打卡天數最多的用戶
+     * @param limit 筆數，未指定時使用預設值
+     * @return 排行榜，連續天數相同者名次相同
+     */
+    public List<LeaderboardEntry> top(Integer limit) {
+        int n = limit != null ? limit : defaultLimit;
+        if (n < 1 || n > maxLimit) {
+            throw new InvalidInputException("limit must be between 1 and " + maxLimit);
+        }
+        List<LeaderboardEntry> result = new ArrayList<>(n);
+        int rank = 0;
+        int previousStreak = -1;
+        for (Entry entry : ranking) {
+            if (result.size() == n) {
+                break;
+            }
+            if (entry.streakDays != previousStreak) {
+                rank = result.size() + 1;
+                previousStreak = entry.streakDays;
+            }
+            result.add(new LeaderboardEntry(rank, entry.username, entry.streakDays));
+        }
+        return result;
+    }
+
+    /**
+     * 獲取用戶在排行榜上的名次
+     * @param username 用戶名
+     * @return 名次與連續天數；沒有進行中的連續打卡時名次為 null、天數為 0
+     */
+    public LeaderboardEntry rankOf(String username) {
+        Long userId = userIdsByUsername.get(username);
+        Entry entry = userId != null ? entries.get(userId) : null;
+        if (entry == null) {
+            return new LeaderboardEntry(null, username, 0);
+        }
+        long ahead = 0;
+        for (AtomicLong count : streakCounts.tailMap(entry.streakDays, false).values()) {
+            ahead += count.get();
+        }
+        return new LeaderboardEntry((int) Math.min(ahead + 1, Integer.MAX_VALUE), entry.username, entry.streakDays);
+    }
+
+    private void apply(UserStreak streak) {
+        Entry existing = entries.get(streak.getUserId());
+        if (existing != null) {
+            remove(existing);
+        }
+        if (streak.getStreakDays() != null && streak.getStreakDays() > 0 && streak.getLastCheckInDate() != null
+                && !streak.getLastCheckInDate().toLocalDate().isBefore(LocalDate.now().minusDays(1))) {
+            add(new Entry(streak.getUserId(), streak.getUsername(), streak.getStreakDays(),
+                    streak.getLastCheckInDate()));
+        }
+    }
+
+    private void add(Entry entry) {
+        entries.put(entry.userId, entry);
+        userIdsByUsername.put(entry.username, entry.userId);
+        streakCounts.computeIfAbsent(entry.streakDays, days -> new AtomicLong()).incrementAndGet();
+        ranking.add(entry);
+    }
+
+    private void remove(Entry entry) {
+        ranking.remove(entry);
+        streakCounts.computeIfPresent(entry.streakDays,
+                (days, count) -> count.decrementAndGet() == 0 ? null : count);
+        userIdsByUsername.remove(entry.username, entry.userId);
+        entries.remove(entry.userId, entry);
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * 排行榜上的一位用戶（不可變，更新時以新的項目取代）
+     */
+    private static final class Entry {
+        private final long userId;
+        private final String username;
+        private final int streakDays;
+        private final LocalDateTime lastCheckIn;
+
+        private Entry(long userId, String username, int streakDays, LocalDateTime lastCheckIn) {
+            this.userId = userId;
+            this.username = username;
+            this.streakDays = streakDays;
+            this.lastCheckIn = lastCheckIn;
+        }
+    }
+}
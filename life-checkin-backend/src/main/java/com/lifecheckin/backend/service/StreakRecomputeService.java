@@ -0,0 +1,135 @@
+package com.lifecheckin.backend.service;
+
+import com.lifecheckin.backend.dto.StreakDiff;
+import com.lifecheckin.backend.dto.StreakRecomputeResult;
+import com.lifecheckin.backend.repository.CheckInArchiveRepository;
+import com.lifecheckin.backend.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 連續打卡重新計算服務
+ * 依 checkin_records 一次算出所有用戶目前與歷史最長的連續天數，修正 users 中累加時產生的偏差
+ * （例如直接修改或刪除打卡記錄後）。可以只列出差異而不寫入。
+ * 已封存的記錄不在 checkin_records 中，有封存檔時最長連續天數只會調高，
+ * 延續到封存月份的目前連續天數與沒有未封存記錄的最後打卡時間保留原值。
+ */
+@Service
+public class StreakRecomputeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StreakRecomputeService.class);
+
+    @Value("${checkin.streak-recompute.max-reported-diffs:1000}")
+    private int maxReportedDiffs;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private StreakLeaderboard streakLeaderboard;
+
+    @Autowired
+    private CheckInArchiveRepository checkInArchiveRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * 重新計算所有用戶的連續打卡狀態
+     * @param dryRun true 時只回傳差異，不寫入
+     * @return 計算結果
+     */
+    public StreakRecomputeResult recompute(boolean dryRun) {
+        return recompute(dryRun, LocalDateTime.now());
+    }
+
+    StreakRecomputeResult recompute(boolean dryRun, LocalDateTime now) {
+        long start = System.nanoTime();
+        StreakRecomputeResult result = new StreakRecomputeResult();
+        result.setDryRun(dryRun);
+        result.setEngine(userRepository.streakEngine());
+
+        List<StreakDiff> diffs = userRepository.findStreakDiffs(cutoffOf(now));
+        if (!checkInArchiveRepository.isEmpty()) {
+            diffs = withArchivedHistory(diffs, now.toLocalDate());
+        }
+        result.setChangedUsers(diffs.size());
+        result.setDiffsTruncated(diffs.size() > maxReportedDiffs);
+        result.setDiffs(new ArrayList<>(diffs.subList(0, Math.min(diffs.size(), maxReportedDiffs))));
+
+        if (!dryRun && !diffs.isEmpty()) {
+            List<StreakDiff> changes = diffs;
+            Integer applied = new TransactionTemplate(transactionManager)
+                    .execute(status -> userRepository.applyStreakDiffs(changes));
+            result.setAppliedUsers(applied != null ? applied : 0);
+            streakLeaderboard.rebuild();
+        }
+
+        result.setElapsedMillis((System.nanoTime() - start) / 1_000_000);
+        logger.info("連續打卡重新計算完成，方式: {}, 有差異用戶: {}, 已寫入: {}, 只比較: {}, 耗時: {}ms",
+                result.getEngine(), result.getChangedUsers(), result.getAppliedUsers(), dryRun,
+                result.getElapsedMillis());
+        return result;
+    }
+
+    /**
+     * 重新計算指定用戶的連續打卡狀態並寫入（例如匯入歷史打卡後），規則與 recompute 相同
+     * 在呼叫端的交易中執行，排行榜由呼叫端更新
+     * @param userIds 用戶ID集合
+     * @return 實際更新的用戶數
+     */
+    public int recompute(Collection<Long> userIds) {
+        LocalDateTime now = LocalDateTime.now();
+        List<StreakDiff> diffs = userRepository.findStreakDiffs(cutoffOf(now), userIds);
+        if (!checkInArchiveRepository.isEmpty()) {
+            diffs = withArchivedHistory(diffs, now.toLocalDate());
+        }
+        return diffs.isEmpty() ? 0 : userRepository.applyStreakDiffs(diffs);
+    }
+
+    /**
+     * 連續打卡是否中斷的界線，與連續打卡歸零工作相同：取所有用戶時區中最早的昨天開始時間，
+     * 時區落後於伺服器的用戶，昨天的打卡不會被當成已中斷
+     */
+    private LocalDateTime cutoffOf(LocalDateTime now) {
+        return CheckInDays.earliestStartOfYesterday(now, userRepository.findDistinctTimeZones());
+    }
+
+    /**
+     * 依封存記錄修正只由 checkin_records 算出的結果，修正後與原值相同的用戶不再列為差異
+     */
+    private List<StreakDiff> withArchivedHistory(List<StreakDiff> diffs, LocalDate today) {
+        // 未封存記錄的第一天；連續打卡從這天（或更早）開始時，可能延續到封存月份
+        LocalDate firstHotDay = checkInArchiveRepository.archivedMonths().last().plusMonths(1).atDay(1);
+        List<StreakDiff> adjusted = new ArrayList<>(diffs.size());
+        for (StreakDiff diff : diffs) {
+            int recomputed = diff.getRecomputedStreakDays();
+            if (recomputed > 0 && !today.minusDays(recomputed).isAfter(firstHotDay)) {
+                diff.setRecomputedStreakDays(Math.max(recomputed, diff.getStoredStreakDays()));
+            }
+            diff.setRecomputedLongestStreakDays(Math.max(diff.getRecomputedLongestStreakDays(),
+                    Math.max(diff.getStoredLongestStreakDays(), diff.getRecomputedStreakDays())));
+            if (diff.getRecomputedLastCheckInDate() == null) {
+                diff.setRecomputedLastCheckInDate(diff.getStoredLastCheckInDate());
+            }
+            if (diff.getStoredStreakDays() != diff.getRecomputedStreakDays()
+                    || diff.getStoredLongestStreakDays() != diff.getRecomputedLongestStreakDays()
+                    || !Objects.equals(diff.getStoredLastCheckInDate(), diff.getRecomputedLastCheckInDate())) {
+                adjusted.add(diff);
+            }
+        }
+        return adjusted;
+    }
+}
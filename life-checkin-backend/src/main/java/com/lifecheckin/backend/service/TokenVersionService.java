@@ -0,0 +1,72 @@
+package com.lifecheckin.backend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.lifecheckin.backend.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * 令牌版本檢查
+ * 令牌帶有簽發時用戶的令牌版本；用戶名、密碼、角色或時區變更後 users.token_version 加一，舊令牌隨即失效。
+ * 版本以用戶ID快取在記憶體中，每個請求不需要查詢資料庫；本節點的變更在交易提交後立即生效，
+ * 其他節點最晚在快取到期（ttl-seconds）後生效。
+ */
+@Service
+public class TokenVersionService {
+
+    @Value("${jwt.token-version-cache.size:100000}")
+    private long cacheSize;
+
+    @Value("${jwt.token-version-cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    // 用戶ID -> 目前的令牌版本；用戶不存在時為 Optional.empty()
+    private Cache<Long, Optional<Integer>> versions;
+
+    @PostConstruct
+    public void init() {
+        versions = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+    /**
+     * 令牌中的版本是否仍是用戶目前的版本
+     * @param userId 用戶ID
+     * @param tokenVersion 令牌中的版本
+     * @return 用戶存在且版本相同時為 true
+     */
+    public boolean isCurrent(Long userId, int tokenVersion) {
+        Optional<Integer> current = versions.get(userId, userRepository::findTokenVersionById);
+        return current.isPresent() && current.get() == tokenVersion;
+    }
+
+    /**
+     * 用戶的令牌版本已變更或用戶已刪除；在交易中呼叫時等交易提交後才移除快取
+     * @param userId 用戶ID
+     */
+    public void invalidate(Long userId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    versions.invalidate(userId);
+                }
+            });
+        } else {
+            versions.invalidate(userId);
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.lifecheckin.backend.service;
+
+import com.lifecheckin.backend.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+
+/**
+ * 用戶名與郵箱的 Bloom filter
+ * 註冊表單每次輸入都會檢查用戶名或郵箱是否可用。filter 回答「一定不存在」時直接回覆可用，不查詢資料庫；
+ * 只有回答「可能存在」時才由資料庫確認。值在加入前先正規化（去除前後空白、轉小寫），用戶名與郵箱以前綴區分、共用一個 filter。
+ * 啟動時以串流掃描 users 建立，註冊或修改用戶時在寫入前加入新值；Bloom filter 無法移除，
+ * 改名或刪除留下的舊值只會多一次資料庫查詢，每天重建時清除。
+ * 只看得到本節點寫入的用戶，多節點部署時其他節點剛註冊的值可能被回覆為可用；註冊本身仍由唯一約束把關。
+ */
+@Service
+public class UserAvailabilityFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserAvailabilityFilter.class);
+
+    private static final String USERNAME_PREFIX = "u:";
+    private static final String EMAIL_PREFIX = "e:";
+
+    @Value("${security.availability-filter.enabled:true}")
+    private boolean enabled;
+
+    // 預期的用戶數，實際用戶較多時依實際數量建立
+    @Value("${security.availability-filter.expected-users:1000000}")
+    private long expectedUsers;
+
+    // 誤判為「可能存在」的機率，誤判時多一次資料庫查詢
+    @Value("${security.availability-filter.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private volatile Bits current;
+
+    private Counter definitelyAbsent;
+    private Counter mayExist;
+
+    @PostConstruct
+    public void init() {
+        definitelyAbsent = meterRegistry.counter("auth.availability.filter", "result", "absent");
+        mayExist = meterRegistry.counter("auth.availability.filter", "result", "maybe");
+    }
+
+    /**
+     * 啟動時建立
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    /**
+     * 每天重建，清除改名或刪除留下的舊值，並依目前的用戶數調整大小
+     */
+    @Scheduled(cron = "${security.availability-filter.rebuild-cron:0 30 3 * * *}")
+    public void runScheduled() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    /**
+     * 重新建立 filter
+     * 先換上新的 filter 再掃描，掃描期間寫入的用戶也會加入新的 filter；掃描完成前的查詢退回資料庫
+     */
+    public synchronized void rebuild() {
+        long start = System.nanoTime();
+        long users = Math.max(expectedUsers, userRepository.count() * 3 / 2);
+        // 每位用戶加入用戶名與郵箱兩個值
+        Bits bits = new Bits(users * 2, falsePositiveRate);
+        current = bits;
+
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        long count = readOnly.execute(status -> {
+            long loaded = 0;
+            try (Stream<Object[]> rows = userRepository.streamUsernamesAndEmails()) {
+                for (Object[] row : (Iterable<Object[]>) rows::iterator) {
+                    bits.add(key(USERNAME_PREFIX, (String) row[0]));
+                    bits.add(key(EMAIL_PREFIX, (String) row[1]));
+                    loaded++;
+                }
+            }
+            return loaded;
+        });
+        bits.ready = true;
+        logger.info("用戶名與郵箱 Bloom filter 已建立，用戶: {}, 大小: {}KB, 雜湊數: {}, 耗時: {}ms",
+                count, bits.words.length() / 128, bits.hashes, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * 用戶名是否可能已被使用
+     * @param username 用戶名
+     * @return false 表示一定未被使用；true 表示需要查詢資料庫確認
+     */
+    public boolean mayContainUsername(String username) {
+        return mayContain(key(USERNAME_PREFIX, username));
+    }
+
+    /**
+     * 郵箱是否可能已被使用
+     * @param email 郵箱
+     * @return false 表示一定未被使用；true 表示需要查詢資料庫確認
+     */
+    public boolean mayContainEmail(String email) {
+        return mayContain(key(EMAIL_PREFIX, email));
+    }
+
+    /**
+     * 加入即將寫入的用戶名與郵箱
+     * 在寫入資料庫前呼叫，寫入完成後不會有 filter 仍回答「一定不存在」的空窗；寫入失敗只會多出一個誤判
+     * @param username 用戶名，null 表示未變更
+     * @param email 郵箱，null 表示未變更
+     */
+    public void add(String username, String email) {
+        Bits bits = current;
+        if (bits == null) {
+            return;
+        }
+        if (username != null) {
+            bits.add(key(USERNAME_PREFIX, username));
+        }
+        if (email != null) {
+            bits.add(key(EMAIL_PREFIX, email));
+        }
+    }
+
+    private boolean mayContain(String key) {
+        Bits bits = current;
+        if (!enabled || bits == null || !bits.ready) {
+            return true;
+        }
+        boolean result = bits.mayContain(key);
+        (result ? mayExist : definitelyAbsent).increment();
+        return result;
+    }
+
+    private static String key(String prefix, String value) {
+        return prefix + value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Bloom filter 的位元陣列
+     * 以兩個 64 位元雜湊組合出 k 個位置（Kirsch-Mitzenmacher），讀寫皆不需加鎖
+     */
+    private static final class Bits {
+        private final AtomicLongArray words;
+        private final long size;
+        private final int hashes;
+        private volatile boolean ready;
+
+        private Bits(long expectedInsertions, double falsePositiveRate) {
+            long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (bits + 63) / 64));
+            this.words = new AtomicLongArray(wordCount);
+            this.size = (long) wordCount * 64;
+            this.hashes = Math.max(1, (int) Math.round((double) size / expectedInsertions * Math.log(2)));
+        }
+
+        private void add(String key) {
+            long h1 = hash(key);
+            long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+            for (int i = 0; i < hashes; i++) {
+                long bit = Long.remainderUnsigned(h1 + i * h2, size);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long value = words.get(word);
+                while ((value & mask) == 0 && !words.compareAndSet(word, value, value | mask)) {
+                    value = words.get(word);
+                }
+            }
+        }
+
+        private boolean mayContain(String key) {
+            long h1 = hash(key);
+            long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+            for (int i = 0; i < hashes; i++) {
+                long bit = Long.remainderUnsigned(h1 + i * h2, size);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * UTF-8 位元組的 FNV-1a 雜湊，再以 MurmurHash3 的 fmix64 打散
+         */
+        private static long hash(String key) {
+            long h = 0xcbf29ce484222325L;
+            for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+                h ^= b & 0xff;
+                h *= 0x100000001b3L;
+            }
+            return mix(h);
+        }
+
+        private static long mix(long h) {
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb9fe1a85ec53L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+}
@@ -4,15 +4,23 @@ import com.lifecheckin.backend.exception.InvalidInputException;
 import com.lifecheckin.backend.exception.ResourceNotFoundException;
 import com.lifecheckin.backend.exception.UserAlreadyExistsException;
 import com.lifecheckin.backend.model.User;
+import com.lifecheckin.backend.repository.CheckInCalendarRepository;
+import com.lifecheckin.backend.repository.RefreshTokenRepository;
 import com.lifecheckin.backend.repository.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.DateTimeException;
+import java.time.ZoneId;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 /**
@@ -28,7 +36,25 @@ public class UserService {
     private UserRepository userRepository;
 
     @Autowired
-    private BCryptPasswordEncoder bCryptPasswordEncoder;
+    private CheckInCalendarRepository checkInCalendarRepository;
+
+    @Autowired
+    private StreakLeaderboard streakLeaderboard;
+
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+
+    @Autowired
+    private TokenVersionService tokenVersionService;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private UserAvailabilityFilter userAvailabilityFilter;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
 
     /**
      * 獲取所有用戶
@@ -51,28 +77,17 @@ public class UserService {
 
     /**
      * 創建新用戶
+     * 以單一 INSERT 寫入，用戶名或郵箱重複由唯一約束判斷，不事先查詢；
+     * 不在交易中計算密碼雜湊，等待雜湊時不佔用資料庫連線
      * @param user 用戶對象
      * @return 創建的用戶
      */
-    @Transactional
     public User createUser(User user) {
         logger.info("開始創建新用戶: {}", user.getUsername());
 
-        // 檢查用戶名是否已存在
-        if(userRepository.findByUsername(user.getUsername()).isPresent()) {
-            logger.warn("用戶名已存在: {}", user.getUsername());
-            throw new UserAlreadyExistsException("Username already exists: " + user.getUsername());
-        }
-
-        // 檢查郵箱是否已存在
-        if(user.getEmail() != null && userRepository.findByEmail(user.getEmail()).isPresent()) {
-            logger.warn("郵箱已存在: {}", user.getEmail());
-            throw new UserAlreadyExistsException("Email already exists: " + user.getEmail());
-        }
-
         // 加密密碼 - 確保使用加密
         String rawPassword = user.getPassword();
-        String encodedPassword = bCryptPasswordEncoder.encode(rawPassword);
+        String encodedPassword = passwordHashingService.encode(rawPassword);
         user.setPassword(encodedPassword);
         logger.debug("密碼已加密，原始長度: {}, 加密後長度: {}",
                 rawPassword.length(), encodedPassword.length());
@@ -84,19 +99,20 @@ public class UserService {
         }
 
         // 保存用戶
-        User savedUser = userRepository.save(user);
+        User savedUser = insert(user);
         logger.info("用戶創建成功: {}, ID: {}", savedUser.getUsername(), savedUser.getId());
         return savedUser;
     }
 
     /**
      * 註冊新用戶
+     * 以單一 INSERT 寫入，用戶名或郵箱重複由唯一約束判斷，同時註冊的請求也不會都通過檢查
      * @param username 用戶名
      * @param email 電子郵件
      * @param rawPassword 原始密碼
      * @return 註冊成功的用戶
+     * @throws UserAlreadyExistsException 用戶名或郵箱已存在時
      */
-    @Transactional
     public User registerUser(String username, String email, String rawPassword) {
         logger.info("開始註冊新用戶: {}", username);
 
@@ -114,25 +130,13 @@ public class UserService {
             throw new InvalidInputException("Password must be at least 6 characters");
         }
 
-        // 檢查用戶名是否已存在
-        if (userRepository.findByUsername(username).isPresent()) {
-            logger.warn("註冊失敗: 用戶名已存在: {}", username);
-            throw new UserAlreadyExistsException("Username already exists: " + username);
-        }
-
-        // 檢查郵箱是否已存在
-        if (userRepository.findByEmail(email).isPresent()) {
-            logger.warn("註冊失敗: 郵箱已存在: {}", email);
-            throw new UserAlreadyExistsException("Email already exists: " + email);
-        }
-
         // 創建新用戶
         User user = new User();
         user.setUsername(username);
         user.setEmail(email);
 
         // 加密密碼 - 明確記錄
-        String encodedPassword = bCryptPasswordEncoder.encode(rawPassword);
+        String encodedPassword = passwordHashingService.encode(rawPassword);
         user.setPassword(encodedPassword);
         logger.debug("密碼已加密，原始密碼長度: {}, 加密後密碼長度: {}",
                 rawPassword.length(), encodedPassword.length());
@@ -140,31 +144,35 @@ public class UserService {
         user.setRoles("ROLE_USER");
 
         // 保存用戶
-        User savedUser = userRepository.save(user);
+        User savedUser = insert(user);
         logger.info("用戶註冊成功: {}, ID: {}", savedUser.getUsername(), savedUser.getId());
-
-        // 檢查保存後的用戶
-        Optional<User> checkUser = userRepository.findByUsername(username);
-        if (checkUser.isPresent()) {
-            logger.debug("驗證用戶已保存到資料庫: {}", username);
-        } else {
-            logger.error("用戶保存後無法從資料庫檢索: {}", username);
-        }
-
         return savedUser;
     }
 
     /**
      * 檢查用戶名是否存在
+     * 先查 Bloom filter，回答「一定不存在」時不查詢資料庫
      * @param username 用戶名
      * @return 是否存在
      */
     public boolean existsByUsername(String username) {
-        boolean exists = userRepository.findByUsername(username).isPresent();
+        boolean exists = userAvailabilityFilter.mayContainUsername(username) && userRepository.existsByUsername(username);
         logger.debug("檢查用戶名是否存在: {}, 結果: {}", username, exists);
         return exists;
     }
 
+    /**
+     * 檢查郵箱是否存在
+     * 先查 Bloom filter，回答「一定不存在」時不查詢資料庫
+     * @param email 郵箱
+     * @return 是否存在
+     */
+    public boolean existsByEmail(String email) {
+        boolean exists = userAvailabilityFilter.mayContainEmail(email) && userRepository.existsByEmail(email);
+        logger.debug("檢查郵箱是否存在: {}, 結果: {}", email, exists);
+        return exists;
+    }
+
     /**
      * 根據用戶名查找用戶
      * @param username 用戶名
@@ -188,56 +196,94 @@ public class UserService {
 
     /**
      * 更新用戶信息
+     * 新密碼先在交易外計算雜湊，等待雜湊時不佔用資料庫連線，之後才在交易中讀取並寫入用戶
      * @param id 用戶ID
      * @param updatedUser 更新的用戶信息
      * @return 更新後的用戶
      */
-    @Transactional
     public User updateUser(Long id, User updatedUser) {
         logger.info("開始更新用戶信息, ID: {}", id);
 
-        return userRepository.findById(id)
+        String encodedPassword = updatedUser.getPassword() != null && !updatedUser.getPassword().isEmpty()
+                ? passwordHashingService.encode(updatedUser.getPassword())
+                : null;
+
+        return new TransactionTemplate(transactionManager).execute(status -> userRepository.findById(id)
                 .map(existingUser -> {
-                    // 更新用戶名（如果有變更且不與其他用戶衝突）
+                    // 令牌中帶有的欄位（用戶名、角色、時區）或密碼變更時，之前簽發的令牌失效
+                    boolean tokenClaimsChanged = false;
+
+                    // 更新用戶名（與其他用戶衝突時由唯一約束判斷）
                     if(updatedUser.getUsername() != null && !updatedUser.getUsername().equals(existingUser.getUsername())) {
-                        if(userRepository.findByUsername(updatedUser.getUsername()).isPresent()) {
-                            logger.warn("更新失敗: 用戶名已存在: {}", updatedUser.getUsername());
-                            throw new UserAlreadyExistsException("Username already exists: " + updatedUser.getUsername());
-                        }
                         existingUser.setUsername(updatedUser.getUsername());
+                        tokenClaimsChanged = true;
                         logger.debug("用戶名已更新為: {}", updatedUser.getUsername());
                     }
 
-                    // 更新郵箱（如果有變更且不與其他用戶衝突）
+                    // 更新郵箱（與其他用戶衝突時由唯一約束判斷）
                     if(updatedUser.getEmail() != null && !updatedUser.getEmail().equals(existingUser.getEmail())) {
-                        if(userRepository.findByEmail(updatedUser.getEmail()).isPresent()) {
-                            logger.warn("更新失敗: 郵箱已存在: {}", updatedUser.getEmail());
-                            throw new UserAlreadyExistsException("Email already exists: " + updatedUser.getEmail());
-                        }
                         existingUser.setEmail(updatedUser.getEmail());
                         logger.debug("郵箱已更新為: {}", updatedUser.getEmail());
                     }
 
                     // 更新密碼（如果有提供）
-                    if(updatedUser.getPassword() != null && !updatedUser.getPassword().isEmpty()) {
-                        String encodedPassword = bCryptPasswordEncoder.encode(updatedUser.getPassword());
+                    if(encodedPassword != null) {
                         existingUser.setPassword(encodedPassword);
+                        tokenClaimsChanged = true;
                         logger.debug("密碼已更新並加密");
                     }
 
                     // 更新角色（如果有變更且有適當權限）
                     if(updatedUser.getRoles() != null && !updatedUser.getRoles().isEmpty()) {
+                        tokenClaimsChanged |= !updatedUser.getRoles().equals(existingUser.getRoles());
                         existingUser.setRoles(updatedUser.getRoles());
                         logger.debug("角色已更新為: {}", updatedUser.getRoles());
                     }
 
-                    User saved = userRepository.save(existingUser);
+                    // 更新時區（如果有提供），之後的打卡日期依新時區計算
+                    if(updatedUser.getTimeZone() != null) {
+                        String timeZone = validTimeZone(updatedUser.getTimeZone());
+                        tokenClaimsChanged |= !Objects.equals(timeZone, existingUser.getTimeZone());
+                        existingUser.setTimeZone(timeZone);
+                        logger.debug("時區已更新為: {}", existingUser.getTimeZone());
+                    }
+
+                    if (tokenClaimsChanged) {
+                        int version = existingUser.getTokenVersion() != null ? existingUser.getTokenVersion() : 0;
+                        existingUser.setTokenVersion(version + 1);
+                        tokenVersionService.invalidate(id);
+                        logger.debug("令牌版本已更新為: {}", existingUser.getTokenVersion());
+                    }
+
+                    // 立即寫入，用戶名或郵箱衝突在這裡轉換為 UserAlreadyExistsException
+                    userAvailabilityFilter.add(existingUser.getUsername(), existingUser.getEmail());
+                    User saved;
+                    try {
+                        saved = userRepository.saveAndFlush(existingUser);
+                    } catch (DataIntegrityViolationException e) {
+                        throw duplicateUser(e, existingUser);
+                    }
+                    streakLeaderboard.rename(saved.getId(), saved.getUsername());
                     logger.info("用戶信息更新成功, ID: {}", id);
                     return saved;
                 }).orElseThrow(() -> {
                     logger.error("用戶不存在, ID: {}", id);
                     return new ResourceNotFoundException("User not found with id: " + id);
-                });
+                }));
+    }
+
+    /**
+     * 以目前設定的 BCrypt 成本重新雜湊密碼（登入成功後由認證流程呼叫）
+     * @param username 用戶名
+     * @param oldHash 驗證時讀到的雜湊
+     * @param newHash 以新成本計算的雜湊
+     * @return 是否已更新；密碼在驗證後已被修改時為 false
+     */
+    @Transactional
+    public boolean rehashPassword(String username, String oldHash, String newHash) {
+        boolean updated = userRepository.replacePasswordHash(username, oldHash, newHash) > 0;
+        logger.debug("密碼重新雜湊: {}, 結果: {}", username, updated);
+        return updated;
     }
 
     /**
@@ -252,7 +298,79 @@ public class UserService {
             logger.error("用戶不存在, ID: {}", id);
             throw new ResourceNotFoundException("User not found with id: " + id);
         }
+        checkInCalendarRepository.deleteByUserIdIn(List.of(id));
+        refreshTokenRepository.deleteByUserId(id);
         userRepository.deleteById(id);
+        streakLeaderboard.remove(id);
+        tokenVersionService.invalidate(id);
         logger.info("用戶已刪除, ID: {}", id);
     }
-}
\ No newline at end of file
+
+    /**
+     * 以單一 INSERT 寫入新用戶並立即執行，唯一約束衝突轉換為 UserAlreadyExistsException
+     */
+    private User insert(User user) {
+        userAvailabilityFilter.add(user.getUsername(), user.getEmail());
+        try {
+            return userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            throw duplicateUser(e, user);
+        }
+    }
+
+    /**
+     * 依違反的唯一約束判斷重複的是用戶名還是郵箱
+     * @param e 資料完整性異常
+     * @param user 寫入的用戶
+     * @return UserAlreadyExistsException；不是用戶名或郵箱的唯一約束時為原異常
+     */
+    private RuntimeException duplicateUser(DataIntegrityViolationException e, User user) {
+        String field = violatedUniqueField(e);
+        if ("username".equals(field)) {
+            logger.warn("用戶名已存在: {}", user.getUsername());
+            return new UserAlreadyExistsException("Username already exists: " + user.getUsername());
+        }
+        if ("email".equals(field)) {
+            logger.warn("郵箱已存在: {}", user.getEmail());
+            return new UserAlreadyExistsException("Email already exists: " + user.getEmail());
+        }
+        return e;
+    }
+
+    /**
+     * 違反的唯一約束對應的欄位
+     * 依約束名稱（uk_users_username、uk_users_email）判斷；
+     * 舊資料庫中由 Hibernate 自動命名的約束已在啟動時由 UserConstraintInitializer 改名
+     * @param e 資料完整性異常
+     * @return username、email，無法判斷或不是唯一約束時為 null
+     */
+    static String violatedUniqueField(DataIntegrityViolationException e) {
+        if (!(e.getCause() instanceof ConstraintViolationException violation)) {
+            return null;
+        }
+        String constraint = violation.getConstraintName() != null ? violation.getConstraintName().toLowerCase() : "";
+        if (constraint.contains(User.USERNAME_CONSTRAINT)) {
+            return "username";
+        }
+        if (constraint.contains(User.EMAIL_CONSTRAINT)) {
+            return "email";
+        }
+        return null;
+    }
+
+    /**
+     * 驗證時區ID
+     * @param timeZone IANA 時區ID，空字串表示清除設定、改用伺服器時區
+     * @return 正規化後的時區ID，清除時為 null
+     */
+    private String validTimeZone(String timeZone) {
+        if (timeZone.isBlank()) {
+            return null;
+        }
+        try {
+            return ZoneId.of(timeZone.trim()).getId();
+        } catch (DateTimeException e) {
+            throw new InvalidInputException("Invalid time zone: " + timeZone);
+        }
+    }
+}
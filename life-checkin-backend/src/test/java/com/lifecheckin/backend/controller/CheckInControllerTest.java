@@ -0,0 +1,99 @@
+package com.lifecheckin.backend.controller;
+
+import com.lifecheckin.backend.dto.CheckInView;
+import com.lifecheckin.backend.model.CheckIn;
+import com.lifecheckin.backend.model.User;
+import com.lifecheckin.backend.repository.CheckInArchiveRepository;
+import com.lifecheckin.backend.repository.CheckInRepository;
+import com.lifecheckin.backend.repository.UserRepository;
+import com.lifecheckin.backend.security.JwtPrincipal;
+import com.lifecheckin.backend.service.CheckInArchiveService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@SpringBootTest
+class CheckInControllerTest {
+
+    @Autowired
+    private CheckInController checkInController;
+
+    @Autowired
+    private CheckInArchiveService checkInArchiveService;
+
+    @Autowired
+    private CheckInArchiveRepository checkInArchiveRepository;
+
+    @Autowired
+    private CheckInRepository checkInRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @TempDir
+    Path archiveDir;
+
+    @Test
+    void myCheckInsPageAcrossArchivedMonths() {
+        LocalDate today = LocalDate.now();
+        YearMonth older = YearMonth.from(today).minusMonths(14);
+        YearMonth old = YearMonth.from(today).minusMonths(13);
+        User user = userRepository.save(new User("paging-archive", "paging-archive@example.com", "hash"));
+        CheckIn first = save(user, older.atDay(3).atTime(7, 0));
+        CheckIn second = save(user, old.atDay(20).atTime(8, 0));
+        CheckIn third = save(user, old.atDay(25).atTime(8, 0));
+        CheckIn yesterday = save(user, today.minusDays(1).atTime(8, 0));
+        CheckIn latest = save(user, today.atTime(6, 0));
+
+        CheckInArchiveRepository target = AopTestUtils.getUltimateTargetObject(checkInArchiveRepository);
+        Object originalDir = ReflectionTestUtils.getField(target, "directory");
+        ReflectionTestUtils.setField(target, "directory", archiveDir.toString());
+        target.load();
+        ReflectionTestUtils.setField(checkInArchiveService, "enabled", true);
+        try {
+            checkInArchiveService.archive(today);
+            // 封存後補登到已封存月份、尚未再次封存的記錄，排在封存記錄之間
+            CheckIn late = save(user, old.atDay(22).atTime(8, 0));
+
+            JwtPrincipal principal = new JwtPrincipal(user.getId(), user.getUsername(), List.of("ROLE_USER"), null);
+            List<List<Long>> pages = new ArrayList<>();
+            String cursor = null;
+            do {
+                ResponseEntity<List<CheckInView>> response = checkInController.getMyCheckIns(principal, cursor, 2);
+                pages.add(response.getBody().stream().map(CheckInView::getId).toList());
+                cursor = response.getHeaders().getFirst(CheckInController.NEXT_CURSOR_HEADER);
+            } while (cursor != null && pages.size() < 10);
+
+            assertEquals(List.of(
+                    List.of(latest.getId(), yesterday.getId()),
+                    List.of(third.getId(), late.getId()),
+                    List.of(second.getId(), first.getId())), pages);
+            assertNull(cursor);
+        } finally {
+            ReflectionTestUtils.setField(checkInArchiveService, "enabled", false);
+            ReflectionTestUtils.setField(target, "directory", originalDir);
+            target.load();
+        }
+    }
+
+    private CheckIn save(User user, LocalDateTime time) {
+        CheckIn checkIn = new CheckIn();
+        checkIn.setUser(user);
+        checkIn.setCheckinTime(time);
+        return checkInRepository.save(checkIn);
+    }
+}
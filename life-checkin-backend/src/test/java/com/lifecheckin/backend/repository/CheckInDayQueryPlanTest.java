@@ -0,0 +1,75 @@
+package com.lifecheckin.backend.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 以 EXPLAIN 檢查依日期查詢打卡記錄的 SQL 會使用索引
+ * SQL 與 CheckInRepository 中 findByUserAndDate、findByUserIdAndTimeRange 產生的條件相同。
+ */
+@SpringBootTest
+class CheckInDayQueryPlanTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void dayQueriesUseIndexes() {
+        LocalDate today = LocalDate.now();
+        String byDate = explain("SELECT id FROM checkin_records WHERE user_id = ? AND checkin_date = ?",
+                1L, today);
+        // checkin_records 轉換為分區表後，各分區的索引名稱由 PostgreSQL 依欄位產生
+        assertTrue(byDate.toLowerCase().contains("uk_user_checkin_date")
+                || byDate.contains("user_id_checkin_date_key"), byDate);
+
+        String byTimeRange = explain("SELECT id FROM checkin_records "
+                        + "WHERE user_id = ? AND checkin_time >= ? AND checkin_time < ? ORDER BY checkin_time",
+                1L, today.atStartOfDay(), today.plusDays(1).atStartOfDay());
+        assertTrue(byTimeRange.toLowerCase().contains("idx_user_checkin_time")
+                || byTimeRange.contains("user_id_checkin_time_idx"), byTimeRange);
+    }
+
+    private String explain(String sql, Object... params) {
+        return jdbcTemplate.execute((ConnectionCallback<String>) con -> {
+            boolean postgres = "PostgreSQL".equalsIgnoreCase(con.getMetaData().getDatabaseProductName());
+            if (postgres) {
+                // 測試資料很少時 PostgreSQL 會選擇循序掃描，關閉後才看得出索引是否可用
+                execute(con, "SET enable_seqscan = off");
+            }
+            try (PreparedStatement ps = con.prepareStatement("EXPLAIN " + sql)) {
+                for (int i = 0; i < params.length; i++) {
+                    ps.setObject(i + 1, params[i]);
+                }
+                StringBuilder plan = new StringBuilder();
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        plan.append(rs.getString(1)).append('\n');
+                    }
+                }
+                return plan.toString();
+            } finally {
+                if (postgres) {
+                    execute(con, "RESET enable_seqscan");
+                }
+            }
+        });
+    }
+
+    private static void execute(Connection con, String sql) throws SQLException {
+        try (Statement statement = con.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+}
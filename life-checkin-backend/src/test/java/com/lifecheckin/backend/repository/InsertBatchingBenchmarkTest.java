@@ -0,0 +1,92 @@
+package com.lifecheckin.backend.repository;
+
+import com.lifecheckin.backend.model.CheckIn;
+import com.lifecheckin.backend.model.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 實體插入吞吐量基準測試
+ * 以每批 1,000 筆、每批一個交易的方式插入用戶與打卡記錄，回報每秒插入筆數。
+ * 預設不執行，使用 mvn test -Dbenchmark=true -Dtest=InsertBatchingBenchmarkTest 啟動。
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "logging.level.com.lifecheckin.backend=INFO",
+        "logging.level.org.springframework.security=INFO",
+        "logging.level.org.springframework.web=INFO"
+})
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class InsertBatchingBenchmarkTest {
+
+    private static final int USERS = 2_000;
+    private static final int DAYS = 10;
+    private static final int CHUNK = 1_000;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CheckInRepository checkInRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void measureInsertThroughput() {
+        // 暖機
+        run("warmup", userRepository::saveAll, checkInRepository::saveAll);
+
+        run("saveAll", userRepository::saveAll, checkInRepository::saveAll);
+        run("saveAllBatched", userRepository::saveAllBatched, checkInRepository::saveAllBatched);
+    }
+
+    private void run(String mode,
+                     Function<List<User>, List<User>> saveUsers,
+                     Function<List<CheckIn>, List<CheckIn>> saveCheckIns) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+        List<User> users = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            users.add(new User(mode + "-" + i, mode + "-" + i + "@example.com", "not-a-real-hash"));
+        }
+
+        List<User> saved = new ArrayList<>(USERS);
+        long start = System.nanoTime();
+        for (int from = 0; from < USERS; from += CHUNK) {
+            List<User> chunk = users.subList(from, Math.min(from + CHUNK, USERS));
+            saved.addAll(tx.execute(status -> saveUsers.apply(chunk)));
+        }
+        double userRate = USERS / ((System.nanoTime() - start) / 1_000_000_000.0);
+
+        List<CheckIn> checkIns = new ArrayList<>(USERS * DAYS);
+        LocalDate firstDay = LocalDate.now().minusDays(DAYS + 1);
+        for (int day = 0; day < DAYS; day++) {
+            for (User user : saved) {
+                CheckIn checkIn = new CheckIn();
+                checkIn.setUser(user);
+                checkIn.setCheckinTime(firstDay.plusDays(day).atTime(8, 0));
+                checkIn.setCheckinDate(firstDay.plusDays(day));
+                checkIns.add(checkIn);
+            }
+        }
+
+        start = System.nanoTime();
+        for (int from = 0; from < checkIns.size(); from += CHUNK) {
+            List<CheckIn> chunk = checkIns.subList(from, Math.min(from + CHUNK, checkIns.size()));
+            tx.execute(status -> saveCheckIns.apply(chunk));
+        }
+        double checkInRate = checkIns.size() / ((System.nanoTime() - start) / 1_000_000_000.0);
+
+        System.out.printf("[benchmark] mode=%s users=%.0f/s checkins=%.0f/s%n", mode, userRate, checkInRate);
+    }
+}
@@ -0,0 +1,85 @@
+package com.lifecheckin.backend.security;
+
+import com.lifecheckin.backend.model.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.Function;
+
+/**
+ * 每個請求的 JWT 驗證成本基準測試
+ * 比較三種方式驗證同一個令牌的平均耗時：
+ * legacy：原本的流程，每次驗證解析四次、每次重建密鑰與解析器；
+ * single-parse：共用解析器，只解析一次（不使用快取）；
+ * cached：已驗證令牌快取命中。
+ * 專案沒有引入 JMH，這裡以暖機後的多輪計時近似。
+ * 預設不執行，使用 mvn test -Dbenchmark=true -Dtest=JwtAuthBenchmarkTest 啟動。
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class JwtAuthBenchmarkTest {
+
+    private static final String SECRET = "0123456789abcdef0123456789abcdef0123456789";
+    private static final int ITERATIONS = 50_000;
+    private static final int ROUNDS = 5;
+
+    @Test
+    void measurePerRequestAuthCost() {
+        JwtUtil uncached = jwtUtil(0);
+        JwtUtil cached = jwtUtil(10_000);
+        String token = cached.generateToken(user());
+
+        Function<String, String> legacy = t -> {
+            // isTokenExpired、extractUsername、validateToken 內的兩次解析
+            for (int i = 0; i < 3; i++) {
+                legacyParse(t);
+            }
+            return legacyParse(t).getSubject();
+        };
+        for (int round = 0; round < ROUNDS; round++) {
+            run("legacy", legacy, token, ITERATIONS / 4);
+            run("single-parse", uncached::validateTokenAndGetUsername, token, ITERATIONS);
+            run("cached", cached::validateTokenAndGetUsername, token, ITERATIONS);
+        }
+    }
+
+    private static Claims legacyParse(String token) {
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+    private static User user() {
+        User user = new User("benchmark-user", "benchmark-user@example.com", "hash");
+        user.setId(1L);
+        return user;
+    }
+
+    private static JwtUtil jwtUtil(long cacheSize) {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secretString", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 3_600_000L);
+        ReflectionTestUtils.setField(jwtUtil, "verifiedCacheSize", cacheSize);
+        jwtUtil.init();
+        return jwtUtil;
+    }
+
+    private static void run(String mode, Function<String, String> verify, String token, int iterations) {
+        long start = System.nanoTime();
+        int hits = 0;
+        for (int i = 0; i < iterations; i++) {
+            if (verify.apply(token) != null) {
+                hits++;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("[benchmark] mode=%s iterations=%d valid=%d ns/op=%d%n",
+                mode, iterations, hits, elapsed / iterations);
+    }
+}
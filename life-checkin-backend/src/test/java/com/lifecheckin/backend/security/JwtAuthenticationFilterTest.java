@@ -0,0 +1,137 @@
+package com.lifecheckin.backend.security;
+
+import com.lifecheckin.backend.model.User;
+import com.lifecheckin.backend.repository.UserRepository;
+import com.lifecheckin.backend.service.TokenVersionService;
+import com.lifecheckin.backend.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+class JwtAuthenticationFilterTest {
+
+    @Value("${jwt.secret}")
+    private String secret;
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private TokenVersionService tokenVersionService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void buildsPrincipalFromClaimsAndRejectsTokensAfterRoleChange() throws Exception {
+        User user = new User("filter-user", "filter-user@example.com", "hash");
+        user.setTimeZone("Europe/Paris");
+        user = userRepository.save(user);
+        String token = jwtUtil.generateToken(user);
+
+        Authentication authentication = authenticate(token);
+        JwtPrincipal principal = (JwtPrincipal) authentication.getPrincipal();
+        assertEquals(user.getId(), principal.getUserId());
+        assertEquals("filter-user", authentication.getName());
+        assertEquals("Europe/Paris", principal.getTimeZone());
+        assertEquals(List.of("ROLE_USER"),
+                authentication.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList());
+
+        // 角色變更後令牌版本加一，舊令牌失效，新令牌帶新角色
+        User change = new User();
+        change.setRoles("ROLE_USER,ROLE_ADMIN");
+        User updated = userService.updateUser(user.getId(), change);
+        assertNull(authenticate(token));
+        assertEquals(List.of("ROLE_USER", "ROLE_ADMIN"), authenticate(jwtUtil.generateToken(updated))
+                .getAuthorities().stream().map(GrantedAuthority::getAuthority).toList());
+    }
+
+    @Test
+    void rejectsMissingOrInvalidTokensWithUnauthorized() throws Exception {
+        // 與其他測試共用同一個應用上下文（@AutoConfigureMockMvc 會另建上下文）
+        MockMvc mockMvc = MockMvcBuilders.webAppContextSetup(context).apply(springSecurity()).build();
+        User user = userRepository.save(new User("unauthorized-user", "unauthorized-user@example.com", "hash"));
+        String current = jwtUtil.generateToken(user);
+        mockMvc.perform(get("/api/checkins/today").header("Authorization", "Bearer " + current))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/checkins/today")).andExpect(status().isUnauthorized());
+
+        // 已過期
+        Key key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        String expired = signedToken(user, new Date(System.currentTimeMillis() - 60_000), key);
+        mockMvc.perform(get("/api/checkins/today").header("Authorization", "Bearer " + expired))
+                .andExpect(status().isUnauthorized());
+
+        // 簽名錯誤
+        Key otherKey = Keys.hmacShaKeyFor("another-secret-another-secret-another-secret".getBytes(StandardCharsets.UTF_8));
+        String forged = signedToken(user, new Date(System.currentTimeMillis() + 60_000), otherKey);
+        mockMvc.perform(get("/api/checkins/today").header("Authorization", "Bearer " + forged))
+                .andExpect(status().isUnauthorized());
+
+        // 令牌版本過舊
+        User change = new User();
+        change.setTimeZone("Asia/Tokyo");
+        userService.updateUser(user.getId(), change);
+        mockMvc.perform(get("/api/checkins/today").header("Authorization", "Bearer " + current))
+                .andExpect(status().isUnauthorized());
+    }
+
+    private String signedToken(User user, Date expiration, Key key) {
+        return Jwts.builder()
+                .claim(JwtUtil.USER_ID_CLAIM, user.getId())
+                .claim(JwtUtil.ROLES_CLAIM, List.of("ROLE_USER"))
+                .claim(JwtUtil.TOKEN_VERSION_CLAIM, user.getTokenVersion() != null ? user.getTokenVersion() : 0)
+                .setSubject(user.getUsername())
+                .setIssuedAt(new Date(expiration.getTime() - 120_000))
+                .setExpiration(expiration)
+                .signWith(key, SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    private Authentication authenticate(String token) throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/checkins/today");
+        request.addHeader("Authorization", "Bearer " + token);
+        new JwtAuthenticationFilter(jwtUtil, tokenVersionService)
+                .doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+}
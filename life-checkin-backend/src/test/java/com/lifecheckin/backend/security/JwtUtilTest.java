@@ -0,0 +1,58 @@
+package com.lifecheckin.backend.security;
+
+import com.lifecheckin.backend.model.User;
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class JwtUtilTest {
+
+    private static JwtUtil jwtUtil(long expirationMillis) {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secretString", "0123456789abcdef0123456789abcdef0123456789");
+        ReflectionTestUtils.setField(jwtUtil, "expiration", expirationMillis);
+        ReflectionTestUtils.setField(jwtUtil, "verifiedCacheSize", 100L);
+        jwtUtil.init();
+        return jwtUtil;
+    }
+
+    private static User user(Long id, String username) {
+        User user = new User(username, username + "@example.com", "hash");
+        user.setId(id);
+        user.setRoles("ROLE_USER,ROLE_ADMIN");
+        user.setTimeZone("Asia/Taipei");
+        return user;
+    }
+
+    @Test
+    void verifiesOnceAndRejectsTamperedOrExpiredTokens() {
+        JwtUtil jwtUtil = jwtUtil(60_000);
+        String token = jwtUtil.generateToken(user(1L, "alice"));
+
+        Claims claims = jwtUtil.validateTokenAndGetClaims(token);
+        assertEquals("alice", claims.getSubject());
+        // 第二次直接取用快取中的聲明
+        assertSame(claims, jwtUtil.validateTokenAndGetClaims(token));
+        assertEquals("alice", jwtUtil.validateTokenAndGetUsername(token));
+
+        JwtPrincipal principal = jwtUtil.toPrincipal(claims);
+        assertEquals(1L, principal.getUserId());
+        assertEquals("alice", principal.getName());
+        assertEquals(List.of("ROLE_USER", "ROLE_ADMIN"), principal.getRoles());
+        assertEquals("Asia/Taipei", principal.getTimeZone());
+        assertEquals(0, jwtUtil.tokenVersion(claims));
+
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+        assertNull(jwtUtil.validateTokenAndGetClaims(tampered));
+        assertNull(jwtUtil.validateTokenAndGetClaims(""));
+
+        JwtUtil expiring = jwtUtil(-1_000);
+        assertNull(expiring.validateTokenAndGetClaims(expiring.generateToken(user(2L, "bob"))));
+    }
+}
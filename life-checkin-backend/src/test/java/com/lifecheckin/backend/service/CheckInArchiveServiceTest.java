@@ -0,0 +1,111 @@
+package com.lifecheckin.backend.service;
+
+import com.lifecheckin.backend.dto.CheckInArchiveResult;
+import com.lifecheckin.backend.dto.CheckInView;
+import com.lifecheckin.backend.model.CheckIn;
+import com.lifecheckin.backend.model.User;
+import com.lifecheckin.backend.repository.CheckInArchiveRepository;
+import com.lifecheckin.backend.repository.CheckInRepository;
+import com.lifecheckin.backend.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class CheckInArchiveServiceTest {
+
+    @Autowired
+    private CheckInArchiveService checkInArchiveService;
+
+    @Autowired
+    private CheckInArchiveRepository checkInArchiveRepository;
+
+    @Autowired
+    private CheckInService checkInService;
+
+    @Autowired
+    private CheckInRepository checkInRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @TempDir
+    Path archiveDir;
+
+    @Test
+    void movesOldCheckInsIntoSegmentsAndMergesThemOnRead() {
+        LocalDate today = LocalDate.now();
+        YearMonth older = YearMonth.from(today).minusMonths(14);
+        YearMonth old = YearMonth.from(today).minusMonths(13);
+        User user = userRepository.save(new User("archive-user", "archive-user@example.com", "hash"));
+        CheckIn first = save(user, older.atDay(3).atTime(7, 30, 15, 123_000), "第一天", null);
+        CheckIn second = save(user, old.atDay(20).atTime(22, 5), null, "台北");
+        CheckIn recent = save(user, today.atTime(6, 0), "今天", "台中");
+
+        CheckInArchiveRepository target = AopTestUtils.getUltimateTargetObject(checkInArchiveRepository);
+        Object originalDir = ReflectionTestUtils.getField(target, "directory");
+        ReflectionTestUtils.setField(target, "directory", archiveDir.toString());
+        target.load();
+        ReflectionTestUtils.setField(checkInArchiveService, "enabled", true);
+        // 每筆一批，刪除時逐批讀回封存檔中的ID
+        ReflectionTestUtils.setField(checkInArchiveService, "deleteChunkSize", 1);
+        try {
+            CheckInArchiveResult result = checkInArchiveService.archive(today);
+            assertTrue(result.getArchivedMonths().containsAll(List.of(older.toString(), old.toString())),
+                    result.toString());
+            assertFalse(checkInRepository.existsById(first.getId()));
+            assertFalse(checkInRepository.existsById(second.getId()));
+            assertTrue(checkInRepository.existsById(recent.getId()));
+            assertEquals(List.of(recent.getId(), second.getId(), first.getId()), ids(user));
+
+            CheckInView archived = checkInService.getUserCheckInPage(user.getId(), null, 200).getItems().get(2);
+            assertEquals(first.getCheckinTime(), archived.getCheckinTime());
+            assertEquals(first.getCheckinDate(), archived.getCheckinDate());
+            assertEquals("第一天", archived.getNote());
+            assertEquals(first.getStatus(), archived.getStatus());
+
+            // 重新執行不會重複封存；已封存月份補進的記錄與原封存檔合併
+            assertEquals(0, checkInArchiveService.archive(today).getArchivedRows());
+            CheckIn late = save(user, old.atDay(21).atTime(9, 0), "補登", null);
+            assertEquals(1, checkInArchiveService.archive(today).getArchivedRows());
+            assertFalse(checkInRepository.existsById(late.getId()));
+            assertEquals(List.of(recent.getId(), late.getId(), second.getId(), first.getId()), ids(user));
+
+            // 重新載入封存目錄後內容相同
+            target.load();
+            assertEquals(List.of(recent.getId(), late.getId(), second.getId(), first.getId()), ids(user));
+        } finally {
+            ReflectionTestUtils.setField(checkInArchiveService, "enabled", false);
+            ReflectionTestUtils.setField(checkInArchiveService, "deleteChunkSize", 1000);
+            ReflectionTestUtils.setField(target, "directory", originalDir);
+            target.load();
+        }
+    }
+
+    private CheckIn save(User user, LocalDateTime time, String note, String location) {
+        CheckIn checkIn = new CheckIn();
+        checkIn.setUser(user);
+        checkIn.setCheckinTime(time);
+        checkIn.setNote(note);
+        checkIn.setLocation(location);
+        return checkInRepository.save(checkIn);
+    }
+
+    private List<Long> ids(User user) {
+        return checkInService.getUserCheckInPage(user.getId(), null, 200).getItems().stream()
+                .map(CheckInView::getId).toList();
+    }
+}
@@ -0,0 +1,73 @@
+package com.lifecheckin.backend.service;
+
+import com.lifecheckin.backend.dto.CheckInCalendarView;
+import com.lifecheckin.backend.model.CheckIn;
+import com.lifecheckin.backend.model.User;
+import com.lifecheckin.backend.repository.CheckInRepository;
+import com.lifecheckin.backend.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+class CheckInCalendarServiceTest {
+
+    @Autowired
+    private CheckInCalendarService checkInCalendarService;
+
+    @Autowired
+    private CheckInService checkInService;
+
+    @Autowired
+    private CheckInRepository checkInRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void calendarTracksCheckInsAndRebuildsMissingYears() {
+        User user = userRepository.save(new User("calendar", "calendar@example.com", "hash"));
+        LocalDate today = LocalDate.now();
+
+        CheckIn checkIn = new CheckIn();
+        checkIn.setUser(user);
+        CheckIn saved = checkInService.createCheckIn(checkIn);
+
+        CheckInCalendarView calendar = checkInCalendarService.getCalendar(user.getId(), today.getYear());
+        assertEquals(1, calendar.getCheckInDays());
+        assertEquals(List.of(new CheckInCalendarView.Run(today, 1)), calendar.getRuns());
+        byte[] bitmap = Base64.getDecoder().decode(calendar.getBitmap());
+        int bit = today.getDayOfYear() - 1;
+        assertEquals(1 << (bit & 7), bitmap[bit >>> 3] & 0xFF);
+
+        checkInService.deleteCheckIn(saved.getId());
+        assertEquals(0, checkInCalendarService.getCalendar(user.getId(), today.getYear()).getCheckInDays());
+
+        // 沒有日曆的年份（例如功能上線前寫入的記錄）由打卡記錄重建
+        int lastYear = today.getYear() - 1;
+        checkInRepository.saveAll(List.of(
+                pastCheckIn(user, LocalDate.of(lastYear, 12, 29)),
+                pastCheckIn(user, LocalDate.of(lastYear, 12, 30)),
+                pastCheckIn(user, LocalDate.of(lastYear, 12, 31)),
+                pastCheckIn(user, LocalDate.of(lastYear, 1, 1))));
+        CheckInCalendarView previous = checkInCalendarService.getCalendar(user.getId(), lastYear);
+        assertEquals(4, previous.getCheckInDays());
+        assertEquals(List.of(
+                new CheckInCalendarView.Run(LocalDate.of(lastYear, 1, 1), 1),
+                new CheckInCalendarView.Run(LocalDate.of(lastYear, 12, 29), 3)), previous.getRuns());
+    }
+
+    private CheckIn pastCheckIn(User user, LocalDate date) {
+        CheckIn checkIn = new CheckIn();
+        checkIn.setUser(user);
+        checkIn.setCheckinTime(date.atTime(8, 0));
+        checkIn.setCheckinDate(date);
+        return checkIn;
+    }
+}
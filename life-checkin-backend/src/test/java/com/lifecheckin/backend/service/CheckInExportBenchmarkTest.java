@@ -0,0 +1,109 @@
+package com.lifecheckin.backend.service;
+
+import com.lifecheckin.backend.model.CheckIn;
+import com.lifecheckin.backend.model.User;
+import com.lifecheckin.backend.repository.CheckInRepository;
+import com.lifecheckin.backend.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 個人打卡資料匯出的記憶體基準測試
+ * 分別匯出 10,000 筆與 100,000 筆記錄的用戶，輸出時每寫入 64KB 就執行 GC 並取樣仍在使用的 heap，
+ * 回報相對於匯出前的最高增加量（匯出過程中保留的記憶體）；串流匯出時兩者應相近，不隨筆數成長。
+ * 預設不執行，使用 mvn test -Dbenchmark=true -Dtest=CheckInExportBenchmarkTest 啟動。
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "logging.level.com.lifecheckin.backend=INFO",
+        "logging.level.org.springframework.security=INFO",
+        "logging.level.org.springframework.web=INFO"
+})
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class CheckInExportBenchmarkTest {
+
+    @Autowired
+    private CheckInExportService checkInExportService;
+
+    @Autowired
+    private CheckInRepository checkInRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void measureExportMemory() {
+        User small = createUser("export-bench-10k", 10_000);
+        User large = createUser("export-bench-100k", 100_000);
+        // 暖機
+        run("warmup", small);
+        run("rows=10000", small);
+        run("rows=100000", large);
+    }
+
+    private User createUser(String username, int rows) {
+        User user = userRepository.save(new User(username, username + "@example.com", "not-a-real-hash"));
+        LocalDate today = LocalDate.now();
+        List<CheckIn> checkIns = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            CheckIn checkIn = new CheckIn();
+            checkIn.setUser(user);
+            checkIn.setCheckinTime(today.minusDays(i + 1L).atTime(8, 0));
+            checkIn.setNote("benchmark note " + i);
+            checkIns.add(checkIn);
+        }
+        checkInRepository.saveAllBatched(checkIns);
+        return user;
+    }
+
+    private void run(String label, User user) {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        long baseline = memory.getHeapMemoryUsage().getUsed();
+        SamplingOutputStream out = new SamplingOutputStream(memory);
+        long start = System.nanoTime();
+        checkInExportService.exportUserCheckIns(user.getId(), CheckInExportService.Format.CSV, out);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        System.out.printf("[benchmark] mode=%s gzipBytes=%d elapsedMs=%d peakRetainedHeapMB=%.1f%n",
+                label, out.bytes, elapsedMillis, Math.max(0, out.peak - baseline) / 1024.0 / 1024.0);
+    }
+
+    /**
+     * 丟棄寫入的內容，只計算位元組數並在 GC 後取樣 heap 使用量
+     */
+    private static final class SamplingOutputStream extends OutputStream {
+        private static final long SAMPLE_BYTES = 64 * 1024;
+        private final MemoryMXBean memory;
+        private long bytes;
+        private long nextSample;
+        private long peak;
+
+        private SamplingOutputStream(MemoryMXBean memory) {
+            this.memory = memory;
+        }
+
+        @Override
+        public void write(int b) {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bytes += len;
+            if (bytes >= nextSample) {
+                nextSample = bytes + SAMPLE_BYTES;
+                System.gc();
+                peak = Math.max(peak, memory.getHeapMemoryUsage().getUsed());
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.lifecheckin.backend.service;
+
+import com.lifecheckin.backend.model.CheckIn;
+import com.lifecheckin.backend.model.User;
+import com.lifecheckin.backend.repository.CheckInRepository;
+import com.lifecheckin.backend.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class CheckInExportServiceTest {
+
+    @Autowired
+    private CheckInExportService checkInExportService;
+
+    @Autowired
+    private CheckInRepository checkInRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void exportsGzippedCsvAndNdjsonInTimeOrder() throws IOException {
+        User user = userRepository.save(new User("export-user", "export-user@example.com", "hash"));
+        LocalDate today = LocalDate.now();
+        CheckIn older = save(user, today.minusDays(2), "早起, 跑步", "他說\"好\"");
+        CheckIn newer = save(user, today.minusDays(1), null, null);
+
+        List<String> csv = export(user, CheckInExportService.Format.CSV);
+        assertEquals(List.of(
+                "id,checkinTime,checkinDate,note,location,status",
+                older.getId() + "," + older.getCheckinTime() + "," + older.getCheckinDate()
+                        + ",\"早起, 跑步\",\"他說\"\"好\"\"\",NORMAL",
+                newer.getId() + "," + newer.getCheckinTime() + "," + newer.getCheckinDate() + ",,,NORMAL"), csv);
+
+        List<String> ndjson = export(user, CheckInExportService.Format.NDJSON);
+        assertEquals(2, ndjson.size());
+        assertTrue(ndjson.get(0).contains("\"id\":" + older.getId()), ndjson.get(0));
+        assertTrue(ndjson.get(1).contains("\"id\":" + newer.getId()), ndjson.get(1));
+    }
+
+    private CheckIn save(User user, LocalDate day, String note, String location) {
+        CheckIn checkIn = new CheckIn();
+        checkIn.setUser(user);
+        checkIn.setCheckinTime(day.atTime(7, 0));
+        checkIn.setNote(note);
+        checkIn.setLocation(location);
+        return checkInRepository.save(checkIn);
+    }
+
+    private List<String> export(User user, CheckInExportService.Format format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        checkInExportService.exportUserCheckIns(user.getId(), format, out);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8).lines().toList();
+        }
+    }
+}
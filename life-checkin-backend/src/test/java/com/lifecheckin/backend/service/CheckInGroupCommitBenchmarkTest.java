@@ -0,0 +1,91 @@
+package com.lifecheckin.backend.service;
+
+import com.lifecheckin.backend.model.CheckIn;
+import com.lifecheckin.backend.model.User;
+import com.lifecheckin.backend.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * 打卡吞吐量基準測試
+ * 比較單筆交易與群組提交兩種寫入模式在 1k / 5k / 10k 併發打卡下的吞吐量。
+ * 預設不執行，使用 mvn test -Dbenchmark=true -Dtest=CheckInGroupCommitBenchmarkTest 啟動。
+ */
+@SpringBootTest(properties = {
+        "checkin.group-commit.enabled=true",
+        "spring.jpa.show-sql=false",
+        "logging.level.com.lifecheckin.backend=INFO",
+        "logging.level.org.springframework.security=INFO"
+})
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class CheckInGroupCommitBenchmarkTest {
+
+    private static final int[] LEVELS = {1_000, 5_000, 10_000};
+    private static final int CLIENT_THREADS = 200; // 與 Tomcat 預設最大執行緒數相同
+
+    @Autowired
+    private CheckInService checkInService;
+
+    @Autowired
+    private CheckInGroupCommitter checkInGroupCommitter;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void compareThroughput() throws Exception {
+        // 先暖機，避免 JIT 與連線池初始化影響第一組結果
+        run("warmup-direct", 1_000, checkInService::createCheckIn);
+        run("warmup-group", 1_000, checkInGroupCommitter::submitAndWait);
+
+        for (int level : LEVELS) {
+            double direct = run("direct-" + level, level, checkInService::createCheckIn);
+            double grouped = run("group-" + level, level, checkInGroupCommitter::submitAndWait);
+            System.out.printf("[benchmark] concurrent=%d direct=%.0f/s group-commit=%.0f/s%n",
+                    level, direct, grouped);
+        }
+    }
+
+    private double run(String prefix, int count, Function<CheckIn, CheckIn> writer) throws Exception {
+        List<Long> userIds = createUsers(prefix, count);
+
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENT_THREADS);
+        try {
+            long start = System.nanoTime();
+            List<Future<CheckIn>> results = new ArrayList<>(count);
+            for (Long userId : userIds) {
+                results.add(clients.submit(() -> {
+                    User user = new User();
+                    user.setId(userId);
+                    CheckIn checkIn = new CheckIn();
+                    checkIn.setUser(user);
+                    return writer.apply(checkIn);
+                }));
+            }
+            for (Future<CheckIn> result : results) {
+                result.get();
+            }
+            long elapsed = System.nanoTime() - start;
+            return count / (elapsed / 1_000_000_000.0);
+        } finally {
+            clients.shutdown();
+        }
+    }
+
+    private List<Long> createUsers(String prefix, int count) {
+        List<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            users.add(new User(prefix + "-" + i, prefix + "-" + i + "@example.com", "not-a-real-hash"));
+        }
+        return userRepository.saveAllBatched(users).stream().map(User::getId).toList();
+    }
+}
@@ -0,0 +1,76 @@
+package com.lifecheckin.backend.service;
+
+import com.lifecheckin.backend.model.CheckIn;
+import com.lifecheckin.backend.model.User;
+import com.lifecheckin.backend.repository.CheckInRepository;
+import com.lifecheckin.backend.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class CheckInGroupCommitterTest {
+
+    @Autowired
+    private CheckInGroupCommitter checkInGroupCommitter;
+
+    @Autowired
+    private CheckInRepository checkInRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void requestsLeftBehindByTheWorkerAreStillWritten() throws Exception {
+        // 模擬寫入執行緒已經結束、但 running 仍為 true 的瞬間
+        Thread exited = new Thread(() -> { });
+        exited.start();
+        exited.join();
+        Queue<?> queue = new ArrayBlockingQueue<>(10);
+        ReflectionTestUtils.setField(checkInGroupCommitter, "enabled", true);
+        ReflectionTestUtils.setField(checkInGroupCommitter, "queue", queue);
+        ReflectionTestUtils.setField(checkInGroupCommitter, "worker", exited);
+        ReflectionTestUtils.setField(checkInGroupCommitter, "running", true);
+        try {
+            // 等待逾時時請求仍在佇列中：取回後改用單筆寫入
+            ReflectionTestUtils.setField(checkInGroupCommitter, "waitTimeoutMs", 100L);
+            CheckIn timedOut = checkInGroupCommitter.submitAndWait(newCheckIn("group-timeout"));
+            assertTrue(checkInRepository.existsById(timedOut.getId()));
+            assertTrue(queue.isEmpty());
+
+            // 停止時佇列中剩餘的請求改用單筆寫入，呼叫者不會一直等待
+            ReflectionTestUtils.setField(checkInGroupCommitter, "waitTimeoutMs", 60_000L);
+            CompletableFuture<CheckIn> waiting = CompletableFuture.supplyAsync(
+                    () -> checkInGroupCommitter.submitAndWait(newCheckIn("group-leftover")));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (queue.isEmpty()) {
+                assertTrue(System.nanoTime() < deadline, "request was not queued");
+                Thread.sleep(1);
+            }
+            checkInGroupCommitter.stop();
+            CheckIn leftover = waiting.get(5, TimeUnit.SECONDS);
+            assertNotNull(leftover.getId());
+            assertTrue(checkInRepository.existsById(leftover.getId()));
+        } finally {
+            ReflectionTestUtils.setField(checkInGroupCommitter, "running", false);
+            ReflectionTestUtils.setField(checkInGroupCommitter, "enabled", false);
+            ReflectionTestUtils.setField(checkInGroupCommitter, "waitTimeoutMs", 5000L);
+        }
+    }
+
+    private CheckIn newCheckIn(String username) {
+        User user = userRepository.save(new User(username, username + "@example.com", "hash"));
+        CheckIn checkIn = new CheckIn();
+        checkIn.setUser(user);
+        return checkIn;
+    }
+}
@@ -0,0 +1,68 @@
+package com.lifecheckin.backend.service;
+
+import com.lifecheckin.backend.dto.CheckInImportResult;
+import com.lifecheckin.backend.model.User;
+import com.lifecheckin.backend.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.StringReader;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 歷史打卡匯入吞吐量基準測試
+ * 匯入 1,000 個用戶各 100 天的 NDJSON 記錄，回報每秒處理筆數。
+ * 預設不執行，使用 mvn test -Dbenchmark=true -Dtest=CheckInImportBenchmarkTest 啟動。
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "logging.level.com.lifecheckin.backend=INFO",
+        "logging.level.org.springframework.security=INFO",
+        "logging.level.org.springframework.web=INFO"
+})
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class CheckInImportBenchmarkTest {
+
+    private static final int USERS = 1_000;
+    private static final int DAYS = 100;
+
+    @Autowired
+    private CheckInImportService checkInImportService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void measureImportThroughput() {
+        // 暖機
+        run("warmup", 100);
+        run("import", USERS);
+    }
+
+    private void run(String prefix, int userCount) {
+        List<User> users = new ArrayList<>(userCount);
+        for (int i = 0; i < userCount; i++) {
+            users.add(new User(prefix + "-" + i, prefix + "-" + i + "@example.com", "not-a-real-hash"));
+        }
+        userRepository.saveAllBatched(users);
+
+        StringBuilder ndjson = new StringBuilder();
+        LocalDate firstDay = LocalDate.now().minusDays(DAYS + 1);
+        for (int day = 0; day < DAYS; day++) {
+            for (int i = 0; i < userCount; i++) {
+                ndjson.append("{\"username\":\"").append(prefix).append('-').append(i)
+                        .append("\",\"checkinTime\":\"").append(firstDay.plusDays(day).atTime(8, 0))
+                        .append("\",\"note\":\"imported\",\"status\":\"NORMAL\"}\n");
+            }
+        }
+
+        CheckInImportResult result = checkInImportService.importCheckIns(
+                new StringReader(ndjson.toString()), CheckInImportService.Format.NDJSON);
+        System.out.printf("[benchmark] mode=%s rows=%d imported=%d rows/s=%.0f%n",
+                prefix, result.getTotalRows(), result.getImportedRows(), result.getRowsPerSecond());
+    }
+}
@@ -0,0 +1,105 @@
+package com.lifecheckin.backend.service;
+
+import com.lifecheckin.backend.dto.CheckInImportResult;
+import com.lifecheckin.backend.model.User;
+import com.lifecheckin.backend.repository.CheckInRepository;
+import com.lifecheckin.backend.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.StringReader;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+class CheckInImportServiceTest {
+
+    @Autowired
+    private CheckInImportService checkInImportService;
+
+    @Autowired
+    private CheckInRepository checkInRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void importsNdjsonRejectsBadRowsAndRecomputesStreak() {
+        User user = userRepository.save(new User("import-ndjson", "import-ndjson@example.com", "hash"));
+        LocalDate today = LocalDate.now();
+
+        String ndjson = String.join("\n",
+                row("import-ndjson", today.minusDays(5), "gap"),
+                row("import-ndjson", today.minusDays(3), "first"),
+                row("import-ndjson", today.minusDays(2), null),
+                row("import-ndjson", today.minusDays(2), "same day"),
+                row("nobody-by-this-name", today.minusDays(2), null),
+                "{\"username\":\"import-ndjson\",\"checkinTime\":\"yesterday\"}",
+                "not json",
+                row("import-ndjson", today.minusDays(1), "last"));
+
+        CheckInImportResult result = checkInImportService.importCheckIns(
+                new StringReader(ndjson), CheckInImportService.Format.NDJSON);
+
+        assertEquals(8, result.getTotalRows());
+        assertEquals(4, result.getImportedRows());
+        assertEquals(4, result.getRejectedRows());
+        assertEquals(List.of(4L, 5L, 6L, 7L),
+                result.getRejects().stream().map(CheckInImportResult.RowReject::getLine).sorted().toList());
+        assertEquals(4, checkInRepository.countByUser(user));
+
+        User reloaded = userRepository.findById(user.getId()).orElseThrow();
+        assertEquals(3, reloaded.getStreakDays());
+        assertEquals(today.minusDays(1).atTime(8, 0), reloaded.getLastCheckInDate());
+    }
+
+    @Test
+    void importsCsvWithQuotedFields() {
+        User user = userRepository.save(new User("import-csv", "import-csv@example.com", "hash"));
+        LocalDate day = LocalDate.now().minusDays(10);
+
+        String csv = "username,checkinTime,note,location,status\n"
+                + "import-csv," + day + " 07:30:00,\"Hello, \"\"world\"\"\",,EARLY\n"
+                + "import-csv," + day.plusDays(1) + "T09:15,,Taipei,late\n"
+                + "import-csv," + day.plusDays(2) + "T09:15,,,SOMETIMES\n";
+
+        CheckInImportResult result = checkInImportService.importCheckIns(
+                new StringReader(csv), CheckInImportService.Format.CSV);
+
+        assertEquals(3, result.getTotalRows());
+        assertEquals(2, result.getImportedRows());
+        assertEquals(4, result.getRejects().get(0).getLine());
+        assertEquals("Hello, \"world\"",
+                checkInRepository.findByUserOrderByCheckinTimeDesc(user).get(1).getNote());
+        // 最後一次打卡在九天前，目前沒有進行中的連續打卡
+        User reloaded = userRepository.findById(user.getId()).orElseThrow();
+        assertEquals(0, reloaded.getStreakDays());
+        assertEquals(2, reloaded.getLongestStreakDays());
+    }
+
+    @Test
+    void importEndingBeforeYesterdayLeavesNoCurrentStreak() {
+        User user = userRepository.save(new User("import-stale", "import-stale@example.com", "hash"));
+        LocalDate last = LocalDate.now().minusDays(40);
+
+        String ndjson = String.join("\n",
+                row("import-stale", last.minusDays(3), null),
+                row("import-stale", last.minusDays(2), null),
+                row("import-stale", last.minusDays(1), null),
+                row("import-stale", last, null));
+        checkInImportService.importCheckIns(new StringReader(ndjson), CheckInImportService.Format.NDJSON);
+
+        User reloaded = userRepository.findById(user.getId()).orElseThrow();
+        assertEquals(0, reloaded.getStreakDays());
+        assertEquals(4, reloaded.getLongestStreakDays());
+        assertEquals(last.atTime(8, 0), reloaded.getLastCheckInDate());
+    }
+
+    private String row(String username, LocalDate day, String note) {
+        return "{\"username\":\"" + username + "\",\"checkinTime\":\"" + day.atTime(8, 0) + "\""
+                + (note != null ? ",\"note\":\"" + note + "\"" : "") + "}";
+    }
+}
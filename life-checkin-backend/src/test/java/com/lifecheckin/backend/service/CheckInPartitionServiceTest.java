@@ -0,0 +1,121 @@
+package com.lifecheckin.backend.service;
+
+import com.lifecheckin.backend.config.DatabaseDialect;
+import com.lifecheckin.backend.dto.PartitionMaintenanceResult;
+import com.lifecheckin.backend.model.CheckIn;
+import com.lifecheckin.backend.model.User;
+import com.lifecheckin.backend.repository.CheckInRepository;
+import com.lifecheckin.backend.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * 只在 PostgreSQL 上執行：轉換為分區表後，其餘測試也會在分區表上執行
+ */
+@SpringBootTest
+class CheckInPartitionServiceTest {
+
+    @Autowired
+    private CheckInPartitionService checkInPartitionService;
+
+    @Autowired
+    private CheckInRepository checkInRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DatabaseDialect databaseDialect;
+
+    @Test
+    void convertsCreatesFuturePartitionsAndDropsExpiredOnes() {
+        assumeTrue(databaseDialect.isPostgres());
+
+        LocalDate today = LocalDate.now();
+        YearMonth old = YearMonth.from(today).minusMonths(13);
+        User user = userRepository.save(new User("partition-old", "partition-old@example.com", "hash"));
+        CheckIn checkIn = new CheckIn();
+        checkIn.setUser(user);
+        checkIn.setCheckinTime(old.atDay(15).atTime(8, 0));
+        CheckIn oldCheckIn = checkInRepository.save(checkIn);
+
+        ReflectionTestUtils.setField(checkInPartitionService, "enabled", true);
+        try {
+            PartitionMaintenanceResult result = checkInPartitionService.maintain(today);
+            assertTrue(result.isEnabled());
+            List<String> partitions = result.getPartitions();
+            assertTrue(partitions.contains(partitionName(old)), partitions.toString());
+            assertTrue(partitions.contains(partitionName(YearMonth.from(today).plusMonths(3))), partitions.toString());
+
+            // 依日期查詢只讀取涵蓋的分區
+            String plan = String.join("\n", jdbcTemplate.queryForList(
+                    "EXPLAIN SELECT id FROM checkin_records WHERE user_id = ? AND checkin_date = ?",
+                    String.class, user.getId(), today));
+            assertTrue(plan.contains(partitionName(YearMonth.from(today))), plan);
+            assertFalse(plan.contains(partitionName(old)), plan);
+
+            ReflectionTestUtils.setField(checkInPartitionService, "retentionMonths", 12);
+            ReflectionTestUtils.setField(checkInPartitionService, "retentionAction", "drop");
+            result = checkInPartitionService.maintain(today);
+            assertEquals(List.of(partitionName(old)), result.getDroppedPartitions());
+            assertTrue(result.getCreatedPartitions().isEmpty());
+            assertFalse(checkInRepository.existsById(oldCheckIn.getId()));
+        } finally {
+            ReflectionTestUtils.setField(checkInPartitionService, "enabled", false);
+            ReflectionTestUtils.setField(checkInPartitionService, "retentionMonths", 0);
+            ReflectionTestUtils.setField(checkInPartitionService, "retentionAction", "detach");
+        }
+    }
+
+    @Test
+    void movesDefaultPartitionRowsIntoNewPartition() {
+        assumeTrue(databaseDialect.isPostgres());
+
+        LocalDate today = LocalDate.now();
+        YearMonth later = YearMonth.from(today).plusMonths(6);
+        ReflectionTestUtils.setField(checkInPartitionService, "enabled", true);
+        try {
+            checkInPartitionService.maintain(today);
+
+            // 沒有對應分區的月份落在預設分區
+            User user = userRepository.save(new User("partition-default", "partition-default@example.com", "hash"));
+            CheckIn checkIn = new CheckIn();
+            checkIn.setUser(user);
+            checkIn.setCheckinTime(later.atDay(10).atTime(8, 0));
+            CheckIn saved = checkInRepository.save(checkIn);
+            assertEquals(1, countIn("checkin_records_default", saved.getId()));
+
+            PartitionMaintenanceResult result = checkInPartitionService.maintain(today);
+            assertEquals(List.of(partitionName(later)), result.getCreatedPartitions());
+            assertEquals(1, result.getMovedFromDefault());
+            assertEquals(0, result.getDefaultPartitionRows());
+            assertEquals(0, countIn("checkin_records_default", saved.getId()));
+            assertEquals(1, countIn(partitionName(later), saved.getId()));
+        } finally {
+            ReflectionTestUtils.setField(checkInPartitionService, "enabled", false);
+        }
+    }
+
+    private int countIn(String table, Long id) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table + " WHERE id = ?", Integer.class, id);
+    }
+
+    private static String partitionName(YearMonth month) {
+        return String.format("checkin_records_y%04dm%02d", month.getYear(), month.getMonthValue());
+    }
+}
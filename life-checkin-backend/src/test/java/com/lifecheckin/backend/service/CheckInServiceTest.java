@@ -0,0 +1,195 @@
+package com.lifecheckin.backend.service;
+
+import com.lifecheckin.backend.dto.CheckInPage;
+import com.lifecheckin.backend.dto.CheckInView;
+import com.lifecheckin.backend.exception.DuplicateCheckInException;
+import com.lifecheckin.backend.exception.ResourceNotFoundException;
+import com.lifecheckin.backend.model.CheckIn;
+import com.lifecheckin.backend.model.User;
+import com.lifecheckin.backend.repository.CheckInRepository;
+import com.lifecheckin.backend.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class CheckInServiceTest {
+
+    @Autowired
+    private CheckInService checkInService;
+
+    @Autowired
+    private CheckInRepository checkInRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void secondCheckInOnSameDayIsRejected() {
+        User user = userRepository.save(new User("checkin-twice", "checkin-twice@example.com", "hash"));
+
+        CheckIn first = checkInService.createCheckIn(newCheckIn(user.getId()));
+        assertNotNull(first.getId());
+
+        assertThrows(DuplicateCheckInException.class,
+                () -> checkInService.createCheckIn(newCheckIn(user.getId())));
+        assertEquals(1, checkInRepository.countByUser(user));
+    }
+
+    @Test
+    void todayStatusFollowsCheckInAndDelete() {
+        User user = userRepository.save(new User("checkin-today", "checkin-today@example.com", "hash"));
+        User other = userRepository.save(new User("checkin-today-other", "checkin-today-other@example.com", "hash"));
+
+        assertFalse(checkInService.hasCheckedInToday(user.getId()));
+        CheckIn saved = checkInService.createCheckIn(newCheckIn(user.getId()));
+        assertTrue(checkInService.hasCheckedInToday(user.getId()));
+        assertFalse(checkInService.hasCheckedInToday(other.getId()));
+
+        checkInService.deleteCheckIn(saved.getId());
+        assertFalse(checkInService.hasCheckedInToday(user.getId()));
+    }
+
+    @Test
+    void concurrentCheckInsProduceExactlyOneRecord() throws Exception {
+        User user = userRepository.save(new User("checkin-race", "checkin-race@example.com", "hash"));
+        int attempts = 8;
+
+        ExecutorService pool = Executors.newFixedThreadPool(attempts);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<CheckIn>> results = new ArrayList<>();
+        for (int i = 0; i < attempts; i++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                return checkInService.createCheckIn(newCheckIn(user.getId()));
+            }));
+        }
+        start.countDown();
+
+        int succeeded = 0;
+        for (Future<CheckIn> result : results) {
+            try {
+                result.get();
+                succeeded++;
+            } catch (ExecutionException e) {
+                assertInstanceOf(DuplicateCheckInException.class, e.getCause());
+            }
+        }
+        pool.shutdown();
+
+        assertEquals(1, succeeded);
+        assertEquals(1, checkInRepository.countByUser(user));
+    }
+
+    @Test
+    void streakContinuesFromYesterdayAndResetsAfterGap() {
+        User continuing = new User("streak-continue", "streak-continue@example.com", "hash");
+        continuing.setStreakDays(3);
+        continuing.setLastCheckInDate(LocalDateTime.now().minusDays(1));
+        continuing = userRepository.save(continuing);
+
+        User lapsed = new User("streak-lapsed", "streak-lapsed@example.com", "hash");
+        lapsed.setStreakDays(5);
+        lapsed.setLastCheckInDate(LocalDateTime.now().minusDays(3));
+        lapsed = userRepository.save(lapsed);
+
+        checkInService.createCheckIn(newCheckIn(continuing.getId()));
+        checkInService.createCheckIn(newCheckIn(lapsed.getId()));
+
+        assertEquals(4, userRepository.findById(continuing.getId()).orElseThrow().getStreakDays());
+        assertEquals(1, userRepository.findById(lapsed.getId()).orElseThrow().getStreakDays());
+    }
+
+    @Test
+    void checkInForUnknownUserIsRejected() {
+        assertThrows(ResourceNotFoundException.class, () -> checkInService.createCheckIn(newCheckIn(-1L)));
+    }
+
+    @Test
+    void userCheckInsArePagedNewestFirstWithCursor() {
+        User user = userRepository.save(new User("checkin-pages", "checkin-pages@example.com", "hash"));
+        List<CheckIn> history = new ArrayList<>();
+        for (int day = 1; day <= 5; day++) {
+            CheckIn checkIn = newCheckIn(user.getId());
+            checkIn.setCheckinTime(LocalDate.now().minusDays(day).atTime(8, 0));
+            history.add(checkIn);
+        }
+        checkInRepository.saveAll(history);
+
+        CheckInPage first = checkInService.getUserCheckInPage(user.getId(), null, 2);
+        CheckInPage second = checkInService.getUserCheckInPage(user.getId(), first.getNextCursor(), 2);
+        CheckInPage last = checkInService.getUserCheckInPage(user.getId(), second.getNextCursor(), 2);
+
+        assertEquals(List.of(history.get(0).getId(), history.get(1).getId()),
+                first.getItems().stream().map(CheckInView::getId).toList());
+        assertEquals(List.of(history.get(2).getId(), history.get(3).getId()),
+                second.getItems().stream().map(CheckInView::getId).toList());
+        assertEquals(List.of(history.get(4).getId()), last.getItems().stream().map(CheckInView::getId).toList());
+        assertNull(last.getNextCursor());
+    }
+
+    @Test
+    void allCheckInsStreamAsOneJsonObjectPerLine() {
+        User user = userRepository.save(new User("checkin-stream", "checkin-stream@example.com", "hash"));
+        CheckIn created = checkInService.createCheckIn(newCheckIn(user.getId()));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        checkInService.streamAllCheckIns(out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(checkInRepository.count(), lines.length);
+        assertTrue(List.of(lines).stream().anyMatch(line -> line.startsWith(
+                "{\"id\":" + created.getId() + ",\"userId\":" + user.getId() + ",")));
+    }
+
+    @Test
+    void checkInDateFollowsUserTimeZone() {
+        // UTC+14，與伺服器時區的日期通常不同
+        ZoneId zone = ZoneId.of("Pacific/Kiritimati");
+        User user = new User("checkin-zone", "checkin-zone@example.com", "hash");
+        user.setTimeZone(zone.getId());
+        user = userRepository.save(user);
+
+        CheckIn checkIn = newCheckIn(user.getId());
+        checkIn.getUser().setTimeZone(zone.getId());
+        CheckIn saved = checkInService.createCheckIn(checkIn);
+
+        LocalDate userToday = LocalDate.now(zone);
+        assertEquals(userToday, saved.getCheckinDate());
+        assertTrue(checkInService.hasCheckedInToday(user.getId(), zone.getId()));
+        assertEquals(List.of(saved.getId()), checkInRepository.findByUserAndDate(user, userToday)
+                .stream().map(CheckIn::getId).toList());
+        assertEquals(List.of(saved.getId()), checkInRepository.findByUserIdAndTimeRange(user.getId(),
+                        CheckInDays.startOf(userToday, zone), CheckInDays.startOf(userToday.plusDays(1), zone))
+                .stream().map(CheckIn::getId).toList());
+    }
+
+    private CheckIn newCheckIn(Long userId) {
+        User user = new User();
+        user.setId(userId);
+        CheckIn checkIn = new CheckIn();
+        checkIn.setUser(user);
+        return checkIn;
+    }
+}
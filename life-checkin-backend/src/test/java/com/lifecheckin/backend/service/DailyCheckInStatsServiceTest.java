@@ -0,0 +1,76 @@
+package com.lifecheckin.backend.service;
+
+import com.lifecheckin.backend.model.CheckIn;
+import com.lifecheckin.backend.model.DailyCheckInStats;
+import com.lifecheckin.backend.model.User;
+import com.lifecheckin.backend.repository.CheckInRepository;
+import com.lifecheckin.backend.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+class DailyCheckInStatsServiceTest {
+
+    @Autowired
+    private DailyCheckInStatsService dailyCheckInStatsService;
+
+    @Autowired
+    private CheckInService checkInService;
+
+    @Autowired
+    private CheckInRepository checkInRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void rollupFollowsCheckInsAndReconcileRebuildsFromRawRecords() {
+        User late = userRepository.save(new User("stats-late", "stats-late@example.com", "hash"));
+        User early = userRepository.save(new User("stats-early", "stats-early@example.com", "hash"));
+        LocalDate today = LocalDate.now();
+
+        dailyCheckInStatsService.flush();
+        DailyCheckInStats before = todayStats();
+
+        CheckIn lateCheckIn = new CheckIn();
+        lateCheckIn.setUser(late);
+        lateCheckIn.setStatus(CheckIn.CheckInStatus.LATE);
+        checkInService.createCheckIn(lateCheckIn);
+        CheckIn earlyCheckIn = new CheckIn();
+        earlyCheckIn.setUser(early);
+        earlyCheckIn.setStatus(CheckIn.CheckInStatus.EARLY);
+        CheckIn deleted = checkInService.createCheckIn(earlyCheckIn);
+        checkInService.deleteCheckIn(deleted.getId());
+
+        dailyCheckInStatsService.flush();
+        DailyCheckInStats after = todayStats();
+        assertEquals(before.getTotalCount() + 1, after.getTotalCount());
+        assertEquals(before.getLateCount() + 1, after.getLateCount());
+        assertEquals(before.getEarlyCount(), after.getEarlyCount());
+
+        // 繞過寫入路徑直接寫入的記錄只有校正後才會出現在統計中
+        LocalDate past = today.minusDays(200);
+        CheckIn direct = new CheckIn();
+        direct.setUser(late);
+        direct.setCheckinTime(past.atTime(9, 30));
+        direct.setCheckinDate(past);
+        direct.setStatus(CheckIn.CheckInStatus.LATE);
+        checkInRepository.save(direct);
+
+        List<DailyCheckInStats> rebuilt = dailyCheckInStatsService.reconcile(past, today);
+        assertEquals(new DailyCheckInStats(past, 1, 0, 1, 0), rebuilt.get(0));
+        assertEquals(after, rebuilt.get(rebuilt.size() - 1));
+    }
+
+    private DailyCheckInStats todayStats() {
+        List<DailyCheckInStats> stats = dailyCheckInStatsService.getDailyStats(1);
+        assertEquals(1, stats.size());
+        return stats.get(0);
+    }
+}
@@ -0,0 +1,98 @@
+package com.lifecheckin.backend.service;
+
+import com.lifecheckin.backend.dto.CheckInView;
+import com.lifecheckin.backend.model.CheckIn;
+import com.lifecheckin.backend.model.User;
+import com.lifecheckin.backend.repository.IdempotencyRecordRepository;
+import com.lifecheckin.backend.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class IdempotencyServiceTest {
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private CheckInService checkInService;
+
+    @Autowired
+    private CheckInGroupCommitter checkInGroupCommitter;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void replayReturnsOriginalResponseWithoutCheckingInAgain() {
+        User user = userRepository.save(new User("idempotent", "idempotent@example.com", "hash"));
+        AtomicInteger calls = new AtomicInteger();
+        Function<Consumer<CheckIn>, CheckInView> action = storeResponse -> {
+            calls.incrementAndGet();
+            CheckInView created = CheckInView.from(checkInService.createCheckIn(newCheckIn(user), storeResponse));
+            // 打卡提交時回應已一併寫入資料庫
+            assertStored("idempotent", "retry-1");
+            return created;
+        };
+
+        CheckInView first = idempotencyService.execute("idempotent", "retry-1", action);
+        CheckInView fromCache = idempotencyService.execute("idempotent", "retry-1", action);
+        idempotencyService.evictCache();
+        CheckInView fromDatabase = idempotencyService.execute("idempotent", "retry-1", action);
+
+        assertEquals(1, calls.get());
+        assertEquals(first.getId(), fromCache.getId());
+        assertEquals(first.getId(), fromDatabase.getId());
+        assertEquals(first.getCheckinTime(), fromDatabase.getCheckinTime());
+    }
+
+    @Test
+    void groupCommitStoresResponseInTheBatchTransaction() throws Exception {
+        User user = userRepository.save(new User("idempotent-group", "idempotent-group@example.com", "hash"));
+        ReflectionTestUtils.setField(checkInGroupCommitter, "enabled", true);
+        checkInGroupCommitter.start();
+        try {
+            CheckInView first = idempotencyService.execute("idempotent-group", "group-1", storeResponse -> {
+                CheckInView created = CheckInView.from(
+                        checkInGroupCommitter.submitAndWait(newCheckIn(user), storeResponse));
+                assertStored("idempotent-group", "group-1");
+                return created;
+            });
+            idempotencyService.evictCache();
+            CheckInView replay = idempotencyService.execute("idempotent-group", "group-1", storeResponse -> {
+                throw new AssertionError("replay must not check in again");
+            });
+            assertEquals(first.getId(), replay.getId());
+        } finally {
+            checkInGroupCommitter.stop();
+            ReflectionTestUtils.setField(checkInGroupCommitter, "enabled", false);
+        }
+    }
+
+    private void assertStored(String username, String idempotencyKey) {
+        assertTrue(idempotencyRecordRepository
+                .findByUsernameAndIdempotencyKeyAndExpiresAtAfter(username, idempotencyKey, LocalDateTime.now())
+                .isPresent());
+    }
+
+    private static CheckIn newCheckIn(User user) {
+        User owner = new User();
+        owner.setId(user.getId());
+        CheckIn checkIn = new CheckIn();
+        checkIn.setUser(owner);
+        return checkIn;
+    }
+}
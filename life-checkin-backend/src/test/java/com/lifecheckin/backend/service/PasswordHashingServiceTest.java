@@ -0,0 +1,101 @@
+package com.lifecheckin.backend.service;
+
+import com.lifecheckin.backend.controller.AuthController;
+import com.lifecheckin.backend.dto.LoginRequest;
+import com.lifecheckin.backend.exception.PasswordHashingBusyException;
+import com.lifecheckin.backend.model.User;
+import com.lifecheckin.backend.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class PasswordHashingServiceTest {
+
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+
+    @Autowired
+    private AuthController authController;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void rejectsImmediatelyWhenThreadsAndQueueAreFull() throws Exception {
+        ThreadPoolExecutor executor =
+                (ThreadPoolExecutor) ReflectionTestUtils.getField(passwordHashingService, "executor");
+        double rejectedBefore = meterRegistry.counter("auth.password.hash.rejected").count();
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            Runnable blocker = () -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            };
+            // 佔滿所有執行緒與等待佇列；閒置的執行緒取走工作前佇列可能短暫已滿，持續補到兩者都滿為止
+            long deadline = System.nanoTime() + 5_000_000_000L;
+            while (executor.getActiveCount() < executor.getMaximumPoolSize()
+                    || executor.getQueue().remainingCapacity() > 0) {
+                assertTrue(System.nanoTime() < deadline, "executor did not fill up");
+                try {
+                    executor.execute(blocker);
+                } catch (RejectedExecutionException e) {
+                    Thread.sleep(1);
+                }
+            }
+            assertEquals(executor.getQueue().size(),
+                    meterRegistry.get("auth.password.hash.queue.depth").gauge().value(), 0.0);
+
+            long start = System.nanoTime();
+            assertThrows(PasswordHashingBusyException.class, () -> passwordHashingService.encode("secret"));
+            LoginRequest login = new LoginRequest();
+            login.setUsername("nobody");
+            login.setPassword("secret");
+            assertThrows(PasswordHashingBusyException.class, () -> authController.login(login));
+            assertTrue(System.nanoTime() - start < 1_000_000_000L, "rejection should not wait for a thread");
+            assertEquals(rejectedBefore + 2, meterRegistry.counter("auth.password.hash.rejected").count(), 0.0);
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void rehashesPasswordStoredWithOldCostOnLogin() {
+        // 以較低成本儲存的舊密碼
+        String oldHash = new BCryptPasswordEncoder(4).encode("old-cost-pass");
+        User user = userRepository.save(new User("rehash-user", "rehash-user@example.com", oldHash));
+        assertTrue(passwordHashingService.needsRehash(oldHash));
+
+        LoginRequest login = new LoginRequest();
+        login.setUsername("rehash-user");
+        login.setPassword("old-cost-pass");
+        ResponseEntity<?> response = authController.login(login);
+        assertEquals(200, response.getStatusCode().value());
+
+        User stored = userRepository.findById(user.getId()).orElseThrow();
+        assertTrue(stored.getPassword().startsWith("$2a$10$"), stored.getPassword());
+        assertFalse(passwordHashingService.needsRehash(stored.getPassword()));
+        assertTrue(passwordHashingService.matches("old-cost-pass", stored.getPassword()));
+        // 密碼本身沒有變更，已簽發的令牌仍然有效
+        assertEquals(user.getTokenVersion(), stored.getTokenVersion());
+    }
+}
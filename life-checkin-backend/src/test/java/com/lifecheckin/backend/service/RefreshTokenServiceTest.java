@@ -0,0 +1,59 @@
+package com.lifecheckin.backend.service;
+
+import com.lifecheckin.backend.dto.LoginResponse;
+import com.lifecheckin.backend.exception.InvalidRefreshTokenException;
+import com.lifecheckin.backend.model.User;
+import com.lifecheckin.backend.repository.UserRepository;
+import com.lifecheckin.backend.security.JwtUtil;
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+class RefreshTokenServiceTest {
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Test
+    void rotatesTokensAndRevokesFamilyOnReuse() {
+        User user = userRepository.save(new User("refresh-user", "refresh-user@example.com", "hash"));
+        String first = refreshTokenService.issue(user);
+
+        LoginResponse rotated = refreshTokenService.refresh(first);
+        assertNotEquals(first, rotated.getRefreshToken());
+        Claims claims = jwtUtil.verify(rotated.getToken());
+        assertEquals("refresh-user", claims.getSubject());
+        assertEquals(user.getId(), jwtUtil.toPrincipal(claims).getUserId());
+
+        // 舊令牌再次出現：拒絕，並撤銷同一次登入輪替出的新令牌
+        assertThrows(InvalidRefreshTokenException.class, () -> refreshTokenService.refresh(first));
+        assertThrows(InvalidRefreshTokenException.class, () -> refreshTokenService.refresh(rotated.getRefreshToken()));
+
+        // 其他登入（family）不受影響
+        String other = refreshTokenService.issue(user);
+        LoginResponse otherRotated = refreshTokenService.refresh(other);
+
+        // 修改密碼後令牌版本變更，這次登入的刷新令牌也不能再使用
+        User change = new User();
+        change.setPassword("new-password");
+        userService.updateUser(user.getId(), change);
+        assertThrows(InvalidRefreshTokenException.class,
+                () -> refreshTokenService.refresh(otherRotated.getRefreshToken()));
+        assertThrows(InvalidRefreshTokenException.class, () -> refreshTokenService.refresh("not-a-token"));
+    }
+}
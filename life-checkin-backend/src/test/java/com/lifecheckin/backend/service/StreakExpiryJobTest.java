@@ -0,0 +1,74 @@
+package com.lifecheckin.backend.service;
+
+import com.lifecheckin.backend.dto.StreakExpiryResult;
+import com.lifecheckin.backend.model.JobCheckpoint;
+import com.lifecheckin.backend.model.User;
+import com.lifecheckin.backend.repository.JobCheckpointRepository;
+import com.lifecheckin.backend.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+class StreakExpiryJobTest {
+
+    @Autowired
+    private StreakExpiryJob streakExpiryJob;
+
+    @Autowired
+    private JobCheckpointRepository jobCheckpointRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void resumesAfterCheckpointAndZeroesOnlyBrokenStreaks() {
+        User alreadyProcessed = userWithStreak("expiry-processed", 3);
+        User broken = userWithStreak("expiry-broken", 2);
+        User brokenToo = userWithStreak("expiry-broken-too", 5);
+        User active = userWithStreak("expiry-active", 1);
+
+        // 模擬今天這一輪在處理完第一位用戶後中斷
+        JobCheckpoint checkpoint = new JobCheckpoint();
+        checkpoint.setJobName(StreakExpiryJob.JOB_NAME);
+        checkpoint.setRunDate(LocalDate.now());
+        checkpoint.setLastId(alreadyProcessed.getId());
+        checkpoint.setUpdatedAt(LocalDateTime.now());
+        jobCheckpointRepository.save(checkpoint);
+
+        ReflectionTestUtils.setField(streakExpiryJob, "chunkSize", 1);
+        try {
+            StreakExpiryResult result = streakExpiryJob.run();
+            assertEquals(alreadyProcessed.getId(), result.getResumedAfterId());
+            assertEquals(2, result.getExpiredUsers());
+            assertEquals(3, result.getChunks());
+
+            assertEquals(7, streakOf(alreadyProcessed));
+            assertEquals(0, streakOf(broken));
+            assertEquals(0, streakOf(brokenToo));
+            assertEquals(7, streakOf(active));
+
+            // 今天這一輪已完成，再次執行不會重新掃描
+            assertEquals(0, streakExpiryJob.run().getChunks());
+        } finally {
+            ReflectionTestUtils.setField(streakExpiryJob, "chunkSize", 1000);
+        }
+    }
+
+    private User userWithStreak(String username, int daysSinceLastCheckIn) {
+        User user = new User(username, username + "@example.com", "hash");
+        user.setStreakDays(7);
+        user.setLastCheckInDate(LocalDate.now().minusDays(daysSinceLastCheckIn).atTime(8, 0));
+        return userRepository.save(user);
+    }
+
+    private int streakOf(User user) {
+        return userRepository.findById(user.getId()).orElseThrow().getStreakDays();
+    }
+}
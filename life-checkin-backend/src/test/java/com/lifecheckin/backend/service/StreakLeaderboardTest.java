@@ -0,0 +1,71 @@
+package com.lifecheckin.backend.service;
+
+import com.lifecheckin.backend.dto.LeaderboardEntry;
+import com.lifecheckin.backend.model.CheckIn;
+import com.lifecheckin.backend.model.User;
+import com.lifecheckin.backend.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@SpringBootTest
+class StreakLeaderboardTest {
+
+    @Autowired
+    private StreakLeaderboard streakLeaderboard;
+
+    @Autowired
+    private CheckInService checkInService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void checkInsMoveUsersUpAndRebuildSkipsBrokenStreaks() {
+        User first = userWithStreak("leader-first", 10_000, 1);
+        User second = userWithStreak("leader-second", 9_999, 1);
+        User broken = userWithStreak("leader-broken", 20_000, 3);
+        streakLeaderboard.rebuild();
+
+        assertEquals(List.of(
+                new LeaderboardEntry(1, "leader-first", 10_000),
+                new LeaderboardEntry(2, "leader-second", 9_999)), streakLeaderboard.top(2));
+        assertEquals(new LeaderboardEntry(null, "leader-broken", 0), streakLeaderboard.rankOf("leader-broken"));
+
+        // 兩人今天都打卡後天數各加一，名次不變；第二名打卡後與原本的第一名同分、名次並列
+        checkIn(second);
+        assertEquals(new LeaderboardEntry(1, "leader-second", 10_000), streakLeaderboard.rankOf("leader-second"));
+        assertEquals(new LeaderboardEntry(1, "leader-first", 10_000), streakLeaderboard.rankOf("leader-first"));
+        checkIn(first);
+        assertEquals(List.of(
+                new LeaderboardEntry(1, "leader-first", 10_001),
+                new LeaderboardEntry(2, "leader-second", 10_000)), streakLeaderboard.top(2));
+
+        // 不在排行榜上的用戶打卡後重新開始計算
+        checkIn(broken);
+        assertEquals(1, streakLeaderboard.rankOf("leader-broken").getStreakDays());
+        assertEquals(1, userRepository.findById(broken.getId()).orElseThrow().getStreakDays());
+
+        streakLeaderboard.rebuild();
+        assertEquals(new LeaderboardEntry(2, "leader-second", 10_000), streakLeaderboard.rankOf("leader-second"));
+    }
+
+    private User userWithStreak(String username, int streakDays, int daysSinceLastCheckIn) {
+        User user = new User(username, username + "@example.com", "hash");
+        user.setStreakDays(streakDays);
+        user.setLastCheckInDate(LocalDate.now().minusDays(daysSinceLastCheckIn).atTime(8, 0));
+        return userRepository.save(user);
+    }
+
+    private void checkIn(User user) {
+        CheckIn checkIn = new CheckIn();
+        checkIn.setUser(user);
+        checkInService.createCheckIn(checkIn);
+    }
+}
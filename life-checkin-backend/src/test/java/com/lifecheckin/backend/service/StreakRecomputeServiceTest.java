@@ -0,0 +1,89 @@
+package com.lifecheckin.backend.service;
+
+import com.lifecheckin.backend.dto.StreakDiff;
+import com.lifecheckin.backend.dto.StreakRecomputeResult;
+import com.lifecheckin.backend.model.CheckIn;
+import com.lifecheckin.backend.model.User;
+import com.lifecheckin.backend.repository.CheckInRepository;
+import com.lifecheckin.backend.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class StreakRecomputeServiceTest {
+
+    @Autowired
+    private StreakRecomputeService streakRecomputeService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CheckInRepository checkInRepository;
+
+    @Test
+    void dryRunReportsDriftAndApplyFixesIt() {
+        LocalDate today = LocalDate.now();
+        LocalDateTime lastCheckIn = today.minusDays(1).atTime(8, 0);
+        User user = new User("recompute-drift", "recompute-drift@example.com", "hash");
+        user.setStreakDays(9);
+        user.setLastCheckInDate(lastCheckIn);
+        user = userRepository.save(user);
+
+        // 連續三天後中斷一天，昨天再打卡：目前 1 天、最長 3 天
+        for (int daysAgo : new int[]{5, 4, 3, 1}) {
+            CheckIn checkIn = new CheckIn();
+            checkIn.setUser(user);
+            checkIn.setCheckinTime(today.minusDays(daysAgo).atTime(8, 0));
+            checkInRepository.save(checkIn);
+        }
+
+        StreakRecomputeResult dryRun = streakRecomputeService.recompute(true);
+        List<StreakDiff> diffs = diffsOf(dryRun, user.getId());
+        assertEquals(List.of(new StreakDiff(user.getId(), "recompute-drift", 9, 1, 0, 3, lastCheckIn, lastCheckIn)),
+                diffs);
+        assertEquals(9, userRepository.findById(user.getId()).orElseThrow().getStreakDays());
+
+        assertEquals(1, userRepository.applyStreakDiffs(diffs));
+        User fixed = userRepository.findById(user.getId()).orElseThrow();
+        assertEquals(1, fixed.getStreakDays());
+        assertEquals(3, fixed.getLongestStreakDays());
+        assertTrue(diffsOf(streakRecomputeService.recompute(true), user.getId()).isEmpty());
+    }
+
+    @Test
+    void keepsStreakEndingYesterdayInTimeZoneBehindServer() {
+        // 伺服器時間凌晨一點，UTC-12 的用戶仍在伺服器的前一天，用戶的昨天是伺服器的前天
+        LocalDateTime now = LocalDate.now().atTime(1, 0);
+        ZoneId zone = ZoneId.of("Etc/GMT+12");
+        LocalDate userToday = CheckInDays.dayOf(now, zone);
+        LocalDateTime lastCheckIn = CheckInDays.startOf(userToday.minusDays(1), zone).plusHours(12);
+        User user = new User("recompute-behind", "recompute-behind@example.com", "hash");
+        user.setTimeZone("Etc/GMT+12");
+        user = userRepository.save(user);
+
+        for (int daysAgo : new int[]{2, 1}) {
+            CheckIn checkIn = new CheckIn();
+            checkIn.setUser(user);
+            checkIn.setCheckinTime(CheckInDays.startOf(userToday.minusDays(daysAgo), zone).plusHours(12));
+            checkIn.setCheckinDate(userToday.minusDays(daysAgo));
+            checkInRepository.save(checkIn);
+        }
+
+        assertEquals(List.of(new StreakDiff(user.getId(), "recompute-behind", 0, 2, 0, 2, null, lastCheckIn)),
+                diffsOf(streakRecomputeService.recompute(true, now), user.getId()));
+    }
+
+    private List<StreakDiff> diffsOf(StreakRecomputeResult result, Long userId) {
+        return result.getDiffs().stream().filter(d -> d.getUserId().equals(userId)).toList();
+    }
+}
@@ -0,0 +1,64 @@
+package com.lifecheckin.backend.service;
+
+import com.lifecheckin.backend.controller.AuthController;
+import com.lifecheckin.backend.dto.AvailabilityResponse;
+import com.lifecheckin.backend.model.User;
+import com.lifecheckin.backend.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class UserAvailabilityFilterTest {
+
+    @Autowired
+    private UserAvailabilityFilter userAvailabilityFilter;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AuthController authController;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void answersAbsentValuesWithoutDatabaseAndTracksNewUsers() {
+        // 直接寫入資料庫的用戶在重建時由掃描加入
+        userRepository.save(new User("bloom-scanned", "bloom-scanned@example.com", "hash"));
+        userAvailabilityFilter.rebuild();
+        assertTrue(userAvailabilityFilter.mayContainUsername("bloom-scanned"));
+        assertTrue(userAvailabilityFilter.mayContainEmail(" Bloom-Scanned@Example.com "));
+
+        // 註冊時加入，不需要重建
+        userService.registerUser("bloom-registered", "bloom-registered@example.com", "secret1");
+        assertTrue(userAvailabilityFilter.mayContainUsername("bloom-registered"));
+        AvailabilityResponse taken = authController.available("bloom-registered", "bloom-registered@example.com").getBody();
+        assertFalse(taken.getUsernameAvailable());
+        assertFalse(taken.getEmailAvailable());
+
+        // 大量不存在的值幾乎都由 filter 直接回答
+        double absentBefore = meterRegistry.counter("auth.availability.filter", "result", "absent").count();
+        for (int i = 0; i < 1000; i++) {
+            AvailabilityResponse free = authController.available("bloom-free-" + i, null).getBody();
+            assertTrue(free.getUsernameAvailable());
+            assertNull(free.getEmailAvailable());
+        }
+        double absent = meterRegistry.counter("auth.availability.filter", "result", "absent").count() - absentBefore;
+        assertTrue(absent >= 950, "filter answered only " + absent + " of 1000 lookups");
+
+        // 只有大小寫不同：filter 可能存在，由資料庫確認仍可用
+        assertTrue(userAvailabilityFilter.mayContainUsername("BLOOM-REGISTERED"));
+        assertEquals(Boolean.TRUE, authController.available("BLOOM-REGISTERED", null).getBody().getUsernameAvailable());
+    }
+}
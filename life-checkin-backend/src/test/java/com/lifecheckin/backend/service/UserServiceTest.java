@@ -0,0 +1,86 @@
+package com.lifecheckin.backend.service;
+
+import com.lifecheckin.backend.config.DatabaseDialect;
+import com.lifecheckin.backend.config.UserConstraintInitializer;
+import com.lifecheckin.backend.exception.UserAlreadyExistsException;
+import com.lifecheckin.backend.model.User;
+import com.lifecheckin.backend.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+@SpringBootTest
+class UserServiceTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserConstraintInitializer userConstraintInitializer;
+
+    @Autowired
+    private DatabaseDialect databaseDialect;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void duplicateUsernameOrEmailIsReportedByUniqueConstraint() {
+        User first = userService.registerUser("unique-user", "unique-user@example.com", "secret1");
+        User second = userService.registerUser("unique-user-2", "unique-user-2@example.com", "secret1");
+
+        UserAlreadyExistsException username = assertThrows(UserAlreadyExistsException.class,
+                () -> userService.registerUser("unique-user", "other@example.com", "secret1"));
+        assertEquals("Username already exists: unique-user", username.getMessage());
+
+        UserAlreadyExistsException email = assertThrows(UserAlreadyExistsException.class,
+                () -> userService.registerUser("unique-user-3", "unique-user@example.com", "secret1"));
+        assertEquals("Email already exists: unique-user@example.com", email.getMessage());
+
+        User created = new User("unique-user", "created@example.com", "secret1");
+        assertThrows(UserAlreadyExistsException.class, () -> userService.createUser(created));
+
+        // 修改為其他用戶的郵箱：拒絕，且原資料不變
+        User change = new User();
+        change.setEmail("unique-user@example.com");
+        email = assertThrows(UserAlreadyExistsException.class, () -> userService.updateUser(second.getId(), change));
+        assertEquals("Email already exists: unique-user@example.com", email.getMessage());
+        assertEquals("unique-user-2@example.com", userRepository.findById(second.getId()).orElseThrow().getEmail());
+
+        User rename = new User();
+        rename.setUsername("unique-user");
+        username = assertThrows(UserAlreadyExistsException.class, () -> userService.updateUser(second.getId(), rename));
+        assertEquals("Username already exists: unique-user", username.getMessage());
+        assertEquals(first.getId(), userRepository.findByUsername("unique-user").orElseThrow().getId());
+    }
+
+    @Test
+    void legacyHibernateNamedConstraintsAreRenamedOrDropped() {
+        assumeTrue(databaseDialect.isPostgres());
+
+        // 舊資料庫：用戶名有 Hibernate 自動命名的約束與新約束並存，郵箱只有自動命名的約束
+        jdbcTemplate.execute("ALTER TABLE users ADD CONSTRAINT ukr43af9ap4edm43mmtq01oddj6 UNIQUE (username)");
+        jdbcTemplate.execute("ALTER TABLE users DROP CONSTRAINT " + User.EMAIL_CONSTRAINT);
+        jdbcTemplate.execute("ALTER TABLE users ADD CONSTRAINT uk6dotkott2kjsp8vw4d0m25fb7 UNIQUE (email)");
+
+        userConstraintInitializer.migrateConstraints();
+
+        assertEquals(List.of(User.EMAIL_CONSTRAINT, User.USERNAME_CONSTRAINT), jdbcTemplate.queryForList(
+                "SELECT conname FROM pg_constraint WHERE conrelid = CAST('users' AS regclass) AND contype = 'u' "
+                        + "ORDER BY conname", String.class));
+        userService.registerUser("legacy-constraint", "legacy-constraint@example.com", "secret1");
+        UserAlreadyExistsException email = assertThrows(UserAlreadyExistsException.class,
+                () -> userService.registerUser("legacy-constraint-2", "legacy-constraint@example.com", "secret1"));
+        assertEquals("Email already exists: legacy-constraint@example.com", email.getMessage());
+    }
+}
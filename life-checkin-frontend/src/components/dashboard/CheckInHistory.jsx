@@ -14,11 +14,12 @@ import {
   Typography,
   CircularProgress,
   Box,
+  Button,
 } from "@mui/material";
 
 const CheckInHistory = () => {
   const dispatch = useDispatch();
-  const { checkInHistory, loading, error } = useSelector(
+  const { checkInHistory, nextCursor, loading, loadingMore, error } = useSelector(
     (state) => state.checkIn
   );
 
@@ -87,6 +88,16 @@ const CheckInHistory = () => {
           </TableBody>
         </Table>
       </TableContainer>
+      {nextCursor && (
+        <Box sx={{ display: "flex", justifyContent: "center", p: 1 }}>
+          <Button
+            onClick={() => dispatch(getMyCheckIns(nextCursor))}
+            disabled={loadingMore}
+          >
+            {loadingMore ? <CircularProgress size={20} /> : "載入更多"}
+          </Button>
+        </Box>
+      )}
     </Paper>
   );
 };
@@ -31,13 +31,16 @@ export const getTodayStatus = createAsyncThunk(
   }
 );
 
-// 獲取我的打卡記錄 Thunk
+// 獲取我的打卡記錄 Thunk：不帶游標時讀取第一頁，帶游標時讀取下一頁並接在已載入的記錄後面
 export const getMyCheckIns = createAsyncThunk(
   "checkIn/getMyCheckIns",
-  async (_, { rejectWithValue }) => {
+  async (before, { rejectWithValue }) => {
     try {
-      const response = await checkInService.getMyCheckIns();
-      return response.data;
+      const response = await checkInService.getMyCheckIns(before);
+      return {
+        records: response.data,
+        nextCursor: response.headers["x-next-cursor"] || null,
+      };
     } catch (error) {
       return rejectWithValue(
         error.response?.data?.message || "Failed to get check-in records"
@@ -50,7 +53,10 @@ export const getMyCheckIns = createAsyncThunk(
 const initialState = {
   todayCheckedIn: false,
   checkInHistory: [],
+  // 下一頁的游標，沒有更早的記錄時為 null
+  nextCursor: null,
   loading: false,
+  loadingMore: false,
   error: null,
 };
 
@@ -91,15 +97,27 @@ const checkInSlice = createSlice({
         state.error = action.payload;
       })
       // 獲取打卡歷史
-      .addCase(getMyCheckIns.pending, (state) => {
-        state.loading = true;
+      .addCase(getMyCheckIns.pending, (state, action) => {
+        if (action.meta.arg) {
+          state.loadingMore = true;
+        } else {
+          state.loading = true;
+        }
       })
       .addCase(getMyCheckIns.fulfilled, (state, action) => {
-        state.loading = false;
-        state.checkInHistory = action.payload;
+        const { records, nextCursor } = action.payload;
+        if (action.meta.arg) {
+          state.loadingMore = false;
+          state.checkInHistory = state.checkInHistory.concat(records);
+        } else {
+          state.loading = false;
+          state.checkInHistory = records;
+        }
+        state.nextCursor = nextCursor;
       })
       .addCase(getMyCheckIns.rejected, (state, action) => {
         state.loading = false;
+        state.loadingMore = false;
         state.error = action.payload;
       });
   },
@@ -25,13 +25,45 @@ api.interceptors.request.use(
   }
 );
 
+// 同時有多個請求遇到 401 時只刷新一次（刷新令牌只能使用一次）
+let refreshing = null;
+
+const refreshTokens = () => {
+  if (!refreshing) {
+    const refreshToken = localStorage.getItem('refreshToken');
+    refreshing = (refreshToken
+      ? axios.post(`${baseURL}/auth/refresh`, { refreshToken }).then((response) => {
+          localStorage.setItem('token', response.data.token);
+          localStorage.setItem('refreshToken', response.data.refreshToken);
+          return response.data.token;
+        })
+      : Promise.reject(new Error('No refresh token'))
+    ).finally(() => {
+      refreshing = null;
+    });
+  }
+  return refreshing;
+};
+
 // 響應攔截器 - 處理常見錯誤
 api.interceptors.response.use(
   (response) => response,
-  (error) => {
-    // 處理 401 未授權錯誤
+  async (error) => {
+    // 處理 401 未授權錯誤：存取令牌過期時先以刷新令牌換發並重送一次，失敗才回到登入頁面
     if (error.response && error.response.status === 401) {
+      const original = error.config;
+      if (original && !original._retried && !original.url.startsWith('/auth/')) {
+        original._retried = true;
+        try {
+          const token = await refreshTokens();
+          original.headers['Authorization'] = `Bearer ${token}`;
+          return api(original);
+        } catch (refreshError) {
+          // 刷新失敗，改為重新登入
+        }
+      }
       localStorage.removeItem('token');
+      localStorage.removeItem('refreshToken');
       // 如果在客戶端，重定向到登入頁面
       if (typeof window !== 'undefined') {
         window.location.href = '/login';
@@ -6,6 +6,7 @@ const authService = {
     const response = await api.post('/auth/login', { username, password });
     if (response.data.token) {
       localStorage.setItem('token', response.data.token);
+      localStorage.setItem('refreshToken', response.data.refreshToken);
     }
     return response.data;
   },
@@ -18,6 +19,7 @@ const authService = {
   // 登出
   logout: () => {
     localStorage.removeItem('token');
+    localStorage.removeItem('refreshToken');
   },
 
   // 檢查是否已登入
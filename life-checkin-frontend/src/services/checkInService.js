@@ -11,9 +11,9 @@ const checkInService = {
     return await api.get('/checkins/today');
   },
   
-  // 獲取用戶的所有打卡記錄
-  getMyCheckIns: async () => {
-    return await api.get('/checkins/my');
+  // 獲取用戶的打卡記錄（一頁，由新到舊）；before 為上一頁回應 X-Next-Cursor 標頭中的游標
+  getMyCheckIns: async (before) => {
+    return await api.get('/checkins/my', { params: before ? { before } : {} });
   }
 };
 